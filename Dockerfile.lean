@@ -0,0 +1,20 @@
+FROM openjdk:8-alpine
+
+COPY docker/application/files/application.properties /opt/vanhackathon/application/
+
+COPY target/vanhackathon-1.0-SNAPSHOT.jar /opt/vanhackathon/application/
+
+WORKDIR /opt/vanhackathon/application/
+
+# Class data sharing archive of the JDK classes loaded by a training run of the application on an in memory database,
+# built on the JVM of the image as the archive only works on the JVM that built it
+RUN java -XX:DumpLoadedClassList=app-cds.classlist -jar vanhackathon-1.0-SNAPSHOT.jar \
+        --spring.profiles.active=lean --spring.datasource.url=jdbc:h2:mem:training \
+        --restaurant.lean.training-run=true --server.port=0 \
+    && java -Xshare:dump -XX:SharedClassListFile=app-cds.classlist \
+        -XX:+UnlockDiagnosticVMOptions -XX:SharedArchiveFile=app-cds.jsa
+
+ENTRYPOINT ["java", "-XX:+UnlockDiagnosticVMOptions", "-XX:SharedArchiveFile=app-cds.jsa", "-Xshare:auto", \
+    "-jar", "vanhackathon-1.0-SNAPSHOT.jar", "--spring.profiles.active=mysql,lean"]
+
+EXPOSE 8080
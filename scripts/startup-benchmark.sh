@@ -0,0 +1,59 @@
+#!/bin/sh
+# Startup benchmark of the packaged application: starts it the given number of times (5 by default) and reports, for
+# each run, the time from the launch of the JVM to the first answered request and the resident memory (RSS) of the
+# process at that moment, followed by the medians.
+#
+# The JVM options and the application arguments are taken from the JAVA_OPTS and APP_ARGS variables, e.g. to compare
+# the default start up with the lean one of a jar built with 'mvn package -P lean':
+#
+#   scripts/startup-benchmark.sh
+#   APP_ARGS=--spring.profiles.active=lean \
+#       JAVA_OPTS="-XX:+UnlockDiagnosticVMOptions -XX:SharedArchiveFile=target/app-cds.jsa -Xshare:auto" \
+#       scripts/startup-benchmark.sh
+set -e
+
+RUNS=${1:-5}
+JAR=${JAR:-target/vanhackathon-1.0-SNAPSHOT.jar}
+PORT=${PORT:-8080}
+URL=${URL:-http://localhost:$PORT/restaurant/available?day=MONDAY}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+millis() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+TIMES=$(mktemp)
+RSS=$(mktemp)
+trap 'rm -f "$TIMES" "$RSS"' EXIT
+
+for run in $(seq 1 "$RUNS"); do
+    if [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" != "000" ]; then
+        echo "Port $PORT is already in use, stop the running application first" >&2
+        exit 1
+    fi
+    start=$(millis)
+    # shellcheck disable=SC2086
+    $JAVA $JAVA_OPTS -jar "$JAR" --server.port="$PORT" $APP_ARGS > /dev/null 2>&1 &
+    pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" = "200" ]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "The application failed to start, run it without the benchmark to see the error" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(($(millis) - start))
+    rss=$(awk '/VmRSS/ { print int($2 / 1024) }' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+
+    echo "Run $run: first request after $elapsed ms, RSS $rss MB"
+    echo "$elapsed" >> "$TIMES"
+    echo "$rss" >> "$RSS"
+done
+
+echo "Median: first request after $(median < "$TIMES") ms, RSS $(median < "$RSS") MB"
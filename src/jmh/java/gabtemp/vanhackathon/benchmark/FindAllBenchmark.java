@@ -0,0 +1,133 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import gabtemp.vanhackathon.Application;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import gabtemp.vanhackathon.resource.RestaurantResource;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Cost of finding and streaming all the registered restaurants, against an in memory H2 database with the application
+ * context started without the web server
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FindAllBenchmark {
+
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private RestaurantResource resource;
+
+    private ContainerRequest request;
+
+    private ContainerRequest conditionalRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.gabtemp=WARN",
+                        "logging.level.org.springframework.web=WARN")
+                .run();
+        resource = context.getBean(RestaurantResource.class);
+        request = request();
+        conditionalRequest = request();
+
+        RestaurantRepository repository = context.getBean(RestaurantRepository.class);
+        List<Restaurant> chunk = new ArrayList<>(INSERT_CHUNK_SIZE);
+        for (long number = 1; number <= rows; number++) {
+            Restaurant restaurant = Restaurants.create(number);
+            restaurant.setId(null);
+            chunk.add(restaurant);
+            if (chunk.size() == INSERT_CHUNK_SIZE || number == rows) {
+                repository.saveAll(chunk);
+                chunk = new ArrayList<>(INSERT_CHUNK_SIZE);
+            }
+        }
+
+        long sequence = context.getBean(RestaurantChangeLog.class).getSequence();
+        conditionalRequest.header(HttpHeaders.IF_NONE_MATCH, "\"c-" + sequence + "\"");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * All the restaurants, as returned by GET /restaurant
+     */
+    @Benchmark
+    public long findAll() throws IOException {
+        return write(resource.findAll(null, null, request).getEntity());
+    }
+
+    /**
+     * The first 100 restaurants, as returned by GET /restaurant?limit=100
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long findFirstPage() throws IOException {
+        return write(resource.findAll(100, null, request).getEntity());
+    }
+
+    /**
+     * A poll of all the restaurants by a client that already has the current version, answered with a 304
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int findAllNotModified() {
+        return resource.findAll(null, null, conditionalRequest).getStatus();
+    }
+
+    private static ContainerRequest request() {
+        return new ContainerRequest(URI.create("/"), URI.create("/restaurant"), HttpMethod.GET, null,
+                new MapPropertiesDelegate());
+    }
+
+    private static long write(Object entity) throws IOException {
+        CountingOutputStream output = new CountingOutputStream(ByteStreams.nullOutputStream());
+        ((StreamingOutput) entity).write(output);
+        return output.getCount();
+    }
+}
@@ -0,0 +1,105 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.matching.MatchingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of keeping the leftovers matched to the shelters when a restaurant or a shelter changes, with 200 shelters of
+ * the Greater Vancouver area open in the evening and with room for about half of the pick-ups, so the changes bump and
+ * pull pick-ups between shelters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MatchingBenchmark {
+
+    private static final int SHELTERS = 200;
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private MatchingEngine engine;
+
+    private Restaurant[] restaurants;
+
+    private Shelter[] shelters;
+
+    private long next;
+
+    @Setup
+    public void setUp() {
+        engine = new MatchingEngine(25, 10, 30, 5);
+        shelters = new Shelter[SHELTERS];
+        int capacity = Math.max(1, rows * 4 / 7 / 2 / SHELTERS);
+        for (int number = 0; number < SHELTERS; number++) {
+            Restaurant location = Restaurants.create(rows + number + 1);
+            Shelter shelter = new Shelter();
+            shelter.setId((long) number + 1);
+            shelter.setCapacity(capacity);
+            shelter.setReceivingDays(EnumSet.allOf(DayOfWeek.class));
+            shelter.setOpenTime(LocalTime.of(17, 0));
+            shelter.setCloseTime(LocalTime.of(3, 0));
+            shelter.setLatitude(location.getLatitude());
+            shelter.setLongitude(location.getLongitude());
+            shelters[number] = shelter;
+            engine.put(shelter);
+        }
+
+        restaurants = new Restaurant[rows];
+        for (int number = 0; number < rows; number++) {
+            restaurants[number] = Restaurants.create(number + 1);
+            restaurants[number].setPickUpTime(LocalTime.of(18, 0).plusSeconds(number * 7 % (8 * 3600)));
+            engine.put(restaurants[number]);
+        }
+    }
+
+    /**
+     * A restaurant changes its pick-up time, as done by PUT /restaurant/{id}
+     */
+    @Benchmark
+    public void updateRestaurant() {
+        Restaurant restaurant = restaurants[(int) (next++ % rows)];
+        restaurant.setPickUpTime(restaurant.getPickUpTime().plusMinutes(7));
+        engine.put(restaurant);
+    }
+
+    /**
+     * A restaurant is deleted and registered again
+     */
+    @Benchmark
+    public void deleteAndCreateRestaurant() {
+        Restaurant restaurant = restaurants[(int) (next++ % rows)];
+        engine.removeRestaurant(restaurant.getId());
+        engine.put(restaurant);
+    }
+
+    /**
+     * A shelter changes its capacity, as done by PUT /shelter/{id}
+     */
+    @Benchmark
+    public void updateShelter() {
+        Shelter shelter = shelters[(int) (next % SHELTERS)];
+        shelter.setCapacity(shelter.getCapacity() + ((next++ / SHELTERS) % 2 == 0 ? 1 : -1));
+        engine.put(shelter);
+    }
+}
@@ -0,0 +1,87 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.index.GeoIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding the restaurants nearest to a random point of the Greater Vancouver area in the geo index, as done by
+ * GET /restaurant/nearby
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NearbyBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private GeoIndex index;
+
+    private GeoPoint[] points;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new GeoIndex(0.005);
+        for (long number = 1; number <= rows; number++) {
+            index.put(Restaurants.create(number));
+        }
+
+        Random random = new Random(42);
+        points = new GeoPoint[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = new GeoPoint(49.0 + random.nextDouble() * 0.4, -123.3 + random.nextDouble() * 0.7);
+        }
+    }
+
+    /**
+     * The 20 nearest restaurants within 5 km, any day
+     */
+    @Benchmark
+    public List<Long> nearest() {
+        return index.findNearest(nextPoint(), 5, null, 20);
+    }
+
+    /**
+     * The 20 nearest restaurants within 5 km available on fridays
+     */
+    @Benchmark
+    public List<Long> nearestOnDay() {
+        return index.findNearest(nextPoint(), 5, DayOfWeek.FRIDAY, 20);
+    }
+
+    /**
+     * The 20 nearest restaurants within 50 km, any day
+     */
+    @Benchmark
+    public List<Long> nearestWideRadius() {
+        return index.findNearest(nextPoint(), 50, null, 20);
+    }
+
+    private GeoPoint nextPoint() {
+        next = (next + 1) & (POINTS - 1);
+        return points[next];
+    }
+}
@@ -0,0 +1,104 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import gabtemp.vanhackathon.domain.PickUpParser;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.RestaurantForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of parsing the form fields of the create and update restaurant requests, and of the {@link PickUpParser} against
+ * the previous parsing with a split, a stream of {@link DayOfWeek#valueOf(String)} and {@link LocalTime#parse}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+
+    @Param({"FRIDAY", "FRIDAY,SATURDAY,SUNDAY", "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY,SATURDAY,SUNDAY"})
+    public String pickUpDays;
+
+    @Param({"22:45"})
+    public String pickUpTime;
+
+    /**
+     * Full create path: validation, pick-up days and pick-up time parsing
+     */
+    @Benchmark
+    public Restaurant create() {
+        return new RestaurantForm("name", "address", pickUpDays, pickUpTime).toRestaurant();
+    }
+
+    /**
+     * Pick-up days parsing only
+     */
+    @Benchmark
+    public Restaurant pickUpDays() {
+        Restaurant restaurant = new Restaurant();
+        new RestaurantForm(null, null, pickUpDays, null).applyTo(restaurant);
+        return restaurant;
+    }
+
+    /**
+     * Pick-up time parsing only
+     */
+    @Benchmark
+    public Restaurant pickUpTime() {
+        Restaurant restaurant = new Restaurant();
+        new RestaurantForm(null, null, null, pickUpTime).applyTo(restaurant);
+        return restaurant;
+    }
+
+    /**
+     * Pick-up days parsing with the {@link PickUpParser}, to a mask
+     */
+    @Benchmark
+    public int parserDays() {
+        return PickUpParser.parseDays(pickUpDays);
+    }
+
+    /**
+     * Pick-up days parsing as done before the {@link PickUpParser}
+     */
+    @Benchmark
+    public Set<DayOfWeek> legacyDays() {
+        return Arrays.stream(pickUpDays.split(",")).map(DayOfWeek::valueOf)
+                     .collect(Collectors.toCollection(() -> EnumSet.noneOf(DayOfWeek.class)));
+    }
+
+    /**
+     * Pick-up time parsing with the {@link PickUpParser}
+     */
+    @Benchmark
+    public LocalTime parserTime() {
+        return PickUpParser.parseTime(pickUpTime);
+    }
+
+    /**
+     * Pick-up time parsing as done before the {@link PickUpParser}
+     */
+    @Benchmark
+    public LocalTime legacyTime() {
+        return LocalTime.parse(pickUpTime, DateTimeFormatter.ISO_TIME);
+    }
+}
@@ -0,0 +1,85 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.serialization.RestaurantSerializer;
+import gabtemp.vanhackathon.serialization.SmileMessageBodyWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+
+/**
+ * Cost and size of a response with 10k restaurants in each format: JSON serialized by reflection as before the
+ * {@link RestaurantSerializer}, JSON and Smile serialized by the {@link RestaurantSerializer}, uncompressed and with
+ * gzip. The size of the payload is printed on the setup of each trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+    private static final int LIST_SIZE = 10_000;
+
+    @Param({"reflection", "json", "smile"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper objectMapper;
+
+    private List<Restaurant> restaurants;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().featuresToDisable(
+                WRITE_DATES_AS_TIMESTAMPS);
+        if (!format.equals("reflection")) {
+            builder.serializerByType(Restaurant.class, new RestaurantSerializer());
+        }
+        objectMapper = format.equals("smile") ? new SmileMessageBodyWriter(builder).getObjectMapper() : builder.build();
+
+        restaurants = new ArrayList<>(LIST_SIZE);
+        Instant lastModified = Instant.parse("2018-07-01T10:15:30.250Z");
+        for (long id = 1; id <= LIST_SIZE; id++) {
+            Restaurant restaurant = Restaurants.create(id);
+            restaurant.setVersion(id % 5);
+            restaurant.setLastModified(lastModified.plusMillis(id * 7919));
+            restaurants.add(restaurant);
+        }
+        System.out.println("Payload of " + LIST_SIZE + " restaurants: " + write() + " bytes");
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try (OutputStream output = gzip ? new GZIPOutputStream(counting, 8192) : counting) {
+            objectMapper.writeValue(output, restaurants);
+        }
+        return counting.getCount();
+    }
+}
@@ -0,0 +1,141 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import gabtemp.vanhackathon.Application;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Throughput of the repository writes and reads of 16 concurrent workers, as the restaurant.async pool, against the
+ * default in memory H2 database and against the MySQL database of the 'mysql' profile, with the schema created by the
+ * migrations. The MySQL database must be running, e.g. with 'docker-compose up -d mysql', and is dropped by each trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PersistenceBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"h2", "mysql"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+
+    private RestaurantRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.liquibase.drop-first=true",
+                        "logging.level.root=WARN",
+                        "logging.level.gabtemp=WARN");
+        if (database.equals("mysql")) {
+            builder.profiles("mysql");
+        } else {
+            builder.properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        }
+        context = builder.run();
+        repository = context.getBean(RestaurantRepository.class);
+
+        List<Restaurant> chunk = new ArrayList<>(INSERT_CHUNK_SIZE);
+        for (long number = 1; number <= ROWS; number++) {
+            chunk.add(newRestaurant(number));
+            if (chunk.size() == INSERT_CHUNK_SIZE) {
+                repository.saveAll(chunk);
+                chunk = new ArrayList<>(INSERT_CHUNK_SIZE);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * The restaurants updated by a worker, so the workers don't conflict on the version of the same rows
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+
+        private final List<Restaurant> restaurants = new ArrayList<>();
+
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(PersistenceBenchmark benchmark) {
+            for (long number = 1; number <= PAGE_SIZE; number++) {
+                restaurants.add(benchmark.repository.save(newRestaurant(number)));
+            }
+        }
+    }
+
+    /**
+     * A new restaurant, as done by POST /restaurant
+     */
+    @Benchmark
+    public Restaurant create() {
+        return repository.save(newRestaurant(ThreadLocalRandom.current().nextLong(ROWS)));
+    }
+
+    /**
+     * A change of the pick-up time of a restaurant, as done by PATCH /restaurant/{id}
+     */
+    @Benchmark
+    public boolean update(Worker worker) {
+        int index = worker.next++ % worker.restaurants.size();
+        Restaurant current = worker.restaurants.get(index);
+        Restaurant updated = new Restaurant(current);
+        updated.setPickUpTime(current.getPickUpTime().plusMinutes(1));
+        boolean written = repository.updateChanges(current, updated);
+        worker.restaurants.set(index, updated);
+        return written;
+    }
+
+    /**
+     * A page of restaurants from a random cursor, as loaded by the cache, the indexes and GET /restaurant?limit=100
+     */
+    @Benchmark
+    public List<Restaurant> findPage() {
+        return repository.findByIdGreaterThanOrderByIdAsc(ThreadLocalRandom.current().nextLong(ROWS),
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    private static Restaurant newRestaurant(long number) {
+        Restaurant restaurant = Restaurants.create(number);
+        restaurant.setId(null);
+        return restaurant;
+    }
+}
@@ -0,0 +1,39 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.time.LocalTime;
+
+import gabtemp.vanhackathon.domain.DayOfWeekMask;
+import gabtemp.vanhackathon.domain.Restaurant;
+
+/**
+ * Synthetic restaurants for the benchmarks
+ */
+final class Restaurants {
+
+    private Restaurants() {
+    }
+
+    /**
+     * Creates a restaurant with fields derived from the provided number, so all the restaurants are different
+     *
+     * @param number the number of the restaurant, also used as id
+     * @return the new restaurant
+     */
+    static Restaurant create(long number) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(number);
+        restaurant.setName("Restaurant " + number);
+        restaurant.setAddress(number + " Restaurant St.");
+        int mask = (int) (number % DayOfWeekMask.ALL_DAYS) + 1;
+        restaurant.setAvailablePickUpDays(DayOfWeekMask.fromMask(mask));
+        restaurant.setPickUpTime(LocalTime.ofSecondOfDay((number * 60) % 86400));
+        // spread over the Greater Vancouver area with low discrepancy sequences
+        restaurant.setLatitude(49.0 + fraction(number * 0.6180339887498949) * 0.4);
+        restaurant.setLongitude(-123.3 + fraction(number * 0.7548776662466927) * 0.7);
+        return restaurant;
+    }
+
+    private static double fraction(double value) {
+        return value - Math.floor(value);
+    }
+}
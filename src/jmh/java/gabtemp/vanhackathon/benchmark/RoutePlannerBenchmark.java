@@ -0,0 +1,121 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.routing.Route;
+import gabtemp.vanhackathon.routing.RoutePlanner;
+import gabtemp.vanhackathon.routing.Stop;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency and quality of the routes planned on synthetic instances of the Greater Vancouver area, with the stops spread
+ * uniformly or in a few clusters and pick-up windows of one hour starting along four hours. Besides the time per plan,
+ * the distance and the number of late stops of the planned routes are reported as secondary results
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutePlannerBenchmark {
+
+    private static final int NINE_PM = 21 * 3600;
+
+    private static final int CLUSTERS = 8;
+
+    /**
+     * The layout of the stops of the instances
+     */
+    public enum Layout {
+        UNIFORM, CLUSTERED
+    }
+
+    @Param({"50", "200", "500"})
+    public int stops;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public Layout layout;
+
+    @Param({"200"})
+    public long timeBudgetMillis;
+
+    private RoutePlanner planner;
+
+    private GeoPoint start;
+
+    private List<Stop> instance;
+
+    /**
+     * Quality of the planned routes, accumulated per operation
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Quality {
+
+        public double distanceKm;
+
+        public long lateStops;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            distanceKm = 0;
+            lateStops = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        planner = new RoutePlanner(25, 5, timeBudgetMillis, 0, Integer.MAX_VALUE);
+        Random random = new Random(42);
+        start = new GeoPoint(49.2827, -123.1207);
+        double[][] centers = new double[CLUSTERS][];
+        for (int cluster = 0; cluster < CLUSTERS; cluster++) {
+            centers[cluster] = new double[]{49.1 + random.nextDouble() * 0.3, -123.3 + random.nextDouble() * 0.5};
+        }
+
+        instance = new ArrayList<>(stops);
+        for (long id = 1; id <= stops; id++) {
+            GeoPoint location;
+            if (layout == Layout.UNIFORM) {
+                location = new GeoPoint(49.1 + random.nextDouble() * 0.3, -123.3 + random.nextDouble() * 0.5);
+            } else {
+                double[] center = centers[random.nextInt(CLUSTERS)];
+                location = new GeoPoint(center[0] + random.nextGaussian() * 0.01,
+                        center[1] + random.nextGaussian() * 0.015);
+            }
+            int windowStart = NINE_PM + random.nextInt(4 * 3600);
+            instance.add(new Stop(id, location, windowStart, windowStart + 3600));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        planner.shutdown();
+    }
+
+    @Benchmark
+    public Route plan(Quality quality) {
+        Route route = planner.plan(start, NINE_PM, instance);
+        quality.distanceKm += route.getDistanceKm();
+        quality.lateStops += route.getLateStops();
+        return route;
+    }
+}
@@ -0,0 +1,61 @@
+package gabtemp.vanhackathon.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of the JSON serialization of restaurants, with an object mapper configured as the one of the application
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int LIST_SIZE = 1000;
+
+    private ObjectMapper objectMapper;
+
+    private Restaurant restaurant;
+
+    private List<Restaurant> restaurants;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        restaurant = Restaurants.create(1L);
+        restaurants = new ArrayList<>(LIST_SIZE);
+        for (long id = 1; id <= LIST_SIZE; id++) {
+            restaurants.add(Restaurants.create(id));
+        }
+    }
+
+    @Benchmark
+    public byte[] restaurant() throws IOException {
+        return objectMapper.writeValueAsBytes(restaurant);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] restaurantList() throws IOException {
+        return objectMapper.writeValueAsBytes(restaurants);
+    }
+}
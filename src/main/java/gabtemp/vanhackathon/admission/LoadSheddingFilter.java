@@ -0,0 +1,60 @@
+package gabtemp.vanhackathon.admission;
+
+import javax.annotation.Priority;
+import javax.annotation.Resource;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.metrics.RequestMetricsListener;
+import gabtemp.vanhackathon.resource.AsyncDispatcher;
+import org.springframework.stereotype.Component;
+
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+/**
+ * Sheds the reads while the workers of the {@link AsyncDispatcher} can't keep up, i.e. while the requests wait in its
+ * queue longer than restaurant.admission.queue-delay-target-millis, so the writes still find a worker. The shed
+ * requests are answered with a 503 HTTP status and a Retry-After header, before their body is read.
+ * <p>
+ * The number of concurrent requests is bounded by the workers and the queue of the {@link AsyncDispatcher}, that
+ * answers with a 503 status any request, read or write, beyond both.
+ */
+@Component
+@Priority(Priorities.AUTHENTICATION - 50)
+public class LoadSheddingFilter implements ContainerRequestFilter {
+
+    static final String REASON = "overload";
+
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * URI of the metrics, never shed as they are needed the most while overloaded
+     */
+    private static final String METRICS = "/metrics";
+
+    @Resource
+    private AsyncDispatcher dispatcher;
+
+    @Resource
+    private RequestMetricsListener requestMetrics;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String method = request.getMethod();
+        if ((method.equals(HttpMethod.GET) || method.equals(HttpMethod.HEAD)) && dispatcher.isOverloaded()) {
+            String uri = RequestMetricsListener.uri(request.getUriInfo());
+            if (uri.startsWith(METRICS)) {
+                return;
+            }
+            requestMetrics.rejected(method, uri, REASON);
+            request.abortWith(Response.status(SERVICE_UNAVAILABLE)
+                                      .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                                      .entity("Server too busy")
+                                      .build());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects a standing queue the way CoDel does: the queue is overloaded when the time the requests wait in it stays
+ * above the target for a whole interval. A burst that drains within the interval is not an overload, and a single
+ * request served below the target ends the overload.
+ * <p>
+ * The overload also ends one interval after the last delay above the target, so it doesn't outlive the requests that
+ * would have cleared it. Concurrent updates may lose a sample, which only delays the detection by one request.
+ */
+public class QueueDelayMonitor {
+
+    private final long targetNanos;
+
+    private final long intervalNanos;
+
+    private volatile boolean above;
+
+    private volatile long firstAbove;
+
+    private volatile boolean overloaded;
+
+    private volatile long overloadedUntil;
+
+    /**
+     * @param targetMillis   the acceptable queue delay, a value of 0 or lower disables the detection
+     * @param intervalMillis the time the queue delay must stay above the target to be an overload
+     */
+    public QueueDelayMonitor(long targetMillis, long intervalMillis) {
+        this.targetNanos = targetMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(targetMillis) : Long.MAX_VALUE;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * Records the time a request waited in the queue
+     *
+     * @param delayNanos the queue delay of the request
+     * @param now        the current {@link System#nanoTime()}
+     */
+    public void record(long delayNanos, long now) {
+        if (delayNanos < targetNanos) {
+            above = false;
+            overloaded = false;
+        } else if (!above) {
+            firstAbove = now;
+            above = true;
+        } else if (now - firstAbove >= intervalNanos) {
+            overloadedUntil = now + intervalNanos;
+            overloaded = true;
+        }
+    }
+
+    /**
+     * @param now the current {@link System#nanoTime()}
+     * @return whether the queue delay stays above the target
+     */
+    public boolean isOverloaded(long now) {
+        return overloaded && overloadedUntil - now > 0;
+    }
+}
@@ -0,0 +1,163 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Priority;
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import com.google.common.cache.CacheBuilder;
+import gabtemp.vanhackathon.metrics.RequestMetricsListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static javax.ws.rs.core.Response.Status.TOO_MANY_REQUESTS;
+
+/**
+ * Per client rate limits of the endpoints. Every client has a {@link TokenBucket} for each endpoint, with the limit of
+ * the endpoint on restaurant.admission.endpoint-rate-limits or else restaurant.admission.rate-limit, and the requests
+ * that find the bucket empty are answered with a 429 HTTP status and a Retry-After header.
+ * <p>
+ * The limits are written as "permits per second/burst", e.g. "GET /restaurant=2/5" for the find all endpoint. The
+ * buckets are kept on a cache striped by the number of cores, so the clients don't contend on the limiter, and are
+ * evicted once idle for longer than they take to refill, when they are as good as new.
+ */
+@Component
+@Priority(Priorities.AUTHENTICATION - 100)
+public class RateLimitFilter implements ContainerRequestFilter {
+
+    static final String REASON = "rate_limit";
+
+    private final Limit defaultLimit;
+
+    private final Map<String, Limit> endpointLimits;
+
+    private final String clientHeader;
+
+    private final ConcurrentMap<String, TokenBucket> buckets;
+
+    @Resource
+    private RequestMetricsListener requestMetrics;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    /**
+     * @param defaultLimit   the limit of the endpoints without their own limit, no limit when empty
+     * @param endpointLimits the comma separated limits of the endpoints, as "METHOD /uri/template=permits/burst"
+     * @param clientHeader   the header with the client address set by the proxy in front of the application, e.g.
+     *                       X-Forwarded-For, or empty to identify the clients by the remote address
+     * @param maxClients     the maximum number of buckets kept
+     */
+    public RateLimitFilter(@Value("${restaurant.admission.rate-limit:}") String defaultLimit,
+            @Value("${restaurant.admission.endpoint-rate-limits:}") String endpointLimits,
+            @Value("${restaurant.admission.client-header:}") String clientHeader,
+            @Value("${restaurant.admission.max-clients:100000}") int maxClients) {
+        this.defaultLimit = defaultLimit.trim().isEmpty() ? null : Limit.parse(defaultLimit);
+        this.endpointLimits = new HashMap<>();
+        for (String endpointLimit : endpointLimits.split(",")) {
+            if (!endpointLimit.trim().isEmpty()) {
+                int separator = endpointLimit.lastIndexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid endpoint rate limit: " + endpointLimit);
+                }
+                this.endpointLimits.put(endpointLimit.substring(0, separator).trim().replaceAll("\\s+", " "),
+                        Limit.parse(endpointLimit.substring(separator + 1)));
+            }
+        }
+        this.clientHeader = clientHeader.trim();
+
+        long idleNanos = this.endpointLimits.values().stream().mapToLong(limit -> limit.refillNanos).max().orElse(0);
+        if (this.defaultLimit != null) {
+            idleNanos = Math.max(idleNanos, this.defaultLimit.refillNanos);
+        }
+        this.buckets = CacheBuilder.newBuilder()
+                                   .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                                   .maximumSize(maxClients)
+                                   .expireAfterAccess(Math.max(idleNanos, 1), TimeUnit.NANOSECONDS)
+                                   .<String, TokenBucket>build()
+                                   .asMap();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String method = request.getMethod();
+        String uri = RequestMetricsListener.uri(request.getUriInfo());
+        String endpoint = method + " " + uri;
+        Limit limit = endpointLimits.getOrDefault(endpoint, defaultLimit);
+        if (limit == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        String client = client(clientHeader.isEmpty() ? null : request.getHeaderString(clientHeader),
+                servletRequest == null ? null : servletRequest.getRemoteAddr());
+        TokenBucket bucket = buckets.computeIfAbsent(endpoint + " " + client, key -> limit.bucket(now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            requestMetrics.rejected(method, uri, REASON);
+            request.abortWith(Response.status(TOO_MANY_REQUESTS)
+                                      .header(HttpHeaders.RETRY_AFTER, (waitNanos + 999_999_999) / 1_000_000_000)
+                                      .entity("Too many requests")
+                                      .build());
+        }
+    }
+
+    /**
+     * @param forwardedFor  the value of the client header, a comma separated list of addresses starting with the one
+     *                      of the client, or null
+     * @param remoteAddress the address of the connection, or null
+     * @return the address that identifies the client
+     */
+    static String client(String forwardedFor, String remoteAddress) {
+        if (forwardedFor != null) {
+            int separator = forwardedFor.indexOf(',');
+            String client = (separator < 0 ? forwardedFor : forwardedFor.substring(0, separator)).trim();
+            if (!client.isEmpty()) {
+                return client;
+            }
+        }
+        return remoteAddress == null ? "unknown" : remoteAddress;
+    }
+
+    private static class Limit {
+
+        private final double permitsPerSecond;
+
+        private final int burst;
+
+        private final long refillNanos;
+
+        private Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.refillNanos = bucket(0).getRefillNanos();
+        }
+
+        private TokenBucket bucket(long now) {
+            return new TokenBucket(permitsPerSecond, burst, now);
+        }
+
+        private static Limit parse(String limit) {
+            String[] values = limit.trim().split("/");
+            try {
+                double permitsPerSecond = Double.parseDouble(values[0].trim());
+                int burst = values.length > 1 ? Integer.parseInt(values[1].trim()) : (int) Math.ceil(permitsPerSecond);
+                if (values.length > 2 || permitsPerSecond <= 0 || burst < 1) {
+                    throw new IllegalArgumentException("Invalid rate limit: " + limit);
+                }
+                return new Limit(permitsPerSecond, burst);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid rate limit: " + limit, e);
+            }
+        }
+    }
+}
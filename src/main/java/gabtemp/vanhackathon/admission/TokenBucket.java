@@ -0,0 +1,56 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: instead of a number of tokens refilled over
+ * time the bucket keeps the theoretical arrival time of the next permit, so acquiring a permit is a single compare and
+ * set of one long, and an idle bucket needs no refill.
+ */
+public class TokenBucket {
+
+    private final long emissionNanos;
+
+    private final long toleranceNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond the rate at which the permits are refilled
+     * @param burst            the number of permits of a full bucket, available at once
+     * @param now              the current {@link System#nanoTime()}, the bucket starts full
+     */
+    public TokenBucket(double permitsPerSecond, int burst, long now) {
+        this.emissionNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.toleranceNanos = emissionNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a permit from the bucket, if there's one available
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return 0 when a permit was taken, or else the nanoseconds until the next permit is available
+     */
+    public long tryAcquire(long now) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + emissionNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return the nanoseconds an empty bucket takes to be full again
+     */
+    public long getRefillNanos() {
+        return emissionNanos + toleranceNanos;
+    }
+}
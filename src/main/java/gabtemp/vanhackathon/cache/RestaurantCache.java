@@ -0,0 +1,189 @@
+package gabtemp.vanhackathon.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Resource;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import gabtemp.vanhackathon.datasource.ReadYourWrites;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded read-through cache of the restaurants by id. Entries are evicted by size and by time since the last write,
+ * and are refreshed by the {@link RestaurantChangeEvent}s. Missing restaurants are cached as well, so repeated lookups
+ * of an unknown id don't reach the database.
+ * <p>
+ * The reads pinned to the primary database by {@link ReadYourWrites} bypass the cache, as the client may have written
+ * through another node whose change didn't reach this one yet, and refresh the cache with the restaurants read.
+ * <p>
+ * The cached restaurants are shared between callers and must not be modified, use
+ * {@link Restaurant#Restaurant(Restaurant)} to get a copy that can be changed.
+ */
+@Component
+public class RestaurantCache {
+
+    private final RestaurantLoader loader = new RestaurantLoader();
+
+    private final LoadingCache<Long, Optional<Restaurant>> cache;
+
+    @Resource
+    private RestaurantRepository repository;
+
+    public RestaurantCache(@Value("${restaurant.cache.maximum-size:10000}") long maximumSize,
+            @Value("${restaurant.cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(maximumSize)
+                                 .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                                 .recordStats()
+                                 .build(loader);
+    }
+
+    /**
+     * Finds a restaurant by id, loading it from the database if not cached
+     *
+     * @param id the id of the restaurant
+     * @return the restaurant, or an empty optional if it doesn't exist
+     */
+    public Optional<Restaurant> findById(Long id) {
+        if (ReadYourWrites.isPinned()) {
+            Optional<Restaurant> restaurant = loader.load(id);
+            cache.put(id, restaurant);
+            return restaurant;
+        }
+        return cache.getUnchecked(id);
+    }
+
+    /**
+     * Finds the restaurants with the provided ids, loading the ones not cached from the database with a single query
+     *
+     * @param ids the ids of the restaurants
+     * @return the existing restaurants, in the same order as the provided ids
+     */
+    public List<Restaurant> findAllById(List<Long> ids) {
+        // a single lookup, so each id is counted once as a hit or a miss
+        Map<Long, Optional<Restaurant>> found;
+        try {
+            if (ReadYourWrites.isPinned()) {
+                found = loader.loadAll(ids);
+                cache.putAll(found);
+            } else {
+                found = cache.getAll(ids);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load restaurants " + ids, e);
+        }
+
+        List<Restaurant> restaurants = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Optional<Restaurant> restaurant = found.get(id);
+            if (restaurant != null && restaurant.isPresent()) {
+                restaurants.add(restaurant.get());
+            }
+        }
+        return restaurants;
+    }
+
+    /**
+     * Loads a restaurant again from the primary database, replacing the cached one. Used when the cached restaurant is
+     * found behind the database, e.g. by a conditional update that matched no row
+     *
+     * @param id the id of the restaurant
+     * @return the restaurant, or an empty optional if it doesn't exist
+     */
+    public Optional<Restaurant> reload(Long id) {
+        boolean pinned = ReadYourWrites.isPinned();
+        ReadYourWrites.setPinned(true);
+        try {
+            return findById(id);
+        } finally {
+            ReadYourWrites.setPinned(pinned);
+        }
+    }
+
+    /**
+     * Tells whether a restaurant is older than the cached one, e.g. reloaded for a change of another node of the
+     * cluster while a newer change was made by this one. A restaurant not cached can't be told older
+     *
+     * @param restaurant the restaurant
+     * @return true if the cached restaurant has a later version than the provided one
+     */
+    public boolean isOlder(Restaurant restaurant) {
+        Optional<Restaurant> cached = cache.getIfPresent(restaurant.getId());
+        return cached != null && cached.isPresent() && cached.get().getVersion() != null &&
+                restaurant.getVersion() != null && restaurant.getVersion() < cached.get().getVersion();
+    }
+
+    @EventListener
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        Restaurant restaurant = event.getRestaurant();
+        if (event.getType() == RestaurantChangeEvent.Type.DELETED) {
+            cache.put(restaurant.getId(), Optional.empty());
+        } else {
+            cache.put(restaurant.getId(), Optional.of(restaurant));
+        }
+    }
+
+    @EventListener
+    public void onRestaurantsCreated(RestaurantsCreatedEvent event) {
+        Map<Long, Optional<Restaurant>> created = new HashMap<>();
+        event.getRestaurants().forEach(restaurant -> created.put(restaurant.getId(), Optional.of(restaurant)));
+        cache.putAll(created);
+    }
+
+    /**
+     * Discards all the cached restaurants, so they are loaded again from the database, when changes made by other
+     * nodes of the cluster may have been missed
+     */
+    @EventListener
+    public void onRestaurantsResync(RestaurantsResyncEvent event) {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the hit, miss, load and eviction counters of the cache
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the approximate number of cached entries
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    private class RestaurantLoader extends CacheLoader<Long, Optional<Restaurant>> {
+
+        @Override
+        public Optional<Restaurant> load(Long id) {
+            return repository.findById(id);
+        }
+
+        @Override
+        public Map<Long, Optional<Restaurant>> loadAll(Iterable<? extends Long> ids) {
+            Map<Long, Optional<Restaurant>> loaded = new HashMap<>();
+            for (Long id : ids) {
+                loaded.put(id, Optional.empty());
+            }
+            @SuppressWarnings("unchecked")
+            Iterable<Long> keys = (Iterable<Long>) ids;
+            repository.findAllById(keys).forEach(restaurant -> loaded.put(restaurant.getId(), Optional.of(restaurant)));
+            return loaded;
+        }
+    }
+}
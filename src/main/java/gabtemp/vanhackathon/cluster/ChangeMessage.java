@@ -0,0 +1,154 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Preconditions;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+
+/**
+ * Message of the cluster with a batch of restaurant and shelter changes made by a node: the entity, type and id of each
+ * change, without the entity itself, which the receivers reload from the database. The shelter changes use the same
+ * types as the restaurant ones. The messages of a node are numbered in
+ * sequence, so the receivers can tell when messages are lost. A message without changes is a heartbeat, which repeats
+ * the sequence number of the last message of its node, so the loss of the last messages is told too.
+ * <p>
+ * Binary layout: magic and version (4 bytes), node id (8 bytes), sequence number (8 bytes), number of changes (2 bytes)
+ * and, for each change, the ordinal of the entity (1 byte), the ordinal of the type (1 byte) and the id (8 bytes)
+ */
+class ChangeMessage {
+
+    /**
+     * The kind of entity changed
+     */
+    enum Entity {
+        RESTAURANT, SHELTER
+    }
+
+    private static final int MAGIC = 0x4E4C4302;
+
+    private static final int HEADER_SIZE = 4 + 8 + 8 + 2;
+
+    private static final int CHANGE_SIZE = 1 + 1 + 8;
+
+    /**
+     * Maximum number of changes of a message, so it fits in {@link ClusterTransport#MAX_MESSAGE_SIZE}
+     */
+    static final int MAX_CHANGES = (ClusterTransport.MAX_MESSAGE_SIZE - HEADER_SIZE) / CHANGE_SIZE;
+
+    private static final Entity[] ENTITIES = Entity.values();
+
+    private static final RestaurantChangeEvent.Type[] TYPES = RestaurantChangeEvent.Type.values();
+
+    private final long node;
+
+    private final long sequence;
+
+    private final Entity[] entities;
+
+    private final RestaurantChangeEvent.Type[] types;
+
+    private final long[] ids;
+
+    ChangeMessage(long node, long sequence, Entity[] entities, RestaurantChangeEvent.Type[] types, long[] ids) {
+        Preconditions.checkArgument(entities.length == ids.length && types.length == ids.length &&
+                ids.length <= MAX_CHANGES, "Invalid number of changes: %s", ids.length);
+        this.node = node;
+        this.sequence = sequence;
+        this.entities = entities;
+        this.types = types;
+        this.ids = ids;
+    }
+
+    /**
+     * @param node     the id of the node
+     * @param sequence the sequence number of the last message of the node
+     * @return the heartbeat of the node
+     */
+    static ChangeMessage heartbeat(long node, long sequence) {
+        return new ChangeMessage(node, sequence, new Entity[0], new RestaurantChangeEvent.Type[0], new long[0]);
+    }
+
+    /**
+     * Decodes a message
+     *
+     * @param bytes the encoded message
+     * @return the message
+     * @throws IllegalArgumentException if the bytes are not a valid message
+     */
+    static ChangeMessage decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            Preconditions.checkArgument(buffer.getInt() == MAGIC, "Unknown message format");
+            long node = buffer.getLong();
+            long sequence = buffer.getLong();
+            int size = buffer.getShort();
+            Preconditions.checkArgument(size >= 0 && bytes.length == HEADER_SIZE + size * CHANGE_SIZE,
+                    "Invalid message size: %s bytes for %s changes", bytes.length, size);
+            Entity[] entities = new Entity[size];
+            RestaurantChangeEvent.Type[] types = new RestaurantChangeEvent.Type[size];
+            long[] ids = new long[size];
+            for (int i = 0; i < size; i++) {
+                int entity = buffer.get();
+                Preconditions.checkArgument(entity >= 0 && entity < ENTITIES.length, "Unknown entity: %s", entity);
+                entities[i] = ENTITIES[entity];
+                int type = buffer.get();
+                Preconditions.checkArgument(type >= 0 && type < TYPES.length, "Unknown change type: %s", type);
+                types[i] = TYPES[type];
+                ids[i] = buffer.getLong();
+            }
+            return new ChangeMessage(node, sequence, entities, types, ids);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated message", e);
+        }
+    }
+
+    /**
+     * @return the encoded message
+     */
+    byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + ids.length * CHANGE_SIZE);
+        buffer.putInt(MAGIC).putLong(node).putLong(sequence).putShort((short) ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            buffer.put((byte) entities[i].ordinal()).put((byte) types[i].ordinal()).putLong(ids[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return the id of the node that made the changes
+     */
+    long getNode() {
+        return node;
+    }
+
+    /**
+     * @return the sequence number of the message among the ones of its node
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    Entity[] getEntities() {
+        return entities;
+    }
+
+    RestaurantChangeEvent.Type[] getTypes() {
+        return types;
+    }
+
+    long[] getIds() {
+        return ids;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return true if the message is a heartbeat, without changes
+     */
+    boolean isHeartbeat() {
+        return ids.length == 0;
+    }
+}
@@ -0,0 +1,430 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gabtemp.vanhackathon.cache.RestaurantCache;
+import gabtemp.vanhackathon.datasource.ReadYourWrites;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.event.ShelterChangeEvent;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import gabtemp.vanhackathon.repository.ShelterRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Shares the restaurant and shelter changes between the nodes of the cluster, so the in memory views of each node
+ * (cache, indexes, change log, matching engine) stay up to date with the changes made by the other ones.
+ * <p>
+ * The local changes are batched for the configured time and coalesced by entity, so a restaurant or shelter changed
+ * many times within a batch is sent once, and a batch is sent as soon as it fills a message. The receivers reload the
+ * changed restaurants and shelters from the primary database with a single query per kind and message and publish
+ * them as remote {@link RestaurantChangeEvent}s and {@link ShelterChangeEvent}s, which are not sent again. A reloaded
+ * restaurant older than the cached one, as a newer change was made meanwhile, is not published, so no view goes back
+ * to the older restaurant. The shelters aren't cached, so a reloaded shelter is always published.
+ * <p>
+ * A lost message is detected by the gap in the sequence numbers of its sender. Each node also sends a heartbeat with
+ * the sequence number of its last message, so the loss of the last messages of a node is detected within a heartbeat.
+ * The first message received from a node after a grace period of a few heartbeats since this node started must come
+ * from a node that joined later, so its sequence numbers are expected from the first one. On a loss, as the missed
+ * changes can't be told apart, a {@link RestaurantsResyncEvent} is published for all the in memory views to load the
+ * restaurants and shelters again from the primary database. The resyncs run on their own thread, coalesced while one is waiting
+ */
+public class ClusterEventBus implements MeterBinder {
+
+    /**
+     * Number of heartbeats since the start of this node within which the first message of a node can be from any point
+     * of its sequence
+     */
+    static final int GRACE_HEARTBEATS = 3;
+
+    private final Logger LOG = LoggerFactory.getLogger(ClusterEventBus.class);
+
+    private final long node = ThreadLocalRandom.current().nextLong();
+
+    private final ClusterTransport transport;
+
+    private final long batchMillis;
+
+    private final long heartbeatMillis;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cluster-sender-%d").setDaemon(true).build());
+
+    private final ExecutorService resyncExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cluster-resync-%d").setDaemon(true).build());
+
+    /**
+     * Whether a resync is waiting to run, so the losses detected meanwhile are covered by it
+     */
+    private final AtomicBoolean resyncQueued = new AtomicBoolean();
+
+    /**
+     * The coalesced local changes not sent yet, by restaurant id in order of first change
+     */
+    private final Map<Long, RestaurantChangeEvent.Type> pending = new LinkedHashMap<>();
+
+    /**
+     * The coalesced local shelter changes not sent yet, by shelter id in order of first change, guarded by
+     * {@link #pending}
+     */
+    private final Map<Long, RestaurantChangeEvent.Type> pendingShelters = new LinkedHashMap<>();
+
+    /**
+     * The last sequence number received from each node
+     */
+    private final Map<Long, Long> received = new HashMap<>();
+
+    private final AtomicLong sentChanges = new AtomicLong();
+
+    private final AtomicLong coalescedChanges = new AtomicLong();
+
+    private final AtomicLong receivedChanges = new AtomicLong();
+
+    private final AtomicLong staleChanges = new AtomicLong();
+
+    private final AtomicLong lostMessages = new AtomicLong();
+
+    private final AtomicLong resyncs = new AtomicLong();
+
+    private long sequence;
+
+    private long started;
+
+    @Resource
+    private RestaurantRepository repository;
+
+    @Resource
+    private ShelterRepository shelterRepository;
+
+    @Resource
+    private RestaurantCache cache;
+
+    @Resource
+    private ApplicationEventPublisher publisher;
+
+    /**
+     * @param transport       the transport of the messages of the cluster
+     * @param batchMillis     the time the local changes are batched before being sent
+     * @param heartbeatMillis the time between the heartbeats of this node
+     */
+    public ClusterEventBus(ClusterTransport transport, long batchMillis, long heartbeatMillis) {
+        this.transport = transport;
+        this.batchMillis = batchMillis;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    /**
+     * Joins the cluster and starts sending the local changes
+     *
+     * @throws IOException if the node failed to join the cluster
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        started = System.nanoTime();
+        transport.start(this::receive);
+        executor.scheduleWithFixedDelay(this::flush, batchMillis, batchMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        LOG.info("Cluster event bus started on node {}.", node);
+    }
+
+    /**
+     * Sends the pending local changes and leaves the cluster
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        executor.shutdownNow();
+        resyncExecutor.shutdownNow();
+        flush();
+        transport.close();
+    }
+
+    @EventListener
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        boolean full;
+        synchronized (pending) {
+            RestaurantChangeEvent.Type previous = pending.put(event.getRestaurant().getId(), event.getType());
+            if (previous != null) {
+                coalescedChanges.incrementAndGet();
+                if (previous == RestaurantChangeEvent.Type.CREATED &&
+                        event.getType() == RestaurantChangeEvent.Type.UPDATED) {
+                    pending.put(event.getRestaurant().getId(), previous);
+                }
+            }
+            full = previous == null && pending.size() + pendingShelters.size() == ChangeMessage.MAX_CHANGES;
+        }
+        if (full) {
+            executor.execute(this::flush);
+        }
+    }
+
+    @EventListener
+    public void onRestaurantsCreated(RestaurantsCreatedEvent event) {
+        boolean full;
+        synchronized (pending) {
+            for (Restaurant restaurant : event.getRestaurants()) {
+                if (pending.putIfAbsent(restaurant.getId(), RestaurantChangeEvent.Type.CREATED) != null) {
+                    coalescedChanges.incrementAndGet();
+                }
+            }
+            full = pending.size() + pendingShelters.size() >= ChangeMessage.MAX_CHANGES;
+        }
+        if (full) {
+            executor.execute(this::flush);
+        }
+    }
+
+    @EventListener
+    public void onShelterChange(ShelterChangeEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        RestaurantChangeEvent.Type type = RestaurantChangeEvent.Type.valueOf(event.getType().name());
+        boolean full;
+        synchronized (pending) {
+            RestaurantChangeEvent.Type previous = pendingShelters.put(event.getShelter().getId(), type);
+            if (previous != null) {
+                coalescedChanges.incrementAndGet();
+                if (previous == RestaurantChangeEvent.Type.CREATED && type == RestaurantChangeEvent.Type.UPDATED) {
+                    pendingShelters.put(event.getShelter().getId(), previous);
+                }
+            }
+            full = previous == null && pending.size() + pendingShelters.size() == ChangeMessage.MAX_CHANGES;
+        }
+        if (full) {
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Sends the pending local changes to the cluster, in as many messages as needed
+     */
+    public synchronized void flush() {
+        while (true) {
+            ChangeMessage message;
+            synchronized (pending) {
+                if (pending.isEmpty() && pendingShelters.isEmpty()) {
+                    return;
+                }
+                int size = Math.min(pending.size() + pendingShelters.size(), ChangeMessage.MAX_CHANGES);
+                ChangeMessage.Entity[] entities = new ChangeMessage.Entity[size];
+                RestaurantChangeEvent.Type[] types = new RestaurantChangeEvent.Type[size];
+                long[] ids = new long[size];
+                Iterator<Map.Entry<Long, RestaurantChangeEvent.Type>> changes = pending.entrySet().iterator();
+                ChangeMessage.Entity entity = ChangeMessage.Entity.RESTAURANT;
+                for (int i = 0; i < size; i++) {
+                    if (!changes.hasNext()) {
+                        changes = pendingShelters.entrySet().iterator();
+                        entity = ChangeMessage.Entity.SHELTER;
+                    }
+                    Map.Entry<Long, RestaurantChangeEvent.Type> change = changes.next();
+                    entities[i] = entity;
+                    ids[i] = change.getKey();
+                    types[i] = change.getValue();
+                    changes.remove();
+                }
+                message = new ChangeMessage(node, ++sequence, entities, types, ids);
+            }
+            try {
+                transport.send(message.encode());
+                sentChanges.addAndGet(message.size());
+            } catch (IOException | RuntimeException e) {
+                // the sequence number is spent, so the receivers see the gap
+                LOG.error("Failed to send {} changes to the cluster.", message.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends the sequence number of the last message of this node, after the ones being sent
+     */
+    synchronized void heartbeat() {
+        long last;
+        synchronized (pending) {
+            last = sequence;
+        }
+        try {
+            transport.send(ChangeMessage.heartbeat(node, last).encode());
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to send the cluster heartbeat: '{}'", e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the changes of a message of the cluster as remote events, with the changed restaurants reloaded from
+     * the primary database
+     *
+     * @param bytes the encoded message
+     */
+    void receive(byte[] bytes) {
+        synchronized (received) {
+            publish(bytes);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cluster.changes.sent", sentChanges, AtomicLong::get).register(registry);
+        FunctionCounter.builder("cluster.changes.coalesced", coalescedChanges, AtomicLong::get).register(registry);
+        FunctionCounter.builder("cluster.changes.received", receivedChanges, AtomicLong::get).register(registry);
+        FunctionCounter.builder("cluster.changes.stale", staleChanges, AtomicLong::get).register(registry);
+        FunctionCounter.builder("cluster.messages.lost", lostMessages, AtomicLong::get).register(registry);
+        FunctionCounter.builder("cluster.resyncs", resyncs, AtomicLong::get).register(registry);
+    }
+
+    private void publish(byte[] bytes) {
+        ChangeMessage message;
+        try {
+            message = ChangeMessage.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Ignoring invalid cluster message: {}", e.getMessage());
+            return;
+        }
+        if (message.getNode() == node) {
+            return;
+        }
+
+        Long last = received.get(message.getNode());
+        if (last == null && System.nanoTime() - started >
+                TimeUnit.MILLISECONDS.toNanos(GRACE_HEARTBEATS * heartbeatMillis)) {
+            // the heartbeats of a node running before this one would have been received, it joined later
+            last = 0L;
+        }
+        if (last == null || message.getSequence() > last) {
+            received.put(message.getNode(), message.getSequence());
+        }
+        // a heartbeat repeats the sequence number of the last message, while a message of changes follows it
+        long lost = last == null ? 0 : message.getSequence() - last - (message.isHeartbeat() ? 0 : 1);
+        if (lost > 0) {
+            lostMessages.addAndGet(lost);
+            LOG.warn("Lost {} cluster messages of node {}, resyncing the restaurants.", lost, message.getNode());
+            resync("Lost " + lost + " messages of node " + message.getNode());
+        }
+        if (message.isHeartbeat()) {
+            return;
+        }
+
+        Map<Long, Restaurant> reloaded = reload(message, ChangeMessage.Entity.RESTAURANT, repository::findAllById,
+                Restaurant::getId);
+        Map<Long, Shelter> reloadedShelters = reload(message, ChangeMessage.Entity.SHELTER,
+                shelterRepository::findAllById, Shelter::getId);
+        for (int i = 0; i < message.size(); i++) {
+            long id = message.getIds()[i];
+            if (message.getEntities()[i] == ChangeMessage.Entity.SHELTER) {
+                publishShelterChange(message.getTypes()[i], id, reloadedShelters.get(id));
+                continue;
+            }
+            Restaurant restaurant = reloaded.get(id);
+            if (message.getTypes()[i] == RestaurantChangeEvent.Type.DELETED || restaurant == null) {
+                Restaurant deleted = new Restaurant();
+                deleted.setId(id);
+                publisher.publishEvent(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED, deleted, true));
+            } else if (cache.isOlder(restaurant)) {
+                staleChanges.incrementAndGet();
+                LOG.debug("Ignoring the stale change of restaurant {} from node {}.", id, message.getNode());
+            } else {
+                publisher.publishEvent(new RestaurantChangeEvent(message.getTypes()[i], restaurant, true));
+            }
+        }
+        receivedChanges.addAndGet(message.size());
+        LOG.debug("Received {} changes from node {}.", message.size(), message.getNode());
+    }
+
+    /**
+     * Publishes a remote shelter change, as a deletion if the shelter no longer exists
+     */
+    private void publishShelterChange(RestaurantChangeEvent.Type type, long id, Shelter shelter) {
+        if (type == RestaurantChangeEvent.Type.DELETED || shelter == null) {
+            Shelter deleted = new Shelter();
+            deleted.setId(id);
+            publisher.publishEvent(new ShelterChangeEvent(ShelterChangeEvent.Type.DELETED, deleted, true));
+        } else {
+            publisher.publishEvent(new ShelterChangeEvent(ShelterChangeEvent.Type.valueOf(type.name()), shelter, true));
+        }
+    }
+
+    /**
+     * Publishes a {@link RestaurantsResyncEvent} on the resync thread, unless one is already waiting to run. The views
+     * read the restaurants from the primary database, as the replicas may not have the missed changes yet
+     */
+    private void resync(String reason) {
+        if (!resyncQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            resyncExecutor.execute(() -> {
+                resyncQueued.set(false);
+                resyncs.incrementAndGet();
+                boolean pinned = ReadYourWrites.isPinned();
+                ReadYourWrites.setPinned(true);
+                try {
+                    publisher.publishEvent(new RestaurantsResyncEvent(reason));
+                    LOG.info("Restaurants resynced: {}.", reason);
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to resync the restaurants: {}.", reason, e);
+                } finally {
+                    ReadYourWrites.setPinned(pinned);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // stopped
+            resyncQueued.set(false);
+        }
+    }
+
+    /**
+     * @return the entities of the provided kind created or updated by the message, by id, read from the primary
+     * database as the replicas may not have the changes yet
+     */
+    private <T> Map<Long, T> reload(ChangeMessage message, ChangeMessage.Entity entity,
+            Function<List<Long>, Iterable<T>> findAllById, Function<T, Long> getId) {
+        List<Long> ids = new ArrayList<>(message.size());
+        for (int i = 0; i < message.size(); i++) {
+            if (message.getEntities()[i] == entity && message.getTypes()[i] != RestaurantChangeEvent.Type.DELETED) {
+                ids.add(message.getIds()[i]);
+            }
+        }
+        Map<Long, T> entities = new HashMap<>();
+        if (ids.isEmpty()) {
+            return entities;
+        }
+        boolean pinned = ReadYourWrites.isPinned();
+        ReadYourWrites.setPinned(true);
+        try {
+            findAllById.apply(ids).forEach(reloaded -> entities.put(getId.apply(reloaded), reloaded));
+        } finally {
+            ReadYourWrites.setPinned(pinned);
+        }
+        return entities;
+    }
+}
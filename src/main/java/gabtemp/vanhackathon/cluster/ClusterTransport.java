@@ -0,0 +1,33 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Transport of the messages between the nodes of the cluster. A message sent by a node is delivered, at most once and
+ * possibly to the sender itself, to every node of the cluster
+ */
+public interface ClusterTransport extends Closeable {
+
+    /**
+     * Maximum size of a message in bytes, small enough for a UDP datagram that is not fragmented on an Ethernet network
+     */
+    int MAX_MESSAGE_SIZE = 1400;
+
+    /**
+     * Starts receiving the messages of the cluster
+     *
+     * @param receiver the consumer of the received messages, called by a single thread
+     * @throws IOException if the node failed to join the cluster
+     */
+    void start(Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * Sends the message to the nodes of the cluster
+     *
+     * @param message the message, of at most {@link #MAX_MESSAGE_SIZE} bytes
+     * @throws IOException if the message failed to be sent
+     */
+    void send(byte[] message) throws IOException;
+}
@@ -0,0 +1,52 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Transport of the messages between the nodes of a cluster running in the same process, used to run several nodes in
+ * the tests. The messages are delivered synchronously, on the thread of the sender, to every other started node of the
+ * cluster
+ */
+public class InMemoryTransport implements ClusterTransport {
+
+    private final Set<InMemoryTransport> cluster;
+
+    private volatile Consumer<byte[]> receiver;
+
+    /**
+     * @param cluster the transports of the nodes of the cluster, shared by all of them
+     */
+    public InMemoryTransport(Set<InMemoryTransport> cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * @return a new, empty, cluster to share between the transports
+     */
+    public static Set<InMemoryTransport> cluster() {
+        return new CopyOnWriteArraySet<>();
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        cluster.add(this);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (InMemoryTransport node : cluster) {
+            Consumer<byte[]> nodeReceiver = node.receiver;
+            if (node != this && nodeReceiver != null) {
+                nodeReceiver.accept(message.clone());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cluster.remove(this);
+    }
+}
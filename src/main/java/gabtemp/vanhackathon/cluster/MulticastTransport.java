@@ -0,0 +1,97 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transport of the messages of the cluster over UDP multicast. The nodes join the same multicast group and port, and a
+ * message is a single datagram, so the delivery is neither reliable nor ordered between the senders
+ */
+public class MulticastTransport implements ClusterTransport {
+
+    private final Logger LOG = LoggerFactory.getLogger(MulticastTransport.class);
+
+    private final InetAddress group;
+
+    private final int port;
+
+    private final String networkInterface;
+
+    private final int timeToLive;
+
+    private MulticastSocket socket;
+
+    private Thread receiverThread;
+
+    /**
+     * @param group            the multicast group address, e.g. 239.255.27.1
+     * @param port             the port of the group
+     * @param networkInterface the name of the network interface to join the group on, or empty for the default one
+     * @param timeToLive       the number of network hops of the messages, 1 to stay on the local network
+     * @throws IOException if the group address can't be resolved
+     */
+    public MulticastTransport(String group, int port, String networkInterface, int timeToLive) throws IOException {
+        this.group = InetAddress.getByName(group);
+        Preconditions.checkArgument(this.group.isMulticastAddress(), "Not a multicast address: %s", group);
+        this.port = port;
+        this.networkInterface = networkInterface;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public synchronized void start(Consumer<byte[]> receiver) throws IOException {
+        socket = new MulticastSocket(port);
+        socket.setTimeToLive(timeToLive);
+        if (!networkInterface.isEmpty()) {
+            socket.setNetworkInterface(NetworkInterface.getByName(networkInterface));
+        }
+        socket.joinGroup(group);
+        MulticastSocket joined = socket;
+        receiverThread = new Thread(() -> receive(joined, receiver), "cluster-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+        LOG.info("Joined the cluster multicast group {}:{}.", group.getHostAddress(), port);
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+        Preconditions.checkArgument(message.length <= MAX_MESSAGE_SIZE, "Message too large: %s bytes", message.length);
+        socket.send(new DatagramPacket(message, message.length, group, port));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (socket != null) {
+            socket.close();
+            receiverThread.interrupt();
+            socket = null;
+        }
+    }
+
+    private void receive(MulticastSocket socket, Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[MAX_MESSAGE_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                receiver.accept(Arrays.copyOf(buffer, packet.getLength()));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    LOG.error("Failed to receive a cluster message.", e);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Failed to handle a cluster message.", e);
+            }
+        }
+    }
+}
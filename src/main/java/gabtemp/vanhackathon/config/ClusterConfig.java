@@ -0,0 +1,36 @@
+package gabtemp.vanhackathon.config;
+
+import java.io.IOException;
+
+import gabtemp.vanhackathon.cluster.ClusterEventBus;
+import gabtemp.vanhackathon.cluster.ClusterTransport;
+import gabtemp.vanhackathon.cluster.MulticastTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Cluster configuration class, enabled with the 'cluster' profile when several nodes of the application share the same
+ * database. The restaurant changes of each node are sent to the other ones over UDP multicast, so their in memory views
+ * of the restaurants stay up to date, see {@link ClusterEventBus}
+ */
+@Configuration
+@Profile("cluster")
+public class ClusterConfig {
+
+    @Bean
+    public ClusterTransport clusterTransport(@Value("${restaurant.cluster.group:239.255.27.1}") String group,
+            @Value("${restaurant.cluster.port:4446}") int port,
+            @Value("${restaurant.cluster.network-interface:}") String networkInterface,
+            @Value("${restaurant.cluster.time-to-live:1}") int timeToLive) throws IOException {
+        return new MulticastTransport(group, port, networkInterface, timeToLive);
+    }
+
+    @Bean
+    public ClusterEventBus clusterEventBus(ClusterTransport clusterTransport,
+            @Value("${restaurant.cluster.batch-millis:50}") long batchMillis,
+            @Value("${restaurant.cluster.heartbeat-millis:1000}") long heartbeatMillis) {
+        return new ClusterEventBus(clusterTransport, batchMillis, heartbeatMillis);
+    }
+}
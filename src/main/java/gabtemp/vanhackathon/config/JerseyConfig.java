@@ -1,7 +1,18 @@
 package gabtemp.vanhackathon.config;
 
+import gabtemp.vanhackathon.admission.LoadSheddingFilter;
+import gabtemp.vanhackathon.admission.RateLimitFilter;
+import gabtemp.vanhackathon.datasource.ReadYourWritesFilter;
+import gabtemp.vanhackathon.metrics.RequestMetricsListener;
+import gabtemp.vanhackathon.resource.CacheResource;
+import gabtemp.vanhackathon.resource.MetricsResource;
 import gabtemp.vanhackathon.resource.RestaurantResource;
+import gabtemp.vanhackathon.resource.RouteResource;
+import gabtemp.vanhackathon.resource.ScheduleResource;
+import gabtemp.vanhackathon.resource.ShelterResource;
+import gabtemp.vanhackathon.serialization.SmileMessageBodyWriter;
 import org.glassfish.jersey.server.ResourceConfig;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 /**
@@ -10,7 +21,18 @@ import org.springframework.stereotype.Component;
 @Component
 public class JerseyConfig extends ResourceConfig {
 
-    public JerseyConfig() {
+    public JerseyConfig(RequestMetricsListener requestMetricsListener, RateLimitFilter rateLimitFilter,
+            LoadSheddingFilter loadSheddingFilter, ObjectProvider<ReadYourWritesFilter> readYourWritesFilter) {
         register(RestaurantResource.class);
+        register(RouteResource.class);
+        register(ScheduleResource.class);
+        register(ShelterResource.class);
+        register(CacheResource.class);
+        register(MetricsResource.class);
+        register(SmileMessageBodyWriter.class);
+        register(requestMetricsListener);
+        register(rateLimitFilter);
+        register(loadSheddingFilter);
+        readYourWritesFilter.ifAvailable(this::register);
     }
 }
@@ -0,0 +1,35 @@
+package gabtemp.vanhackathon.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+/**
+ * Makes the singleton beans lazy, so they are created on first use instead of on start up, except the infrastructure
+ * ones and the provided eager ones. The eager beans are the in memory views that must be loaded before the first
+ * request and kept up to date from the start, the other ones are created by the first request or event that needs them
+ */
+public class LazyInitializationPostProcessor implements BeanFactoryPostProcessor {
+
+    private final Set<String> eagerBeans;
+
+    /**
+     * @param eagerBeans the names of the beans still created on start up
+     */
+    public LazyInitializationPostProcessor(Set<String> eagerBeans) {
+        this.eagerBeans = eagerBeans;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.isSingleton() && definition.getRole() != BeanDefinition.ROLE_INFRASTRUCTURE &&
+                    !eagerBeans.contains(name)) {
+                definition.setLazyInit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package gabtemp.vanhackathon.config;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Lean start up configuration class, enabled with the 'lean' profile to start faster and with a smaller footprint when
+ * scaling out. The beans not listed in restaurant.lean.eager-beans are created on first use, see
+ * {@link LazyInitializationPostProcessor}, and the settings of application-lean.properties skip the start up work not
+ * needed to serve the requests.
+ * <p>
+ * With restaurant.lean.training-run the application exits after answering a few typical requests, so the classes
+ * loaded by a start up can be recorded to build a class data sharing archive, see the 'lean' Maven profile
+ */
+@Configuration
+@Profile("lean")
+public class LeanConfig {
+
+    /**
+     * Requests made by a training run
+     */
+    static final String[] TRAINING_PATHS = {"/restaurant/available?day=MONDAY", "/restaurant?limit=1", "/schedule"};
+
+    private final Logger LOG = LoggerFactory.getLogger(LeanConfig.class);
+
+    private final boolean trainingRun;
+
+    public LeanConfig(@Value("${restaurant.lean.training-run:false}") boolean trainingRun) {
+        this.trainingRun = trainingRun;
+    }
+
+    @Bean
+    public static LazyInitializationPostProcessor lazyInitializationPostProcessor(Environment environment) {
+        Set<String> eagerBeans = Arrays.stream(environment.getProperty("restaurant.lean.eager-beans", "").split(","))
+                                       .map(String::trim)
+                                       .filter(name -> !name.isEmpty())
+                                       .collect(Collectors.toSet());
+        return new LazyInitializationPostProcessor(eagerBeans);
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) throws IOException {
+        if (!trainingRun) {
+            return;
+        }
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        for (String path : TRAINING_PATHS) {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path)
+                    .openConnection();
+            LOG.info("Training run request {} answered with a {} status.", path, connection.getResponseCode());
+            connection.disconnect();
+        }
+        LOG.info("Training run finished, exiting.");
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,53 @@
+package gabtemp.vanhackathon.config;
+
+import java.util.List;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics configuration class. All the metrics of the application are kept in a Prometheus registry, exposed by the
+ * {@link gabtemp.vanhackathon.resource.MetricsResource}, and every {@link MeterBinder} bean is bound to it
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Percentiles published by the timers and distribution summaries of the application
+     */
+    public static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    @Bean
+    public PrometheusMeterRegistry meterRegistry(List<MeterBinder> binders) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        binders.forEach(binder -> binder.bindTo(registry));
+        return registry;
+    }
+
+    @Bean
+    public JvmMemoryMetrics jvmMemoryMetrics() {
+        return new JvmMemoryMetrics();
+    }
+
+    @Bean
+    public JvmGcMetrics jvmGcMetrics() {
+        return new JvmGcMetrics();
+    }
+
+    @Bean
+    public JvmThreadMetrics jvmThreadMetrics() {
+        return new JvmThreadMetrics();
+    }
+
+    @Bean
+    public ProcessorMetrics processorMetrics() {
+        return new ProcessorMetrics();
+    }
+}
@@ -0,0 +1,70 @@
+package gabtemp.vanhackathon.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import gabtemp.vanhackathon.datasource.ReadYourWritesFilter;
+import gabtemp.vanhackathon.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Read replicas configuration class, enabled with the 'replicas' profile. The read-only transactions, as the ones of
+ * the repository finders, are served by the replicas of restaurant.replicas.urls, and the writes by the primary database
+ * of spring.datasource. The replicas have the pool settings and credentials of the primary database.
+ * <p>
+ * A client that writes reads from the primary database for restaurant.replicas.read-your-writes-millis, the maximum
+ * replication lag expected from the replicas, see {@link ReadYourWritesFilter}.
+ */
+@Configuration
+@Profile("replicas")
+public class ReplicaDataSourceConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    /**
+     * The routing data source. The pools are not beans on their own, as they would be initialized as the primary
+     * data source of the application
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+            @Value("${restaurant.replicas.urls}") String[] urls) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        pools.add(primary);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            primary.copyStateTo(replica);
+            replica.setJdbcUrl(url.trim());
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            pools.add(replica);
+            replicas.add(replica);
+        }
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${restaurant.replicas.read-your-writes-millis:2000}") long stickyMillis) {
+        return new ReadYourWritesFilter(stickyMillis);
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
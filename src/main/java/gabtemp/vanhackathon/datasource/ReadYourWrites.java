@@ -0,0 +1,50 @@
+package gabtemp.vanhackathon.datasource;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Tracks whether the reads of the current request must be served by the primary database, because the client wrote
+ * recently and the replicas may not have its writes yet. Set for each request by {@link ReadYourWritesFilter}, and
+ * propagated to the threads that serve the request with {@link #propagate(Callable)}
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = ThreadLocal.withInitial(() -> false);
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * @return true if the reads of the current thread must be served by the primary database
+     */
+    public static boolean isPinned() {
+        return PINNED.get();
+    }
+
+    /**
+     * @param pinned whether the reads of the current thread must be served by the primary database
+     */
+    public static void setPinned(boolean pinned) {
+        PINNED.set(pinned);
+    }
+
+    /**
+     * Wraps the work so it runs, on any thread, with the pinning of the current thread
+     *
+     * @param work the work
+     * @param <T>  the type of the result of the work
+     * @return the wrapped work
+     */
+    public static <T> Callable<T> propagate(Callable<T> work) {
+        boolean pinned = isPinned();
+        return () -> {
+            boolean previous = isPinned();
+            setPinned(pinned);
+            try {
+                return work.call();
+            } finally {
+                setPinned(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package gabtemp.vanhackathon.datasource;
+
+import java.util.Map;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+
+/**
+ * Read-your-writes stickiness of the clients: a successful write sets a cookie with the time until which the reads of
+ * the client are served by the primary database, the replication lag allowed to the replicas. The requests with the
+ * cookie not yet expired are pinned to the primary database with {@link ReadYourWrites}
+ */
+public class ReadYourWritesFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * Name of the cookie with the epoch millisecond until which the reads of the client are served by the primary
+     */
+    public static final String COOKIE = "primary-reads-until";
+
+    private final long stickyMillis;
+
+    /**
+     * @param stickyMillis the time the reads of a client are served by the primary database after it writes
+     */
+    public ReadYourWritesFilter(long stickyMillis) {
+        this.stickyMillis = stickyMillis;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        ReadYourWrites.setPinned(isSticky(request.getCookies(), System.currentTimeMillis()));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (isWrite(request.getMethod()) && response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL) {
+            long until = System.currentTimeMillis() + stickyMillis;
+            int maxAge = (int) Math.max(1, (stickyMillis + 999) / 1000);
+            response.getHeaders().add(HttpHeaders.SET_COOKIE,
+                    new NewCookie(COOKIE, Long.toString(until), "/", null, null, maxAge, false, true));
+        }
+    }
+
+    static boolean isSticky(Map<String, Cookie> cookies, long now) {
+        Cookie cookie = cookies.get(COOKIE);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return now < Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return !method.equals(HttpMethod.GET) && !method.equals(HttpMethod.HEAD) && !method.equals(HttpMethod.OPTIONS);
+    }
+}
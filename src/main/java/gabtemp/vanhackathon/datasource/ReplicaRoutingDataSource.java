@@ -0,0 +1,57 @@
+package gabtemp.vanhackathon.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes the connections of the read-only transactions to the replicas, in round robin, and all the other connections
+ * to the primary database. The reads of the clients that recently wrote, as tracked by {@link ReadYourWrites}, are
+ * routed to the primary database too, so they see their writes before the replicas catch up.
+ * <p>
+ * The read-only flag of the transaction is set after its connection is requested, so the routing data source must be
+ * wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, that requests the connection
+ * on the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    static final String REPLICA = "replica-";
+
+    private final int replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary  the primary database, for the writes
+     * @param replicas the replicas of the primary database, for the reads. Can't be empty
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = replicas.size();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int index = 0; index < replicas.size(); index++) {
+            targets.put(REPLICA + index, replicas.get(index));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isPinned()) {
+            return PRIMARY;
+        }
+        return REPLICA + Math.floorMod(next.getAndIncrement(), replicas);
+    }
+}
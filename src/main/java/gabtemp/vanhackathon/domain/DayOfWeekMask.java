@@ -0,0 +1,71 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Utility class to represent a set of week days as a 7 bit mask, where the bit {@code n} is set if the day with the
+ * ordinal {@code n} is part of the set (bit 0 is MONDAY, bit 6 is SUNDAY)
+ */
+public final class DayOfWeekMask {
+
+    /**
+     * Mask with all the week days set
+     */
+    public static final int ALL_DAYS = (1 << 7) - 1;
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private DayOfWeekMask() {
+    }
+
+    /**
+     * Converts a set of week days to a mask
+     *
+     * @param days the week days
+     * @return the mask with the bits of the provided days set
+     */
+    public static int toMask(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= bit(day);
+        }
+        return mask;
+    }
+
+    /**
+     * Converts a mask to a set of week days
+     *
+     * @param mask the mask, only the 7 lower bits are considered
+     * @return a new set with the days of the bits set on the mask
+     */
+    public static Set<DayOfWeek> fromMask(int mask) {
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DAYS) {
+            if ((mask & bit(day)) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Checks if a day is part of a mask
+     *
+     * @param mask the mask
+     * @param day  the day to check
+     * @return true if the bit of the day is set on the mask
+     */
+    public static boolean contains(int mask, DayOfWeek day) {
+        return (mask & bit(day)) != 0;
+    }
+
+    /**
+     * @param day the week day
+     * @return the mask with only the bit of the provided day set
+     */
+    public static int bit(DayOfWeek day) {
+        return 1 << day.ordinal();
+    }
+}
@@ -0,0 +1,23 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.util.Set;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * JPA converter that stores a set of week days in a single integer column as a {@link DayOfWeekMask}
+ */
+@Converter
+public class DayOfWeekSetConverter implements AttributeConverter<Set<DayOfWeek>, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<DayOfWeek> days) {
+        return days == null ? null : DayOfWeekMask.toMask(days);
+    }
+
+    @Override
+    public Set<DayOfWeek> convertToEntityAttribute(Integer mask) {
+        return mask == null ? null : DayOfWeekMask.fromMask(mask);
+    }
+}
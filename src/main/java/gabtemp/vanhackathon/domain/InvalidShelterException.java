@@ -0,0 +1,12 @@
+package gabtemp.vanhackathon.domain;
+
+/**
+ * Exception thrown when the data provided for a shelter is missing or invalid. The message describes the problem and
+ * can be shown to the client
+ */
+public class InvalidShelterException extends RuntimeException {
+
+    public InvalidShelterException(String message) {
+        super(message);
+    }
+}
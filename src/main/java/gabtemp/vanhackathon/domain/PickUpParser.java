@@ -0,0 +1,172 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Parser of the week days and times of the forms, the hot path of the bulk import. Scans the text in place, without
+ * regular expressions, intermediate strings or exceptions, ignoring the whitespace around the values and the case of
+ * the day names
+ */
+public final class PickUpParser {
+
+    /**
+     * Result of {@link #parseDays(CharSequence)} for invalid week days
+     */
+    public static final int INVALID = -1;
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private static final String[] NAMES = new String[DAYS.length];
+
+    static {
+        for (DayOfWeek day : DAYS) {
+            NAMES[day.ordinal()] = day.name();
+        }
+    }
+
+    private PickUpParser() {
+    }
+
+    /**
+     * Parses a comma separated list of week days, e.g. "FRIDAY,SATURDAY" or "friday, Saturday"
+     *
+     * @param text the list of week days
+     * @return the mask of the days, see {@link DayOfWeekMask}, or {@link #INVALID} if any of the days is empty or is
+     * not the full name of a week day
+     */
+    public static int parseDays(CharSequence text) {
+        int length = text.length();
+        int mask = 0;
+        int index = 0;
+        while (true) {
+            int start = skipWhitespace(text, index, length);
+            index = start;
+            while (index < length && text.charAt(index) != ',') {
+                index++;
+            }
+            int end = index;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+
+            int ordinal = dayOrdinal(text, start, end);
+            if (ordinal < 0) {
+                return INVALID;
+            }
+            mask |= 1 << ordinal;
+
+            if (index == length) {
+                return mask;
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Parses a single week day, e.g. "FRIDAY" or " friday"
+     *
+     * @param text the week day
+     * @return the day, or null if the text is not the full name of a week day
+     */
+    public static DayOfWeek parseDay(CharSequence text) {
+        int length = text.length();
+        while (length > 0 && Character.isWhitespace(text.charAt(length - 1))) {
+            length--;
+        }
+        int ordinal = dayOrdinal(text, skipWhitespace(text, 0, length), length);
+        return ordinal < 0 ? null : DAYS[ordinal];
+    }
+
+    /**
+     * Parses a time of day in the format 'hh:mm', optionally followed by the seconds and the fraction of second as in
+     * 'hh:mm:ss.SSS'. The hour can have a single digit
+     *
+     * @param text the time of day
+     * @return the time, or null if the text is not a valid time
+     */
+    public static LocalTime parseTime(CharSequence text) {
+        int length = text.length();
+        while (length > 0 && Character.isWhitespace(text.charAt(length - 1))) {
+            length--;
+        }
+        int index = skipWhitespace(text, 0, length);
+
+        int hour = digit(text, index, length);
+        if (hour < 0) {
+            return null;
+        }
+        index++;
+        if (digit(text, index, length) >= 0) {
+            hour = hour * 10 + digit(text, index++, length);
+        }
+        if (index >= length || text.charAt(index++) != ':') {
+            return null;
+        }
+        int minute = twoDigits(text, index, length);
+        index += 2;
+
+        int second = 0;
+        int nano = 0;
+        if (index < length && text.charAt(index) == ':') {
+            second = twoDigits(text, index + 1, length);
+            index += 3;
+            if (index < length && text.charAt(index) == '.') {
+                int scale = 100_000_000;
+                int digits = 0;
+                for (index++; index < length && digits < 9 && digit(text, index, length) >= 0; index++, digits++) {
+                    nano += digit(text, index, length) * scale;
+                    scale /= 10;
+                }
+                if (digits == 0) {
+                    return null;
+                }
+            }
+        }
+
+        if (index != length || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    private static int dayOrdinal(CharSequence text, int start, int end) {
+        for (int ordinal = 0; ordinal < NAMES.length; ordinal++) {
+            String name = NAMES[ordinal];
+            if (name.length() == end - start && matchesIgnoringCase(text, start, name)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesIgnoringCase(CharSequence text, int start, String upperCaseName) {
+        for (int index = 0; index < upperCaseName.length(); index++) {
+            if (Character.toUpperCase(text.charAt(start + index)) != upperCaseName.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(CharSequence text, int index, int length) {
+        while (index < length && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int twoDigits(CharSequence text, int index, int length) {
+        int tens = digit(text, index, length);
+        int units = digit(text, index + 1, length);
+        return tens < 0 || units < 0 ? -1 : tens * 10 + units;
+    }
+
+    private static int digit(CharSequence text, int index, int length) {
+        if (index >= length) {
+            return -1;
+        }
+        char c = text.charAt(index);
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
@@ -1,28 +1,33 @@
 package gabtemp.vanhackathon.domain;
 
 import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.util.Objects;
 import java.util.Set;
 import javax.persistence.Column;
-import javax.persistence.ElementCollection;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import com.google.common.base.MoreObjects;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@DynamicUpdate
 @Table(name = "RESTAURANT")
 public class Restaurant {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RESTAURANT_SEQ")
-    @SequenceGenerator(name = "RESTAURANT_SEQ", sequenceName = "RESTAURANT_SEQ")
+    @SequenceGenerator(name = "RESTAURANT_SEQ", sequenceName = "RESTAURANT_SEQ", allocationSize = 50)
     @Column(name = "RESTAURANT_ID")
     private Long id;
 
@@ -32,13 +37,47 @@ public class Restaurant {
     @Column(name = "ADDRESS", nullable = false)
     private String address;
 
-    @ElementCollection(targetClass = DayOfWeek.class, fetch = FetchType.EAGER)
+    @Convert(converter = DayOfWeekSetConverter.class)
     @Column(name = "PICK_UP_DAYS", nullable = false)
     private Set<DayOfWeek> availablePickUpDays;
 
     @Column(name = "PICK_UP_TIME", nullable = false)
     private LocalTime pickUpTime;
 
+    @Column(name = "LATITUDE")
+    private Double latitude;
+
+    @Column(name = "LONGITUDE")
+    private Double longitude;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    @Column(name = "LAST_MODIFIED", nullable = false)
+    private Instant lastModified;
+
+    public Restaurant() {
+    }
+
+    /**
+     * Creates a copy of the provided restaurant
+     *
+     * @param other the restaurant to copy
+     */
+    public Restaurant(Restaurant other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.address = other.address;
+        this.availablePickUpDays = other.availablePickUpDays == null ? null :
+                DayOfWeekMask.fromMask(DayOfWeekMask.toMask(other.availablePickUpDays));
+        this.pickUpTime = other.pickUpTime;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.version = other.version;
+        this.lastModified = other.lastModified;
+    }
+
     public Long getId() {
         return id;
     }
@@ -79,6 +118,56 @@ public class Restaurant {
         this.pickUpTime = pickUpTime;
     }
 
+    /**
+     * @return the latitude of the address of the restaurant in degrees, or null if the address couldn't be located
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * @return the longitude of the address of the restaurant in degrees, or null if the address couldn't be located
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    /**
+     * @return the version of the restaurant, incremented on every update
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the instant of the last creation or update of the restaurant
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateLastModified() {
+        lastModified = Instant.now();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(id);
@@ -104,6 +193,9 @@ public class Restaurant {
                           .add("address", address)
                           .add("availablePickUpDays", availablePickUpDays)
                           .add("pickUpTime", pickUpTime)
+                          .add("latitude", latitude)
+                          .add("longitude", longitude)
+                          .add("version", version)
                           .toString();
     }
 }
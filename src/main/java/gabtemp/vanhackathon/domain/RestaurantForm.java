@@ -0,0 +1,153 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The fields provided by the clients to register or update a restaurant, in their textual representation. Validates and
+ * converts them to a {@link Restaurant}
+ */
+public class RestaurantForm {
+
+    private String name;
+
+    private String address;
+
+    private String pickUpDays;
+
+    private String pickUpTime;
+
+    public RestaurantForm() {
+    }
+
+    public RestaurantForm(String name, String address, String pickUpDays, String pickUpTime) {
+        this.name = name;
+        this.address = address;
+        this.pickUpDays = pickUpDays;
+        this.pickUpTime = pickUpTime;
+    }
+
+    /**
+     * Creates a new restaurant with the fields of the form. If the pick-up days are not provided the restaurant is
+     * available all days of the week
+     *
+     * @return the new restaurant, without id
+     * @throws InvalidRestaurantException if a mandatory field is missing or if a field is invalid
+     */
+    public Restaurant toRestaurant() {
+        if (name == null) {
+            throw new InvalidRestaurantException("Form parameter 'name' is mandatory");
+        }
+
+        if (address == null) {
+            throw new InvalidRestaurantException("Form parameter 'address' is mandatory");
+        }
+
+        if (pickUpTime == null) {
+            throw new InvalidRestaurantException("Form parameter 'pickUpTime' is mandatory");
+        }
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName(name);
+        restaurant.setAddress(address);
+        restaurant.setAvailablePickUpDays(hasPickUpDays() ? resolvePickUpDays() : EnumSet.allOf(DayOfWeek.class));
+        restaurant.setPickUpTime(resolvePickUpTime());
+        return restaurant;
+    }
+
+    /**
+     * Updates the restaurant with the provided fields of the form. The fields not provided are kept
+     *
+     * @param restaurant the restaurant to update
+     * @throws InvalidRestaurantException if a field is invalid, in which case the restaurant is not changed
+     */
+    public void applyTo(Restaurant restaurant) {
+        Set<DayOfWeek> resolvedDays = hasPickUpDays() ? resolvePickUpDays() : null;
+        LocalTime resolvedTime = pickUpTime != null ? resolvePickUpTime() : null;
+
+        if (name != null) {
+            restaurant.setName(name);
+        }
+
+        if (address != null) {
+            restaurant.setAddress(address);
+        }
+
+        if (resolvedDays != null) {
+            restaurant.setAvailablePickUpDays(resolvedDays);
+        }
+
+        if (resolvedTime != null) {
+            restaurant.setPickUpTime(resolvedTime);
+        }
+    }
+
+    private boolean hasPickUpDays() {
+        return pickUpDays != null && !pickUpDays.isEmpty();
+    }
+
+    private Set<DayOfWeek> resolvePickUpDays() {
+        int mask = PickUpParser.parseDays(pickUpDays);
+        if (mask == PickUpParser.INVALID) {
+            throw new InvalidRestaurantException("Invalid week days (" + pickUpDays + ") for the 'pickUpDays' field. " +
+                    "The allowed format is a comma separated list of week days, e.g. 'FRIDAY,SATURDAY'.");
+        }
+        return DayOfWeekMask.fromMask(mask);
+    }
+
+    private LocalTime resolvePickUpTime() {
+        LocalTime time = PickUpParser.parseTime(pickUpTime);
+        if (time == null) {
+            throw new InvalidRestaurantException("Invalid time format (" + pickUpTime + ") for the 'pickUpTime' " +
+                    "field. The allowed format is 'hh:mm', where 'hh' is the hour from 0 to 23 and 'mm' are the " +
+                    "minutes from 0 to 59.");
+        }
+        return time;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getPickUpDays() {
+        return pickUpDays;
+    }
+
+    public void setPickUpDays(String pickUpDays) {
+        this.pickUpDays = pickUpDays;
+    }
+
+    public String getPickUpTime() {
+        return pickUpTime;
+    }
+
+    public void setPickUpTime(String pickUpTime) {
+        this.pickUpTime = pickUpTime;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("name", name)
+                          .add("address", address)
+                          .add("pickUpDays", pickUpDays)
+                          .add("pickUpTime", pickUpTime)
+                          .toString();
+    }
+}
@@ -0,0 +1,239 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Objects;
+import java.util.Set;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A shelter, or any other place, that receives the leftover food picked up from the restaurants. A shelter receives up
+ * to its capacity of deliveries on each of its receiving days, between its open and close times
+ */
+@Entity
+@Table(name = "SHELTER")
+public class Shelter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SHELTER_SEQ")
+    @SequenceGenerator(name = "SHELTER_SEQ", sequenceName = "SHELTER_SEQ", allocationSize = 50)
+    @Column(name = "SHELTER_ID")
+    private Long id;
+
+    @Column(name = "NAME", nullable = false)
+    private String name;
+
+    @Column(name = "ADDRESS", nullable = false)
+    private String address;
+
+    @Column(name = "CAPACITY", nullable = false)
+    private Integer capacity;
+
+    @Convert(converter = DayOfWeekSetConverter.class)
+    @Column(name = "RECEIVING_DAYS", nullable = false)
+    private Set<DayOfWeek> receivingDays;
+
+    @Column(name = "OPEN_TIME", nullable = false)
+    private LocalTime openTime;
+
+    @Column(name = "CLOSE_TIME", nullable = false)
+    private LocalTime closeTime;
+
+    @Column(name = "LATITUDE")
+    private Double latitude;
+
+    @Column(name = "LONGITUDE")
+    private Double longitude;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    @Column(name = "LAST_MODIFIED", nullable = false)
+    private Instant lastModified;
+
+    public Shelter() {
+    }
+
+    /**
+     * Creates a copy of the provided shelter
+     *
+     * @param other the shelter to copy
+     */
+    public Shelter(Shelter other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.address = other.address;
+        this.capacity = other.capacity;
+        this.receivingDays = other.receivingDays == null ? null :
+                DayOfWeekMask.fromMask(DayOfWeekMask.toMask(other.receivingDays));
+        this.openTime = other.openTime;
+        this.closeTime = other.closeTime;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.version = other.version;
+        this.lastModified = other.lastModified;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    /**
+     * @return the maximum number of deliveries received on each receiving day
+     */
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Set<DayOfWeek> getReceivingDays() {
+        return receivingDays;
+    }
+
+    public void setReceivingDays(Set<DayOfWeek> receivingDays) {
+        this.receivingDays = receivingDays;
+    }
+
+    /**
+     * @return the time of day the shelter starts receiving deliveries
+     */
+    public LocalTime getOpenTime() {
+        return openTime;
+    }
+
+    public void setOpenTime(LocalTime openTime) {
+        this.openTime = openTime;
+    }
+
+    /**
+     * @return the time of day the shelter stops receiving deliveries. If not after the open time the shelter receives
+     * deliveries past midnight, until the close time of the next day
+     */
+    public LocalTime getCloseTime() {
+        return closeTime;
+    }
+
+    public void setCloseTime(LocalTime closeTime) {
+        this.closeTime = closeTime;
+    }
+
+    /**
+     * @return the latitude of the address of the shelter in degrees, or null if the address couldn't be located
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * @return the longitude of the address of the shelter in degrees, or null if the address couldn't be located
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    /**
+     * @return the version of the shelter, incremented on every update
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the instant of the last creation or update of the shelter
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateLastModified() {
+        lastModified = Instant.now();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Shelter that = (Shelter) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("id", id)
+                          .add("name", name)
+                          .add("address", address)
+                          .add("capacity", capacity)
+                          .add("receivingDays", receivingDays)
+                          .add("openTime", openTime)
+                          .add("closeTime", closeTime)
+                          .add("latitude", latitude)
+                          .add("longitude", longitude)
+                          .add("version", version)
+                          .toString();
+    }
+}
@@ -0,0 +1,207 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The fields provided by the clients to register or update a shelter, in their textual representation. Validates and
+ * converts them to a {@link Shelter}
+ */
+public class ShelterForm {
+
+    private String name;
+
+    private String address;
+
+    private String capacity;
+
+    private String receivingDays;
+
+    private String openTime;
+
+    private String closeTime;
+
+    public ShelterForm() {
+    }
+
+    public ShelterForm(String name, String address, String capacity, String receivingDays, String openTime,
+            String closeTime) {
+        this.name = name;
+        this.address = address;
+        this.capacity = capacity;
+        this.receivingDays = receivingDays;
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+    }
+
+    /**
+     * Creates a new shelter with the fields of the form. If the receiving days are not provided the shelter receives
+     * deliveries all days of the week
+     *
+     * @return the new shelter, without id
+     * @throws InvalidShelterException if a mandatory field is missing or if a field is invalid
+     */
+    public Shelter toShelter() {
+        if (name == null) {
+            throw new InvalidShelterException("Form parameter 'name' is mandatory");
+        }
+
+        if (address == null) {
+            throw new InvalidShelterException("Form parameter 'address' is mandatory");
+        }
+
+        if (capacity == null) {
+            throw new InvalidShelterException("Form parameter 'capacity' is mandatory");
+        }
+
+        if (openTime == null || closeTime == null) {
+            throw new InvalidShelterException("Form parameters 'openTime' and 'closeTime' are mandatory");
+        }
+
+        Shelter shelter = new Shelter();
+        shelter.setName(name);
+        shelter.setAddress(address);
+        shelter.setCapacity(resolveCapacity());
+        shelter.setReceivingDays(hasReceivingDays() ? resolveReceivingDays() : EnumSet.allOf(DayOfWeek.class));
+        shelter.setOpenTime(resolveTime(openTime, "openTime"));
+        shelter.setCloseTime(resolveTime(closeTime, "closeTime"));
+        return shelter;
+    }
+
+    /**
+     * Updates the shelter with the provided fields of the form. The fields not provided are kept
+     *
+     * @param shelter the shelter to update
+     * @throws InvalidShelterException if a field is invalid, in which case the shelter is not changed
+     */
+    public void applyTo(Shelter shelter) {
+        Integer resolvedCapacity = capacity != null ? resolveCapacity() : null;
+        Set<DayOfWeek> resolvedDays = hasReceivingDays() ? resolveReceivingDays() : null;
+        LocalTime resolvedOpenTime = openTime != null ? resolveTime(openTime, "openTime") : null;
+        LocalTime resolvedCloseTime = closeTime != null ? resolveTime(closeTime, "closeTime") : null;
+
+        if (name != null) {
+            shelter.setName(name);
+        }
+
+        if (address != null) {
+            shelter.setAddress(address);
+        }
+
+        if (resolvedCapacity != null) {
+            shelter.setCapacity(resolvedCapacity);
+        }
+
+        if (resolvedDays != null) {
+            shelter.setReceivingDays(resolvedDays);
+        }
+
+        if (resolvedOpenTime != null) {
+            shelter.setOpenTime(resolvedOpenTime);
+        }
+
+        if (resolvedCloseTime != null) {
+            shelter.setCloseTime(resolvedCloseTime);
+        }
+    }
+
+    private int resolveCapacity() {
+        try {
+            int resolved = Integer.parseInt(capacity.trim());
+            if (resolved >= 0) {
+                return resolved;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new InvalidShelterException("Invalid capacity (" + capacity + ") for the 'capacity' field. The " +
+                "capacity is the number of deliveries received per day, zero or a positive number.");
+    }
+
+    private boolean hasReceivingDays() {
+        return receivingDays != null && !receivingDays.isEmpty();
+    }
+
+    private Set<DayOfWeek> resolveReceivingDays() {
+        int mask = PickUpParser.parseDays(receivingDays);
+        if (mask == PickUpParser.INVALID) {
+            throw new InvalidShelterException("Invalid week days (" + receivingDays + ") for the 'receivingDays' " +
+                    "field. The allowed format is a comma separated list of week days, e.g. 'FRIDAY,SATURDAY'.");
+        }
+        return DayOfWeekMask.fromMask(mask);
+    }
+
+    private static LocalTime resolveTime(String time, String field) {
+        LocalTime resolved = PickUpParser.parseTime(time);
+        if (resolved == null) {
+            throw new InvalidShelterException("Invalid time format (" + time + ") for the '" + field + "' field. " +
+                    "The allowed format is 'hh:mm', where 'hh' is the hour from 0 to 23 and 'mm' are the minutes " +
+                    "from 0 to 59.");
+        }
+        return resolved;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(String capacity) {
+        this.capacity = capacity;
+    }
+
+    public String getReceivingDays() {
+        return receivingDays;
+    }
+
+    public void setReceivingDays(String receivingDays) {
+        this.receivingDays = receivingDays;
+    }
+
+    public String getOpenTime() {
+        return openTime;
+    }
+
+    public void setOpenTime(String openTime) {
+        this.openTime = openTime;
+    }
+
+    public String getCloseTime() {
+        return closeTime;
+    }
+
+    public void setCloseTime(String closeTime) {
+        this.closeTime = closeTime;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("name", name)
+                          .add("address", address)
+                          .add("capacity", capacity)
+                          .add("receivingDays", receivingDays)
+                          .add("openTime", openTime)
+                          .add("closeTime", closeTime)
+                          .toString();
+    }
+}
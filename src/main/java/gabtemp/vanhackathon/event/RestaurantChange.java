@@ -0,0 +1,70 @@
+package gabtemp.vanhackathon.event;
+
+import java.time.Instant;
+
+import com.google.common.base.MoreObjects;
+import gabtemp.vanhackathon.domain.Restaurant;
+
+/**
+ * Entry of the {@link RestaurantChangeLog}, a change made to a restaurant identified by its sequence number
+ */
+public class RestaurantChange {
+
+    private final long sequence;
+
+    private final RestaurantChangeEvent.Type type;
+
+    private final Long id;
+
+    private final Restaurant restaurant;
+
+    private final Instant time;
+
+    public RestaurantChange(long sequence, RestaurantChangeEvent.Type type, Long id, Restaurant restaurant,
+            Instant time) {
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.restaurant = restaurant;
+        this.time = time;
+    }
+
+    /**
+     * @return the sequence number of the change, one more than the sequence number of the previous change
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public RestaurantChangeEvent.Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the changed restaurant
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the restaurant after the change, or null for {@link RestaurantChangeEvent.Type#DELETED} changes
+     */
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("sequence", sequence)
+                          .add("type", type)
+                          .add("id", id)
+                          .add("time", time)
+                          .toString();
+    }
+}
@@ -0,0 +1,62 @@
+package gabtemp.vanhackathon.event;
+
+import com.google.common.base.MoreObjects;
+import gabtemp.vanhackathon.domain.Restaurant;
+
+/**
+ * Event published every time a restaurant is created, updated or deleted. Used to keep the in memory views of the
+ * restaurants up to date with the database. Changes made by the other nodes of the cluster are published as remote
+ * events, see {@link gabtemp.vanhackathon.cluster.ClusterEventBus}
+ */
+public class RestaurantChangeEvent {
+
+    /**
+     * The kind of change made to the restaurant
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final Restaurant restaurant;
+
+    private final boolean remote;
+
+    public RestaurantChangeEvent(Type type, Restaurant restaurant) {
+        this(type, restaurant, false);
+    }
+
+    public RestaurantChangeEvent(Type type, Restaurant restaurant, boolean remote) {
+        this.type = type;
+        this.restaurant = restaurant;
+        this.remote = remote;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the restaurant after the change, or the deleted restaurant for {@link Type#DELETED} events
+     */
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    /**
+     * @return true if the change was made by another node of the cluster, false if made by this one
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("type", type)
+                          .add("restaurant", restaurant)
+                          .add("remote", remote)
+                          .toString();
+    }
+}
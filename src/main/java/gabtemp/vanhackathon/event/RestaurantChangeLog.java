@@ -0,0 +1,174 @@
+package gabtemp.vanhackathon.event;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append only log of the changes made to the restaurants, used to sync the clients incrementally and as the version of
+ * the restaurant collections. Only the last changes are retained, in a ring buffer with the configured capacity.
+ * <p>
+ * The sequence numbers carry a random epoch, chosen on start up, on the bits above the counter of the changes. So the
+ * sequence numbers, and the collection versions built from them, of a previous run or of another node of the cluster
+ * are never taken for ones of this log: the changes after them are reported as not retained and the client reloads
+ * all the restaurants. The sequence numbers stay below 2^53, so they are exact as JavaScript numbers.
+ * <p>
+ * The log starts over on a {@link RestaurantsResyncEvent}, as the changes it missed can't be told apart: the clients
+ * at any previous sequence number reload all the restaurants.
+ */
+@Component
+public class RestaurantChangeLog {
+
+    /**
+     * Number of bits of the counter of the changes, below the epoch
+     */
+    static final int COUNTER_BITS = 32;
+
+    /**
+     * Number of bits of the epoch
+     */
+    static final int EPOCH_BITS = 21;
+
+    private final long epoch;
+
+    private final RestaurantChange[] changes;
+
+    /**
+     * The subscribers and what each one runs when the log starts over
+     */
+    private final Map<Consumer<RestaurantChange>, Runnable> subscribers = new ConcurrentHashMap<>();
+
+    private long sequence;
+
+    private int size;
+
+    private Instant lastModified;
+
+    @Autowired
+    public RestaurantChangeLog(@Value("${restaurant.changes.capacity:10000}") int capacity) {
+        this(capacity, ThreadLocalRandom.current().nextLong(1, 1L << EPOCH_BITS));
+    }
+
+    RestaurantChangeLog(int capacity, long epoch) {
+        Preconditions.checkArgument(capacity > 0, "The capacity of the change log must be positive");
+        this.epoch = epoch;
+        this.changes = new RestaurantChange[capacity];
+        this.sequence = epoch << COUNTER_BITS;
+        this.lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @EventListener
+    public synchronized void onRestaurantChange(RestaurantChangeEvent event) {
+        append(event.getType(), event.getRestaurant(), Instant.now());
+    }
+
+    /**
+     * Appends the restaurants of a bulk import chunk as created, holding the lock once for the whole chunk
+     */
+    @EventListener
+    public synchronized void onRestaurantsCreated(RestaurantsCreatedEvent event) {
+        Instant now = Instant.now();
+        event.getRestaurants().forEach(restaurant -> append(RestaurantChangeEvent.Type.CREATED, restaurant, now));
+    }
+
+    /**
+     * Starts the log over: the retained changes are discarded and the sequence number moves on, so the changes after
+     * any previous sequence number are no longer retained. The subscribers are unsubscribed and told so
+     */
+    @EventListener
+    public synchronized void onRestaurantsResync(RestaurantsResyncEvent event) {
+        sequence++;
+        size = 0;
+        Arrays.fill(changes, null);
+        lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Runnable> resets = new ArrayList<>(subscribers.values());
+        subscribers.clear();
+        resets.forEach(Runnable::run);
+    }
+
+    /**
+     * Finds the changes made after the provided sequence number
+     *
+     * @param since the sequence number of the last change known by the client
+     * @param limit the maximum number of changes to return
+     * @return the changes ordered by sequence number, or an empty optional if the changes are no longer retained or the
+     * sequence number is unknown, e.g. from another epoch, in which case the client must reload all the restaurants
+     */
+    public synchronized Optional<List<RestaurantChange>> since(long since, int limit) {
+        if (since >>> COUNTER_BITS != epoch || since < sequence - size || since > sequence) {
+            return Optional.empty();
+        }
+        int count = (int) Math.min(sequence - since, limit);
+        List<RestaurantChange> result = new ArrayList<>(count);
+        for (long next = since + 1; next <= since + count; next++) {
+            result.add(changes[index(next)]);
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Subscribes to the changes made after the provided sequence number. The retained changes are sent to the subscriber
+     * first and then the following ones, with no gap between them, until the log starts over. The subscriber and the
+     * reset are called while holding the lock of the log, so they must not block
+     *
+     * @param since      the sequence number of the last change known by the subscriber
+     * @param subscriber the consumer of the changes
+     * @param reset      called when the log starts over and the subscriber is unsubscribed, as the following changes
+     *                   would have a gap
+     * @return true if subscribed, false if the changes after the sequence number are no longer retained
+     */
+    public synchronized boolean subscribe(long since, Consumer<RestaurantChange> subscriber, Runnable reset) {
+        Optional<List<RestaurantChange>> retained = since(since, Integer.MAX_VALUE);
+        if (!retained.isPresent()) {
+            return false;
+        }
+        retained.get().forEach(subscriber);
+        subscribers.put(subscriber, reset);
+        return true;
+    }
+
+    public void unsubscribe(Consumer<RestaurantChange> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return the sequence number of the last change, changed every time a restaurant is created, updated or deleted
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the instant of the last change, truncated to seconds as HTTP dates
+     */
+    public synchronized Instant getLastModified() {
+        return lastModified;
+    }
+
+    private void append(RestaurantChangeEvent.Type type, Restaurant restaurant, Instant now) {
+        RestaurantChange change = new RestaurantChange(++sequence, type, restaurant.getId(),
+                type == RestaurantChangeEvent.Type.DELETED ? null : restaurant, now);
+        changes[index(sequence)] = change;
+        size = Math.min(size + 1, changes.length);
+        lastModified = now.truncatedTo(ChronoUnit.SECONDS);
+        subscribers.keySet().forEach(subscriber -> subscriber.accept(change));
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % changes.length);
+    }
+}
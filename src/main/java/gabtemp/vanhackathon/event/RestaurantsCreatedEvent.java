@@ -0,0 +1,33 @@
+package gabtemp.vanhackathon.event;
+
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+import gabtemp.vanhackathon.domain.Restaurant;
+
+/**
+ * Event published once per chunk of restaurants created by a bulk import, instead of a {@link RestaurantChangeEvent}
+ * per restaurant, so the in memory views of the restaurants apply the whole chunk in a single batch
+ */
+public class RestaurantsCreatedEvent {
+
+    private final List<Restaurant> restaurants;
+
+    public RestaurantsCreatedEvent(List<Restaurant> restaurants) {
+        this.restaurants = restaurants;
+    }
+
+    /**
+     * @return the created restaurants, in order of creation
+     */
+    public List<Restaurant> getRestaurants() {
+        return restaurants;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("restaurants", restaurants.size())
+                          .toString();
+    }
+}
@@ -0,0 +1,32 @@
+package gabtemp.vanhackathon.event;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Event published when the in memory views of the restaurants may have missed changes, e.g. made by another node of the
+ * cluster whose messages were lost. As the missed changes can't be told apart, the views load all the restaurants again
+ * from the database, the matching engine its shelters too, and the change log starts over, so the clients reload all
+ * the restaurants too
+ */
+public class RestaurantsResyncEvent {
+
+    private final String reason;
+
+    public RestaurantsResyncEvent(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * @return why the views may have missed changes
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("reason", reason)
+                          .toString();
+    }
+}
@@ -0,0 +1,62 @@
+package gabtemp.vanhackathon.event;
+
+import com.google.common.base.MoreObjects;
+import gabtemp.vanhackathon.domain.Shelter;
+
+/**
+ * Event published every time a shelter is created, updated or deleted. Used to keep the matching of the leftovers to
+ * the shelters up to date with the database. Changes made by the other nodes of the cluster are published as remote
+ * events, see {@link gabtemp.vanhackathon.cluster.ClusterEventBus}
+ */
+public class ShelterChangeEvent {
+
+    /**
+     * The kind of change made to the shelter
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final Shelter shelter;
+
+    private final boolean remote;
+
+    public ShelterChangeEvent(Type type, Shelter shelter) {
+        this(type, shelter, false);
+    }
+
+    public ShelterChangeEvent(Type type, Shelter shelter, boolean remote) {
+        this.type = type;
+        this.shelter = shelter;
+        this.remote = remote;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the shelter after the change, or the deleted shelter for {@link Type#DELETED} events
+     */
+    public Shelter getShelter() {
+        return shelter;
+    }
+
+    /**
+     * @return true if the change was made by another node of the cluster, false if made by this one
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("type", type)
+                          .add("shelter", shelter)
+                          .add("remote", remote)
+                          .toString();
+    }
+}
@@ -0,0 +1,62 @@
+package gabtemp.vanhackathon.geo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in of a geocoding service, resolving the addresses listed in a file. Each line of the file has an address,
+ * its latitude and its longitude separated by semicolons, lines starting with '#' are ignored. Addresses are matched
+ * ignoring case, punctuation and repeated whitespace
+ */
+@Component
+public class FileGeocoder implements Geocoder {
+
+    private final Logger LOG = LoggerFactory.getLogger(FileGeocoder.class);
+
+    private final Map<String, GeoPoint> points = new HashMap<>();
+
+    public FileGeocoder(@Value("${restaurant.geocoder.file:classpath:geocoder/addresses.csv}") Resource file) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Invalid line " + number + " of the geocoder file " + file);
+                }
+                points.put(normalize(fields[0]),
+                        new GeoPoint(Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the geocoder file " + file, e);
+        }
+        LOG.info("Geocoder loaded with {} addresses.", points.size());
+    }
+
+    @Override
+    public Optional<GeoPoint> geocode(String address) {
+        return Optional.ofNullable(points.get(normalize(address)));
+    }
+
+    private static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+}
@@ -0,0 +1,84 @@
+package gabtemp.vanhackathon.geo;
+
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A point on the surface of the Earth, in degrees
+ */
+public final class GeoPoint {
+
+    /**
+     * Mean radius of the Earth in kilometers
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double latitude;
+
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        // NaN fails every comparison, so it's rejected explicitly
+        if (!Double.isFinite(latitude) || !Double.isFinite(longitude) || latitude < -90 || latitude > 90 ||
+                longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates (" + latitude + ", " + longitude + ")");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @param other the other point
+     * @return the great circle distance to the other point in kilometers
+     */
+    public double distanceKm(GeoPoint other) {
+        return distanceKm(latitude, longitude, other.latitude, other.longitude);
+    }
+
+    /**
+     * Computes the great circle distance between two points with the haversine formula
+     *
+     * @return the distance in kilometers
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLatitude * sinLatitude +
+                Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(latitude, longitude);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        GeoPoint that = (GeoPoint) o;
+        return latitude == that.latitude && longitude == that.longitude;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("latitude", latitude)
+                          .add("longitude", longitude)
+                          .toString();
+    }
+}
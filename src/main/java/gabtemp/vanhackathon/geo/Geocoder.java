@@ -0,0 +1,42 @@
+package gabtemp.vanhackathon.geo;
+
+import java.util.Optional;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.Shelter;
+
+/**
+ * Resolves the coordinates of an address. The application uses the single {@link Geocoder} bean of the context, so an
+ * implementation backed by a geocoding service can replace the {@link FileGeocoder}
+ */
+public interface Geocoder {
+
+    /**
+     * @param address the free text address
+     * @return the coordinates of the address, or an empty optional if the address is unknown
+     */
+    Optional<GeoPoint> geocode(String address);
+
+    /**
+     * Sets the latitude and longitude of the restaurant from its address, or clears them if the address is unknown
+     *
+     * @param restaurant the restaurant to locate
+     */
+    default void locate(Restaurant restaurant) {
+        Optional<GeoPoint> point = restaurant.getAddress() == null ? Optional.empty() :
+                geocode(restaurant.getAddress());
+        restaurant.setLatitude(point.map(GeoPoint::getLatitude).orElse(null));
+        restaurant.setLongitude(point.map(GeoPoint::getLongitude).orElse(null));
+    }
+
+    /**
+     * Sets the latitude and longitude of the shelter from its address, or clears them if the address is unknown
+     *
+     * @param shelter the shelter to locate
+     */
+    default void locate(Shelter shelter) {
+        Optional<GeoPoint> point = shelter.getAddress() == null ? Optional.empty() : geocode(shelter.getAddress());
+        shelter.setLatitude(point.map(GeoPoint::getLatitude).orElse(null));
+        shelter.setLongitude(point.map(GeoPoint::getLongitude).orElse(null));
+    }
+}
@@ -0,0 +1,370 @@
+package gabtemp.vanhackathon.index;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import gabtemp.vanhackathon.domain.DayOfWeekMask;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In memory index of the restaurants available for pick-up by week day and time of day.
+ * <p>
+ * For each week day the index keeps a sorted array of slots, where each slot packs the pick-up time (second of day) on
+ * the higher bits and the restaurant id on the lower 40 bits. Finding the restaurants available in a time window is a
+ * binary search followed by a sequential read of the array. The index is loaded on start up and kept up to date by the
+ * {@link RestaurantChangeEvent}s, and by the {@link RestaurantsCreatedEvent}s of the bulk imports, merged in a batch.
+ * <p>
+ * The slots of the seven days are the materialized weekly schedule of the pick-ups, served by time range with
+ * {@link #scan(DayOfWeek, LocalTime, LocalTime, SlotConsumer)}.
+ */
+@Component
+public class AvailabilityIndex {
+
+    static final int ID_BITS = 40;
+
+    static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Logger LOG = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final long[][] slots = new long[7][];
+
+    private final int[] sizes = new int[7];
+
+    /**
+     * The indexed pick-up days mask (higher 32 bits) and second of day (lower 32 bits) of each restaurant id
+     */
+    private final Map<Long, Long> entries = new HashMap<>();
+
+    @Resource
+    private RestaurantRepository repository;
+
+    public AvailabilityIndex() {
+        for (int day = 0; day < slots.length; day++) {
+            slots[day] = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Loads all the registered restaurants into the index
+     */
+    @PostConstruct
+    public void load() {
+        LOG.info("Loading the restaurant availability index.");
+        repository.scan(LOAD_PAGE_SIZE, this::put);
+        LOG.info("Restaurant availability index loaded with {} restaurants.", size());
+    }
+
+    @EventListener
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        if (event.getType() == RestaurantChangeEvent.Type.DELETED) {
+            remove(event.getRestaurant().getId());
+        } else {
+            put(event.getRestaurant());
+        }
+    }
+
+    @EventListener
+    public void onRestaurantsCreated(RestaurantsCreatedEvent event) {
+        putAll(event.getRestaurants());
+    }
+
+    /**
+     * Loads the index again from the database, holding the write lock until it's loaded, so the queries don't see a
+     * partial index and the changes published meanwhile are applied after it
+     */
+    @EventListener
+    public void onRestaurantsResync(RestaurantsResyncEvent event) {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(sizes, 0);
+            entries.clear();
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the restaurant to the index, replacing its previous pick-up days and time if already indexed
+     *
+     * @param restaurant the restaurant to index
+     */
+    public void put(Restaurant restaurant) {
+        Long entry = entry(restaurant);
+        if (entry == null) {
+            return;
+        }
+
+        Long id = restaurant.getId();
+        int mask = (int) (entry >>> 32);
+        long slot = slot((int) (entry & 0xFFFFFFFFL), id);
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (DayOfWeekMask.contains(mask, day)) {
+                    insert(day.ordinal(), slot);
+                }
+            }
+            entries.put(id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the restaurants to the index in a single batch, replacing the previous pick-up days and time of the ones
+     * already indexed. The new slots of each day are sorted and merged with the indexed ones in a single pass, instead
+     * of shifting the slots of the day once per restaurant
+     *
+     * @param restaurants the restaurants to index
+     */
+    public void putAll(Collection<Restaurant> restaurants) {
+        // by id, so a restaurant repeated in the batch is indexed once with its last pick-up days and time
+        Map<Long, Long> added = new LinkedHashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            Long entry = entry(restaurant);
+            if (entry != null) {
+                added.put(restaurant.getId(), entry);
+            }
+        }
+
+        long[][] addedSlots = new long[slots.length][added.size()];
+        int[] addedSizes = new int[slots.length];
+        for (Map.Entry<Long, Long> entry : added.entrySet()) {
+            int mask = (int) (entry.getValue() >>> 32);
+            long slot = slot((int) (entry.getValue() & 0xFFFFFFFFL), entry.getKey());
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (DayOfWeekMask.contains(mask, day)) {
+                    addedSlots[day.ordinal()][addedSizes[day.ordinal()]++] = slot;
+                }
+            }
+        }
+        for (int day = 0; day < slots.length; day++) {
+            Arrays.sort(addedSlots[day], 0, addedSizes[day]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            added.keySet().forEach(this::removeEntry);
+            for (int day = 0; day < slots.length; day++) {
+                merge(day, addedSlots[day], addedSizes[day]);
+            }
+            entries.putAll(added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the restaurant from the index
+     *
+     * @param id the id of the restaurant
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the restaurants available for pick-up on the provided day in the provided time window. If {@code to} is
+     * before {@code from} the window goes past midnight and also includes the first hours of the next day
+     *
+     * @param day  the week day of the pick-up
+     * @param from the start of the time window (inclusive)
+     * @param to   the end of the time window (inclusive)
+     * @return the ids of the available restaurants, ordered by pick-up time
+     */
+    public List<Long> find(DayOfWeek day, LocalTime from, LocalTime to) {
+        List<Long> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (from.isAfter(to)) {
+                collect(day.ordinal(), from.toSecondOfDay(), LocalTime.MAX.toSecondOfDay(), ids);
+                collect(day.plus(1).ordinal(), 0, to.toSecondOfDay(), ids);
+            } else {
+                collect(day.ordinal(), from.toSecondOfDay(), to.toSecondOfDay(), ids);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * Scans the pick-ups of the provided day in the provided time window, in order of pick-up time and restaurant id,
+     * without creating any object per pick-up
+     *
+     * @param day      the week day of the pick-ups
+     * @param from     the start of the time window (inclusive)
+     * @param to       the end of the time window (inclusive), not before {@code from}
+     * @param consumer the consumer of the pick-ups, called while the index is locked for reading
+     */
+    public void scan(DayOfWeek day, LocalTime from, LocalTime to, SlotConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            long[] daySlots = slots[day.ordinal()];
+            int size = sizes[day.ordinal()];
+            long last = slot(to.toSecondOfDay(), ID_MASK);
+            for (int i = lowerBound(daySlots, size, slot(from.toSecondOfDay(), 0));
+                 i < size && daySlots[i] <= last; i++) {
+                consumer.accept((int) (daySlots[i] >>> ID_BITS), daySlots[i] & ID_MASK);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed restaurants
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(int day, int fromSecond, int toSecond, List<Long> ids) {
+        long[] daySlots = slots[day];
+        int size = sizes[day];
+        long last = slot(toSecond, ID_MASK);
+        for (int i = lowerBound(daySlots, size, slot(fromSecond, 0)); i < size && daySlots[i] <= last; i++) {
+            ids.add(daySlots[i] & ID_MASK);
+        }
+    }
+
+    private void removeEntry(Long id) {
+        Long entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        int mask = (int) (entry >>> 32);
+        long slot = slot((int) (entry & 0xFFFFFFFFL), id);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (DayOfWeekMask.contains(mask, day)) {
+                delete(day.ordinal(), slot);
+            }
+        }
+    }
+
+    /**
+     * @return the pick-up days mask (higher 32 bits) and second of day (lower 32 bits) of the restaurant, or null if it
+     * can't be indexed
+     */
+    private static Long entry(Restaurant restaurant) {
+        Long id = restaurant.getId();
+        if (id == null || restaurant.getAvailablePickUpDays() == null || restaurant.getPickUpTime() == null) {
+            return null;
+        }
+        if ((id & ~ID_MASK) != 0) {
+            throw new IllegalArgumentException("Restaurant id " + id + " is out of the range supported by the index");
+        }
+        int mask = DayOfWeekMask.toMask(restaurant.getAvailablePickUpDays());
+        return ((long) mask << 32) | restaurant.getPickUpTime().toSecondOfDay();
+    }
+
+    /**
+     * Merges the sorted slots, none of them already indexed, with the slots of the day. The merge goes from the end of
+     * the array, so each slot is moved once
+     */
+    private void merge(int day, long[] added, int addedSize) {
+        if (addedSize == 0) {
+            return;
+        }
+        long[] daySlots = slots[day];
+        int size = sizes[day];
+        int total = size + addedSize;
+        if (total > daySlots.length) {
+            daySlots = Arrays.copyOf(daySlots, Math.max(total, daySlots.length * 2));
+            slots[day] = daySlots;
+        }
+        int indexed = size - 1;
+        int next = addedSize - 1;
+        for (int index = total - 1; next >= 0; index--) {
+            daySlots[index] = indexed >= 0 && daySlots[indexed] > added[next] ? daySlots[indexed--] : added[next--];
+        }
+        sizes[day] = total;
+    }
+
+    private void insert(int day, long slot) {
+        long[] daySlots = slots[day];
+        int size = sizes[day];
+        int index = Arrays.binarySearch(daySlots, 0, size, slot);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (size == daySlots.length) {
+            daySlots = Arrays.copyOf(daySlots, size * 2);
+            slots[day] = daySlots;
+        }
+        System.arraycopy(daySlots, index, daySlots, index + 1, size - index);
+        daySlots[index] = slot;
+        sizes[day] = size + 1;
+    }
+
+    private void delete(int day, long slot) {
+        long[] daySlots = slots[day];
+        int size = sizes[day];
+        int index = Arrays.binarySearch(daySlots, 0, size, slot);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(daySlots, index + 1, daySlots, index, size - index - 1);
+        sizes[day] = size - 1;
+    }
+
+    private static int lowerBound(long[] array, int size, long key) {
+        int index = Arrays.binarySearch(array, 0, size, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static long slot(int secondOfDay, long id) {
+        return ((long) secondOfDay << ID_BITS) | id;
+    }
+
+    /**
+     * Consumer of the pick-ups of a {@link #scan(DayOfWeek, LocalTime, LocalTime, SlotConsumer)}
+     */
+    @FunctionalInterface
+    public interface SlotConsumer {
+
+        /**
+         * @param secondOfDay  the pick-up time of the restaurant, as second of day
+         * @param restaurantId the id of the restaurant
+         */
+        void accept(int secondOfDay, long restaurantId);
+    }
+}
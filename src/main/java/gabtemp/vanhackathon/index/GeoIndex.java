@@ -0,0 +1,410 @@
+package gabtemp.vanhackathon.index;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import gabtemp.vanhackathon.domain.DayOfWeekMask;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In memory spatial index of the located restaurants, used to find the restaurants nearest to a point.
+ * <p>
+ * The surface of the Earth is divided in a grid of cells of the configured size in degrees, and each non empty cell
+ * keeps the ids, coordinates and pick-up days of its restaurants in arrays. The nearest restaurants are found by
+ * visiting the cells in rings of increasing distance around the cell of the point, until the lower bound of the
+ * distance of the next ring is greater than the radius or than the distance of the farthest restaurant found. The
+ * index is loaded on start up and kept up to date by the {@link RestaurantChangeEvent}s, and by the
+ * {@link RestaurantsCreatedEvent}s of the bulk imports, applied in a batch.
+ */
+@Component
+public class GeoIndex {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    private static final double KM_PER_DEGREE = Math.toRadians(GeoPoint.EARTH_RADIUS_KM);
+
+    private final Logger LOG = LoggerFactory.getLogger(GeoIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final double cellDegrees;
+
+    private final int latitudeCells;
+
+    private final int longitudeCells;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    /**
+     * The key of the cell of each indexed restaurant id
+     */
+    private final Map<Long, Long> entries = new HashMap<>();
+
+    @Resource
+    private RestaurantRepository repository;
+
+    public GeoIndex(@Value("${restaurant.geo.cell-degrees:0.005}") double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("Invalid cell size of " + cellDegrees + " degrees");
+        }
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Loads all the located restaurants into the index
+     */
+    @PostConstruct
+    public void load() {
+        LOG.info("Loading the restaurant geo index.");
+        repository.scan(LOAD_PAGE_SIZE, this::put);
+        LOG.info("Restaurant geo index loaded with {} restaurants.", size());
+    }
+
+    @EventListener
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        if (event.getType() == RestaurantChangeEvent.Type.DELETED) {
+            remove(event.getRestaurant().getId());
+        } else {
+            put(event.getRestaurant());
+        }
+    }
+
+    @EventListener
+    public void onRestaurantsCreated(RestaurantsCreatedEvent event) {
+        putAll(event.getRestaurants());
+    }
+
+    /**
+     * Loads the index again from the database, holding the write lock until it's loaded, so the queries don't see a
+     * partial index and the changes published meanwhile are applied after it
+     */
+    @EventListener
+    public void onRestaurantsResync(RestaurantsResyncEvent event) {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            entries.clear();
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the restaurant to the index, replacing its previous location if already indexed. Restaurants without
+     * coordinates are removed from the index
+     *
+     * @param restaurant the restaurant to index
+     */
+    public void put(Restaurant restaurant) {
+        if (restaurant.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            putEntry(restaurant);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the restaurants to the index in a single batch, taking the lock once
+     *
+     * @param restaurants the restaurants to index
+     * @see #put(Restaurant)
+     */
+    public void putAll(Collection<Restaurant> restaurants) {
+        lock.writeLock().lock();
+        try {
+            for (Restaurant restaurant : restaurants) {
+                if (restaurant.getId() != null) {
+                    putEntry(restaurant);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the restaurant from the index
+     *
+     * @param id the id of the restaurant
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the restaurants nearest to the provided point
+     *
+     * @param center   the point
+     * @param radiusKm the maximum distance of the restaurants to the point, in kilometers
+     * @param day      the week day the restaurants must be available for pick-up, or null for any day
+     * @param limit    the maximum number of restaurants to find
+     * @return the ids of the restaurants, ordered by distance to the point
+     */
+    public List<Long> findNearest(GeoPoint center, double radiusKm, DayOfWeek day, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit of restaurants to find must be positive");
+        }
+        Nearest nearest = new Nearest(center, radiusKm, day == null ? 0 : DayOfWeekMask.bit(day), limit);
+        int centerLatitude = latitudeIndex(center.getLatitude());
+        int centerLongitude = longitudeIndex(center.getLongitude());
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; 2 * ring + 1 <= longitudeCells; ring++) {
+                if (ringLowerBound(center.getLatitude(), ring) > nearest.maxDistance()) {
+                    break;
+                }
+                if ((long) (2 * ring + 1) * (2 * ring + 1) > cells.size()) {
+                    // the ring has more cells than the index, visit the remaining non empty cells instead
+                    scanRemaining(nearest, centerLatitude, centerLongitude, ring);
+                    break;
+                }
+                scanRing(nearest, centerLatitude, centerLongitude, ring);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return nearest.ids();
+    }
+
+    /**
+     * @return the number of indexed restaurants
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scanRing(Nearest nearest, int centerLatitude, int centerLongitude, int ring) {
+        for (int latitude = centerLatitude - ring; latitude <= centerLatitude + ring; latitude++) {
+            if (latitude < 0 || latitude >= latitudeCells) {
+                continue;
+            }
+            boolean edge = latitude == centerLatitude - ring || latitude == centerLatitude + ring;
+            int step = edge || ring == 0 ? 1 : 2 * ring;
+            for (int longitude = centerLongitude - ring; longitude <= centerLongitude + ring; longitude += step) {
+                Cell cell = cells.get(key(latitude, Math.floorMod(longitude, longitudeCells)));
+                if (cell != null) {
+                    cell.collect(nearest);
+                }
+            }
+        }
+    }
+
+    private void scanRemaining(Nearest nearest, int centerLatitude, int centerLongitude, int fromRing) {
+        for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+            int latitude = (int) (entry.getKey() / longitudeCells);
+            int longitude = (int) (entry.getKey() % longitudeCells);
+            int longitudeDistance = Math.abs(longitude - centerLongitude);
+            longitudeDistance = Math.min(longitudeDistance, longitudeCells - longitudeDistance);
+            int ring = Math.max(Math.abs(latitude - centerLatitude), longitudeDistance);
+            if (ring >= fromRing && ringLowerBound(nearest.center.getLatitude(), ring) <= nearest.maxDistance()) {
+                entry.getValue().collect(nearest);
+            }
+        }
+    }
+
+    /**
+     * Lower bound of the distance from a point to the cells of a ring. The cells of a ring are at least one cell less
+     * than the ring apart in latitude or in longitude, as the point can be anywhere in the center cell. The longitude
+     * bound uses the haversine formula at the highest latitude of the ring, where the meridians are closest
+     */
+    private double ringLowerBound(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double degrees = (ring - 1) * cellDegrees;
+        double latitudeBound = GeoPoint.EARTH_RADIUS_KM * Math.toRadians(degrees);
+        double highestLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * cellDegrees);
+        double longitudeBound = 2 * GeoPoint.EARTH_RADIUS_KM * Math.asin(Math.min(1,
+                Math.cos(Math.toRadians(highestLatitude)) * Math.sin(Math.toRadians(Math.min(180, degrees)) / 2)));
+        return Math.min(latitudeBound, longitudeBound);
+    }
+
+    private void putEntry(Restaurant restaurant) {
+        Long id = restaurant.getId();
+        removeEntry(id);
+        if (restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+            return;
+        }
+        double latitude = restaurant.getLatitude();
+        double longitude = restaurant.getLongitude();
+        int mask = restaurant.getAvailablePickUpDays() == null ? 0 :
+                DayOfWeekMask.toMask(restaurant.getAvailablePickUpDays());
+        long key = key(latitudeIndex(latitude), longitudeIndex(longitude));
+        cells.computeIfAbsent(key, k -> new Cell()).add(id, latitude, longitude, (byte) mask);
+        entries.put(id, key);
+    }
+
+    private void removeEntry(Long id) {
+        Long key = entries.remove(id);
+        if (key == null) {
+            return;
+        }
+        Cell cell = cells.get(key);
+        if (cell.remove(id) && cell.size == 0) {
+            cells.remove(key);
+        }
+    }
+
+    private int latitudeIndex(double latitude) {
+        return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int longitudeIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private long key(int latitudeIndex, int longitudeIndex) {
+        return (long) latitudeIndex * longitudeCells + longitudeIndex;
+    }
+
+    /**
+     * The restaurants of a cell of the grid
+     */
+    private static class Cell {
+
+        private long[] ids = new long[INITIAL_CELL_CAPACITY];
+
+        private double[] latitudes = new double[INITIAL_CELL_CAPACITY];
+
+        private double[] longitudes = new double[INITIAL_CELL_CAPACITY];
+
+        private byte[] masks = new byte[INITIAL_CELL_CAPACITY];
+
+        private int size;
+
+        void add(long id, double latitude, double longitude, byte mask) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+                masks = Arrays.copyOf(masks, size * 2);
+            }
+            ids[size] = id;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            masks[size] = mask;
+            size++;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    latitudes[i] = latitudes[size];
+                    longitudes[i] = longitudes[size];
+                    masks[i] = masks[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void collect(Nearest nearest) {
+            for (int i = 0; i < size; i++) {
+                if (nearest.dayBit == 0 || (masks[i] & nearest.dayBit) != 0) {
+                    nearest.offer(ids[i], latitudes[i], longitudes[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The nearest restaurants found so far by a query, kept sorted by distance
+     */
+    private static class Nearest {
+
+        private final GeoPoint center;
+
+        private final double radiusKm;
+
+        private final int dayBit;
+
+        private final long[] ids;
+
+        private final double[] distances;
+
+        private int size;
+
+        Nearest(GeoPoint center, double radiusKm, int dayBit, int limit) {
+            this.center = center;
+            this.radiusKm = radiusKm;
+            this.dayBit = dayBit;
+            this.ids = new long[limit];
+            this.distances = new double[limit];
+        }
+
+        /**
+         * @return the maximum distance of the restaurants that can still be found, the radius or the distance of the
+         * farthest restaurant found once the limit is reached
+         */
+        double maxDistance() {
+            return size == ids.length ? Math.min(radiusKm, distances[size - 1]) : radiusKm;
+        }
+
+        void offer(long id, double latitude, double longitude) {
+            // the latitude difference alone is a lower bound of the distance, much cheaper than the haversine formula
+            if (Math.abs(latitude - center.getLatitude()) * KM_PER_DEGREE > maxDistance()) {
+                return;
+            }
+            double distance = GeoPoint.distanceKm(center.getLatitude(), center.getLongitude(), latitude, longitude);
+            if (distance > maxDistance() || (size == ids.length && distance >= distances[size - 1])) {
+                return;
+            }
+            int index = size == ids.length ? size - 1 : size++;
+            while (index > 0 && distances[index - 1] > distance) {
+                ids[index] = ids[index - 1];
+                distances[index] = distances[index - 1];
+                index--;
+            }
+            ids[index] = id;
+            distances[index] = distance;
+        }
+
+        List<Long> ids() {
+            List<Long> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(ids[i]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gabtemp.vanhackathon.index;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A pick-up of the weekly schedule on a given date
+ */
+public class ScheduledPickUp {
+
+    private final LocalDate date;
+
+    private final LocalTime pickUpTime;
+
+    private final long restaurantId;
+
+    public ScheduledPickUp(LocalDate date, LocalTime pickUpTime, long restaurantId) {
+        this.date = date;
+        this.pickUpTime = pickUpTime;
+        this.restaurantId = restaurantId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public DayOfWeek getDay() {
+        return date.getDayOfWeek();
+    }
+
+    public LocalTime getPickUpTime() {
+        return pickUpTime;
+    }
+
+    public long getRestaurantId() {
+        return restaurantId;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("date", date)
+                          .add("pickUpTime", pickUpTime)
+                          .add("restaurantId", restaurantId)
+                          .toString();
+    }
+}
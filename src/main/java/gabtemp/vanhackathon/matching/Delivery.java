@@ -0,0 +1,88 @@
+package gabtemp.vanhackathon.matching;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The delivery of the leftovers of a restaurant, picked up on a week day, to the shelter matched by the
+ * {@link MatchingEngine}
+ */
+public class Delivery {
+
+    private final long restaurantId;
+
+    private final long shelterId;
+
+    private final DayOfWeek pickUpDay;
+
+    private final LocalTime pickUpTime;
+
+    private final DayOfWeek deliveryDay;
+
+    private final LocalTime deliveryTime;
+
+    private final double distanceKm;
+
+    Delivery(long restaurantId, long shelterId, DayOfWeek pickUpDay, LocalTime pickUpTime, DayOfWeek deliveryDay,
+            LocalTime deliveryTime, double distanceKm) {
+        this.restaurantId = restaurantId;
+        this.shelterId = shelterId;
+        this.pickUpDay = pickUpDay;
+        this.pickUpTime = pickUpTime;
+        this.deliveryDay = deliveryDay;
+        this.deliveryTime = deliveryTime;
+        this.distanceKm = distanceKm;
+    }
+
+    public long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public long getShelterId() {
+        return shelterId;
+    }
+
+    public DayOfWeek getPickUpDay() {
+        return pickUpDay;
+    }
+
+    public LocalTime getPickUpTime() {
+        return pickUpTime;
+    }
+
+    /**
+     * @return the week day of the delivery, the day after the pick-up day if delivered past midnight
+     */
+    public DayOfWeek getDeliveryDay() {
+        return deliveryDay;
+    }
+
+    /**
+     * @return the time of the delivery, after the travel from the restaurant and the wait for the shelter to open
+     */
+    public LocalTime getDeliveryTime() {
+        return deliveryTime;
+    }
+
+    /**
+     * @return the distance in kilometers from the restaurant to the shelter
+     */
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("restaurantId", restaurantId)
+                          .add("shelterId", shelterId)
+                          .add("pickUpDay", pickUpDay)
+                          .add("pickUpTime", pickUpTime)
+                          .add("deliveryDay", deliveryDay)
+                          .add("deliveryTime", deliveryTime)
+                          .add("distanceKm", distanceKm)
+                          .toString();
+    }
+}
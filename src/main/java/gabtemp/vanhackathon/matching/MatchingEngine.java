@@ -0,0 +1,924 @@
+package gabtemp.vanhackathon.matching;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import gabtemp.vanhackathon.domain.DayOfWeekMask;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.event.ShelterChangeEvent;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import gabtemp.vanhackathon.repository.ShelterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Matches the leftover pick-ups of the restaurants, on each of their pick-up days, to the shelters that receive them.
+ * <p>
+ * A pick-up can be delivered to any of the nearest shelters within the maximum distance that is open when the courier
+ * arrives, or opens within the maximum wait, on one of its receiving days. Each shelter receives up to its capacity of
+ * deliveries per receiving day. Pick-ups and shelters both prefer the nearest ones, and the matching is kept stable:
+ * no pick-up is left out of, or matched farther than, a shelter that has room for it or that has a farther pick-up.
+ * <p>
+ * The matching is kept incrementally, in the way of the deferred acceptance algorithm. A new pick-up is proposed to its
+ * shelters from the nearest one until a shelter with room, or with a farther pick-up that is then bumped and proposed
+ * to its next shelters, accepts it. Each shelter remembers the pick-ups it rejected, and when it has room again the
+ * nearest of them moves in, leaving room in its previous shelter. So a change only touches the pick-ups and shelters
+ * whose matching changes, and changes of the pick-up time or of the capacity that keep the shelters a pick-up can be
+ * delivered to are applied in place. Other shelter changes also scan the restaurants to update their candidate
+ * shelters, as shelters are few and change rarely. The engine is loaded on start up and kept up to date by the
+ * {@link RestaurantChangeEvent}s and the {@link ShelterChangeEvent}s. The restaurants of a bulk import, published as a
+ * {@link RestaurantsCreatedEvent}, are proposed together and settled once.
+ */
+@Component
+public class MatchingEngine {
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private static final Comparator<Claim> NEAREST_FIRST = Comparator.<Claim>comparingDouble(claim -> claim.distanceKm)
+            .thenComparingLong(claim -> claim.restaurant.id)
+            .thenComparingInt(claim -> claim.day);
+
+    private final Logger LOG = LoggerFactory.getLogger(MatchingEngine.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final double secondsPerKm;
+
+    private final double maxDistanceKm;
+
+    private final int maxWaitSeconds;
+
+    private final int candidates;
+
+    private final Map<Long, RestaurantNode> restaurants = new HashMap<>();
+
+    private final Map<Long, ShelterNode> shelters = new HashMap<>();
+
+    /**
+     * Pick-ups left without shelter by the current change, to be proposed to their next shelters
+     */
+    private final Deque<Proposal> proposals = new ArrayDeque<>();
+
+    /**
+     * Shelters and receiving days with room left by the current change, to be filled with the pick-ups they rejected
+     */
+    private final Deque<Vacancy> vacancies = new ArrayDeque<>();
+
+    @Resource
+    private RestaurantRepository restaurantRepository;
+
+    @Resource
+    private ShelterRepository shelterRepository;
+
+    /**
+     * @param speedKmh      the average speed of the couriers, in kilometers per hour
+     * @param maxDistanceKm the maximum distance from a restaurant to a shelter, in kilometers
+     * @param maxWaitMinutes the maximum time a courier waits for a shelter to open, in minutes
+     * @param candidates    the number of nearest shelters a restaurant can be matched to
+     */
+    public MatchingEngine(@Value("${restaurant.matching.speed-kmh:25}") double speedKmh,
+            @Value("${restaurant.matching.max-distance-km:10}") double maxDistanceKm,
+            @Value("${restaurant.matching.max-wait-minutes:30}") int maxWaitMinutes,
+            @Value("${restaurant.matching.candidates:5}") int candidates) {
+        if (speedKmh <= 0 || maxDistanceKm <= 0 || maxWaitMinutes < 0 || candidates <= 0) {
+            throw new IllegalArgumentException("Invalid matching parameters: speed of " + speedKmh + " km/h, " +
+                    "distance of " + maxDistanceKm + " km, wait of " + maxWaitMinutes + " minutes and " + candidates +
+                    " candidates");
+        }
+        this.secondsPerKm = 3600 / speedKmh;
+        this.maxDistanceKm = maxDistanceKm;
+        this.maxWaitSeconds = maxWaitMinutes * 60;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Loads all the registered shelters and restaurants into the engine
+     */
+    @PostConstruct
+    public void load() {
+        LOG.info("Loading the leftovers matching engine.");
+        shelterRepository.findAllByOrderByIdAsc().forEach(this::put);
+        restaurantRepository.scan(LOAD_PAGE_SIZE, this::put);
+        LOG.info("Leftovers matching engine loaded with {} shelters and {} restaurants.", shelters.size(),
+                restaurants.size());
+    }
+
+    @EventListener
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        if (event.getType() == RestaurantChangeEvent.Type.DELETED) {
+            removeRestaurant(event.getRestaurant().getId());
+        } else {
+            put(event.getRestaurant());
+        }
+    }
+
+    @EventListener
+    public void onRestaurantsCreated(RestaurantsCreatedEvent event) {
+        putAll(event.getRestaurants());
+    }
+
+    /**
+     * Matches again all the shelters and restaurants of the database, removing the ones no longer registered, and
+     * settles the matching of the restaurants once. The unchanged shelters and restaurants keep their matches. The write
+     * lock is held until the end, so the changes published meanwhile are applied after it
+     */
+    @EventListener
+    public void onRestaurantsResync(RestaurantsResyncEvent event) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> registeredShelters = new HashSet<>();
+            shelterRepository.findAllByOrderByIdAsc().forEach(shelter -> {
+                registeredShelters.add(shelter.getId());
+                put(shelter);
+            });
+            new ArrayList<>(shelters.keySet()).stream().filter(id -> !registeredShelters.contains(id))
+                                              .forEach(this::removeShelterNode);
+            settle();
+
+            Set<Long> registered = new HashSet<>();
+            restaurantRepository.scan(LOAD_PAGE_SIZE, restaurant -> {
+                if (restaurant.getId() != null) {
+                    registered.add(restaurant.getId());
+                    putRestaurantNode(restaurant);
+                }
+            });
+            new ArrayList<>(restaurants.keySet()).stream().filter(id -> !registered.contains(id))
+                                                 .forEach(this::removeRestaurantNode);
+            settle();
+            LOG.info("Leftovers matching engine resynced with {} shelters and {} restaurants.", shelters.size(),
+                    restaurants.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onShelterChange(ShelterChangeEvent event) {
+        if (event.getType() == ShelterChangeEvent.Type.DELETED) {
+            removeShelter(event.getShelter().getId());
+        } else {
+            put(event.getShelter());
+        }
+    }
+
+    /**
+     * Matches the pick-ups of the restaurant, replacing its previous ones. Restaurants without coordinates are removed
+     *
+     * @param restaurant the restaurant to match
+     */
+    public void put(Restaurant restaurant) {
+        if (restaurant.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            putRestaurantNode(restaurant);
+            settle();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Matches the pick-ups of the restaurants in a single batch, replacing their previous ones. All the pick-ups are
+     * proposed before settling the matching once, which gives the same stable matching as one restaurant at a time
+     *
+     * @param restaurants the restaurants to match
+     */
+    public void putAll(Collection<Restaurant> restaurants) {
+        // by id, so a restaurant repeated in the batch is matched once with its last values
+        Map<Long, Restaurant> batch = new LinkedHashMap<>();
+        restaurants.stream().filter(restaurant -> restaurant.getId() != null)
+                   .forEach(restaurant -> batch.put(restaurant.getId(), restaurant));
+        lock.writeLock().lock();
+        try {
+            batch.values().forEach(this::putRestaurantNode);
+            settle();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the pick-ups of the restaurant, matching the pick-ups waiting for the shelters it leaves
+     *
+     * @param id the id of the restaurant
+     */
+    public void removeRestaurant(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeRestaurantNode(id);
+            settle();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the shelter to the matching, replacing its previous location, capacity and receiving times. Shelters without
+     * coordinates are removed
+     *
+     * @param shelter the shelter to add
+     */
+    public void put(Shelter shelter) {
+        Long id = shelter.getId();
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            boolean matchable = shelter.getLatitude() != null && shelter.getLongitude() != null &&
+                    shelter.getCapacity() != null && shelter.getCapacity() >= 0 && shelter.getReceivingDays() != null &&
+                    shelter.getOpenTime() != null && shelter.getCloseTime() != null;
+            ShelterNode existing = shelters.get(id);
+            if (matchable && existing != null && existing.latitude == shelter.getLatitude() &&
+                    existing.longitude == shelter.getLongitude() &&
+                    existing.mask == DayOfWeekMask.toMask(shelter.getReceivingDays()) &&
+                    existing.openSecond == shelter.getOpenTime().toSecondOfDay() &&
+                    existing.closeSecond == shelter.getCloseTime().toSecondOfDay()) {
+                resize(existing, shelter.getCapacity());
+            } else {
+                removeShelterNode(id);
+                settle();
+                if (matchable) {
+                    addShelterNode(new ShelterNode(id, shelter.getLatitude(), shelter.getLongitude(),
+                            shelter.getCapacity(), DayOfWeekMask.toMask(shelter.getReceivingDays()),
+                            shelter.getOpenTime().toSecondOfDay(), shelter.getCloseTime().toSecondOfDay()));
+                }
+            }
+            settle();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the shelter from the matching, matching its pick-ups to their next shelters
+     *
+     * @param id the id of the shelter
+     */
+    public void removeShelter(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeShelterNode(id);
+            settle();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the deliveries received by the shelter on the provided receiving day
+     *
+     * @param shelterId the id of the shelter
+     * @param day       the receiving day. Deliveries made past midnight of a shelter open past midnight are included
+     * @return the deliveries ordered by delivery time, or an empty optional if the shelter isn't matched
+     */
+    public Optional<List<Delivery>> findDeliveries(Long shelterId, DayOfWeek day) {
+        lock.readLock().lock();
+        try {
+            ShelterNode shelter = shelters.get(shelterId);
+            if (shelter == null) {
+                return Optional.empty();
+            }
+            List<Delivery> deliveries = new ArrayList<>(shelter.assigned[day.ordinal()].size());
+            shelter.assigned[day.ordinal()].stream()
+                                           .sorted(Comparator.comparingInt(claim -> claim.deliverySecond))
+                                           .forEach(claim -> deliveries.add(delivery(claim)));
+            return Optional.of(deliveries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the delivery of the leftovers picked up from the restaurant on the provided day
+     *
+     * @param restaurantId the id of the restaurant
+     * @param day          the pick-up day
+     * @return the delivery, or an empty optional if the restaurant has no pick-up matched on that day
+     */
+    public Optional<Delivery> findDelivery(Long restaurantId, DayOfWeek day) {
+        lock.readLock().lock();
+        try {
+            RestaurantNode restaurant = restaurants.get(restaurantId);
+            return restaurant == null ? Optional.empty() :
+                    Optional.ofNullable(restaurant.claims[day.ordinal()]).map(this::delivery);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the pick-ups of the restaurant to the provided time, in place, if the shelters that can receive each
+     * pick-up, and on which receiving day, don't change. Otherwise the restaurant must be matched again
+     *
+     * @return true if the pick-ups were moved
+     */
+    private boolean reclaim(RestaurantNode restaurant, int pickUpSecond) {
+        if (restaurant.pickUpSecond == pickUpSecond) {
+            return true;
+        }
+        int previousSecond = restaurant.pickUpSecond;
+        Claim[][] previous = new Claim[DAYS.length][];
+        for (int day = 0; day < DAYS.length; day++) {
+            if ((restaurant.mask & (1 << day)) == 0) {
+                continue;
+            }
+            previous[day] = new Claim[restaurant.candidates.length];
+            for (int index = 0; index < restaurant.candidates.length; index++) {
+                previous[day][index] = claim(restaurant, day, restaurant.candidates[index]);
+            }
+        }
+
+        restaurant.pickUpSecond = pickUpSecond;
+        Claim[][] moved = new Claim[DAYS.length][];
+        for (int day = 0; day < DAYS.length; day++) {
+            if (previous[day] == null) {
+                continue;
+            }
+            moved[day] = new Claim[restaurant.candidates.length];
+            for (int index = 0; index < restaurant.candidates.length; index++) {
+                Claim claim = claim(restaurant, day, restaurant.candidates[index]);
+                Claim before = previous[day][index];
+                if ((claim == null) != (before == null) || claim != null && claim.receivingDay != before.receivingDay) {
+                    restaurant.pickUpSecond = previousSecond;
+                    return false;
+                }
+                moved[day][index] = claim;
+            }
+        }
+
+        // same order and same sets, only the delivery times change
+        for (int day = 0; day < DAYS.length; day++) {
+            if (moved[day] == null) {
+                continue;
+            }
+            Claim current = restaurant.claims[day];
+            for (Claim claim : moved[day]) {
+                if (claim == null) {
+                    continue;
+                }
+                if (current != null && current.shelter == claim.shelter) {
+                    TreeSet<Claim> assigned = claim.shelter.assigned[claim.receivingDay];
+                    assigned.remove(current);
+                    assigned.add(claim);
+                    restaurant.claims[day] = claim;
+                } else if (claim.shelter.waiting[claim.receivingDay].remove(claim)) {
+                    claim.shelter.waiting[claim.receivingDay].add(claim);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Changes the capacity of the shelter in place, filling its new room or bumping its farthest pick-ups
+     */
+    private void resize(ShelterNode shelter, int capacity) {
+        shelter.capacity = capacity;
+        for (int day = 0; day < DAYS.length; day++) {
+            TreeSet<Claim> assigned = shelter.assigned[day];
+            while (assigned.size() > capacity) {
+                Claim bumped = assigned.pollLast();
+                RestaurantNode restaurant = bumped.restaurant;
+                restaurant.claims[bumped.day] = null;
+                shelter.waiting[day].add(bumped);
+                proposals.add(new Proposal(restaurant, bumped.day, indexOf(restaurant.candidates, shelter) + 1));
+            }
+            if (assigned.size() < capacity) {
+                vacancies.add(new Vacancy(shelter, day));
+            }
+        }
+    }
+
+    /**
+     * Replaces the pick-ups of the restaurant, moving them in place if possible or queueing their proposals otherwise.
+     * The matching must be settled afterwards
+     */
+    private void putRestaurantNode(Restaurant restaurant) {
+        Long id = restaurant.getId();
+        boolean matchable = restaurant.getLatitude() != null && restaurant.getLongitude() != null &&
+                restaurant.getAvailablePickUpDays() != null && restaurant.getPickUpTime() != null;
+        RestaurantNode existing = restaurants.get(id);
+        if (matchable && existing != null && existing.latitude == restaurant.getLatitude() &&
+                existing.longitude == restaurant.getLongitude() &&
+                existing.mask == DayOfWeekMask.toMask(restaurant.getAvailablePickUpDays()) &&
+                reclaim(existing, restaurant.getPickUpTime().toSecondOfDay())) {
+            return;
+        }
+        removeRestaurantNode(id);
+        if (matchable) {
+            RestaurantNode node = new RestaurantNode(id, restaurant.getLatitude(), restaurant.getLongitude(),
+                    DayOfWeekMask.toMask(restaurant.getAvailablePickUpDays()),
+                    restaurant.getPickUpTime().toSecondOfDay());
+            node.candidates = nearestShelters(node);
+            restaurants.put(id, node);
+            for (int day = 0; day < DAYS.length; day++) {
+                if ((node.mask & (1 << day)) != 0) {
+                    proposals.add(new Proposal(node, day, 0));
+                }
+            }
+        }
+    }
+
+    private void removeRestaurantNode(Long id) {
+        RestaurantNode node = restaurants.remove(id);
+        if (node == null) {
+            return;
+        }
+        for (int day = 0; day < DAYS.length; day++) {
+            if ((node.mask & (1 << day)) == 0) {
+                continue;
+            }
+            Claim current = node.claims[day];
+            if (current == null) {
+                withdraw(node, day, 0, node.candidates.length);
+            } else {
+                release(current);
+                withdraw(node, day, 0, indexOf(node.candidates, current.shelter));
+            }
+        }
+    }
+
+    private void addShelterNode(ShelterNode shelter) {
+        shelters.put(shelter.id, shelter);
+        List<Offer> offers = new ArrayList<>();
+        for (RestaurantNode restaurant : restaurants.values()) {
+            double distanceKm = distanceKm(restaurant, shelter);
+            if (distanceKm > maxDistanceKm) {
+                continue;
+            }
+            Candidate candidate = new Candidate(shelter, distanceKm, travelSeconds(distanceKm));
+            Candidate[] updated = Arrays.copyOf(restaurant.candidates, restaurant.candidates.length + 1);
+            updated[restaurant.candidates.length] = candidate;
+            Arrays.sort(updated, Candidate.NEAREST_FIRST);
+            if (updated.length > candidates) {
+                if (updated[candidates] == candidate) {
+                    continue;
+                }
+                // the farthest shelter is no longer a candidate, its pick-up is proposed to the new shelter below
+                Candidate dropped = updated[candidates];
+                updated = Arrays.copyOf(updated, candidates);
+                dropCandidate(restaurant, dropped, updated);
+            } else {
+                restaurant.candidates = updated;
+            }
+            offers.add(new Offer(restaurant, distanceKm));
+        }
+
+        // the nearest restaurants first, so farther ones are bumped less often
+        offers.sort(Comparator.comparingDouble(offer -> offer.distanceKm));
+        for (Offer offer : offers) {
+            RestaurantNode restaurant = offer.restaurant;
+            int index = indexOf(restaurant.candidates, shelter);
+            for (int day = 0; day < DAYS.length; day++) {
+                if ((restaurant.mask & (1 << day)) == 0) {
+                    continue;
+                }
+                Claim current = restaurant.claims[day];
+                if (current != null && indexOf(restaurant.candidates, current.shelter) < index) {
+                    continue;
+                }
+                Claim claim = claim(restaurant, day, restaurant.candidates[index]);
+                if (claim != null && offer(claim)) {
+                    accept(claim, index);
+                }
+            }
+        }
+    }
+
+    private void removeShelterNode(Long id) {
+        ShelterNode shelter = shelters.remove(id);
+        if (shelter == null) {
+            return;
+        }
+        for (RestaurantNode restaurant : restaurants.values()) {
+            int index = indexOf(restaurant.candidates, shelter);
+            if (index < 0) {
+                continue;
+            }
+            if (restaurant.candidates.length == candidates) {
+                // the next nearest shelter, if any, becomes a candidate after the remaining ones
+                restaurant.candidates = nearestShelters(restaurant);
+            } else {
+                Candidate[] updated = new Candidate[restaurant.candidates.length - 1];
+                System.arraycopy(restaurant.candidates, 0, updated, 0, index);
+                System.arraycopy(restaurant.candidates, index + 1, updated, index, updated.length - index);
+                restaurant.candidates = updated;
+            }
+            for (int day = 0; day < DAYS.length; day++) {
+                if ((restaurant.mask & (1 << day)) == 0) {
+                    continue;
+                }
+                Claim current = restaurant.claims[day];
+                if (current != null && current.shelter == shelter) {
+                    restaurant.claims[day] = null;
+                    current = null;
+                }
+                if (current == null) {
+                    proposals.add(new Proposal(restaurant, day, index));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the candidates of the restaurant by the provided ones, without the dropped shelter. The pick-ups matched
+     * to the dropped shelter are released, and the ones waiting for it no longer wait. The released pick-ups are still
+     * waiting for the nearer shelters, so they are only offered to the new shelter
+     */
+    private void dropCandidate(RestaurantNode restaurant, Candidate dropped, Candidate[] updated) {
+        for (int day = 0; day < DAYS.length; day++) {
+            if ((restaurant.mask & (1 << day)) == 0) {
+                continue;
+            }
+            Claim claim = claim(restaurant, day, dropped);
+            if (claim == null) {
+                continue;
+            }
+            Claim current = restaurant.claims[day];
+            if (current != null && current.shelter == dropped.shelter) {
+                release(current);
+                restaurant.claims[day] = null;
+            } else {
+                dropped.shelter.waiting[claim.receivingDay].remove(claim);
+            }
+        }
+        restaurant.candidates = updated;
+    }
+
+    /**
+     * Processes the pending vacancies and proposals until the matching is stable again. The vacancies go first, so the
+     * room of a shelter is taken by the pick-ups waiting for it before any new proposal
+     */
+    private void settle() {
+        while (!proposals.isEmpty() || !vacancies.isEmpty()) {
+            Vacancy vacancy = vacancies.poll();
+            if (vacancy != null) {
+                fill(vacancy.shelter, vacancy.receivingDay);
+            } else {
+                Proposal proposal = proposals.poll();
+                propose(proposal.restaurant, proposal.day, proposal.from);
+            }
+        }
+    }
+
+    /**
+     * Proposes the pick-up to the candidate shelters of the restaurant, from the provided one, until one accepts it
+     */
+    private void propose(RestaurantNode restaurant, int day, int from) {
+        if (restaurants.get(restaurant.id) != restaurant || restaurant.claims[day] != null) {
+            return;
+        }
+        for (int index = from; index < restaurant.candidates.length; index++) {
+            Claim claim = claim(restaurant, day, restaurant.candidates[index]);
+            if (claim != null && offer(claim)) {
+                accept(claim, index);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Offers the pick-up to the shelter, that accepts it if it has room or if it has a farther pick-up, which is then
+     * bumped and proposed to its next shelters. Otherwise the pick-up waits for room in the shelter
+     *
+     * @return true if the shelter accepted the pick-up
+     */
+    private boolean offer(Claim claim) {
+        ShelterNode shelter = claim.shelter;
+        TreeSet<Claim> assigned = shelter.assigned[claim.receivingDay];
+        if (assigned.size() >= shelter.capacity) {
+            if (assigned.isEmpty() || NEAREST_FIRST.compare(assigned.last(), claim) < 0) {
+                shelter.waiting[claim.receivingDay].add(claim);
+                return false;
+            }
+            Claim bumped = assigned.pollLast();
+            RestaurantNode restaurant = bumped.restaurant;
+            restaurant.claims[bumped.day] = null;
+            shelter.waiting[bumped.receivingDay].add(bumped);
+            proposals.add(new Proposal(restaurant, bumped.day, indexOf(restaurant.candidates, shelter) + 1));
+        }
+        assigned.add(claim);
+        return true;
+    }
+
+    /**
+     * Records the accepted claim as the match of the pick-up, releasing its previous shelter if any. The pick-up no
+     * longer waits for the shelters after the accepted one
+     */
+    private void accept(Claim claim, int index) {
+        RestaurantNode restaurant = claim.restaurant;
+        Claim current = restaurant.claims[claim.day];
+        if (current != null) {
+            release(current);
+            withdraw(restaurant, claim.day, index + 1, indexOf(restaurant.candidates, current.shelter));
+        } else {
+            withdraw(restaurant, claim.day, index + 1, restaurant.candidates.length);
+        }
+        restaurant.claims[claim.day] = claim;
+    }
+
+    /**
+     * Fills the room of the shelter with the nearest pick-ups waiting for it
+     */
+    private void fill(ShelterNode shelter, int receivingDay) {
+        if (shelters.get(shelter.id) != shelter) {
+            return;
+        }
+        TreeSet<Claim> assigned = shelter.assigned[receivingDay];
+        TreeSet<Claim> waiting = shelter.waiting[receivingDay];
+        while (assigned.size() < shelter.capacity && !waiting.isEmpty()) {
+            Claim claim = waiting.pollFirst();
+            if (restaurants.get(claim.restaurant.id) != claim.restaurant) {
+                continue;
+            }
+            assigned.add(claim);
+            accept(claim, indexOf(claim.restaurant.candidates, shelter));
+        }
+    }
+
+    private void release(Claim claim) {
+        claim.shelter.assigned[claim.receivingDay].remove(claim);
+        vacancies.add(new Vacancy(claim.shelter, claim.receivingDay));
+    }
+
+    /**
+     * Removes the pick-up from the waiting lists of the candidate shelters in the provided range
+     */
+    private void withdraw(RestaurantNode restaurant, int day, int from, int to) {
+        int end = to < 0 ? restaurant.candidates.length : Math.min(to, restaurant.candidates.length);
+        for (int index = from; index < end; index++) {
+            Claim claim = claim(restaurant, day, restaurant.candidates[index]);
+            if (claim != null) {
+                claim.shelter.waiting[claim.receivingDay].remove(claim);
+            }
+        }
+    }
+
+    /**
+     * Creates the claim of the pick-up to the candidate shelter, delivered on the first receiving window of the shelter
+     * that is open when the courier arrives or that opens within the maximum wait
+     *
+     * @return the claim, or null if the shelter can't receive the pick-up
+     */
+    private Claim claim(RestaurantNode restaurant, int day, Candidate candidate) {
+        ShelterNode shelter = candidate.shelter;
+        int arrival = restaurant.pickUpSecond + candidate.travelSeconds;
+        int length = shelter.closeSecond > shelter.openSecond ? shelter.closeSecond - shelter.openSecond :
+                shelter.closeSecond - shelter.openSecond + SECONDS_PER_DAY;
+        for (int offset = -1; offset <= 1; offset++) {
+            int receivingDay = Math.floorMod(day + offset, DAYS.length);
+            if ((shelter.mask & (1 << receivingDay)) == 0) {
+                continue;
+            }
+            int open = offset * SECONDS_PER_DAY + shelter.openSecond;
+            if (arrival <= open + length && open - arrival <= maxWaitSeconds) {
+                return new Claim(restaurant, day, shelter, receivingDay, candidate.distanceKm,
+                        Math.max(arrival, open));
+            }
+        }
+        return null;
+    }
+
+    private Candidate[] nearestShelters(RestaurantNode restaurant) {
+        List<Candidate> nearest = new ArrayList<>();
+        for (ShelterNode shelter : shelters.values()) {
+            double distanceKm = distanceKm(restaurant, shelter);
+            if (distanceKm <= maxDistanceKm) {
+                nearest.add(new Candidate(shelter, distanceKm, travelSeconds(distanceKm)));
+            }
+        }
+        nearest.sort(Candidate.NEAREST_FIRST);
+        return nearest.subList(0, Math.min(candidates, nearest.size())).toArray(new Candidate[0]);
+    }
+
+    private Delivery delivery(Claim claim) {
+        DayOfWeek pickUpDay = DAYS[claim.day];
+        return new Delivery(claim.restaurant.id, claim.shelter.id, pickUpDay,
+                LocalTime.ofSecondOfDay(claim.restaurant.pickUpSecond),
+                pickUpDay.plus(Math.floorDiv(claim.deliverySecond, SECONDS_PER_DAY)),
+                LocalTime.ofSecondOfDay(Math.floorMod(claim.deliverySecond, SECONDS_PER_DAY)), claim.distanceKm);
+    }
+
+    private int travelSeconds(double distanceKm) {
+        return (int) Math.ceil(distanceKm * secondsPerKm);
+    }
+
+    private static double distanceKm(RestaurantNode restaurant, ShelterNode shelter) {
+        return GeoPoint.distanceKm(restaurant.latitude, restaurant.longitude, shelter.latitude, shelter.longitude);
+    }
+
+    private static int indexOf(Candidate[] candidates, ShelterNode shelter) {
+        for (int index = 0; index < candidates.length; index++) {
+            if (candidates[index].shelter == shelter) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static final class RestaurantNode {
+
+        private final long id;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        private final int mask;
+
+        private int pickUpSecond;
+
+        /**
+         * The shelters the restaurant can be matched to, nearest first
+         */
+        private Candidate[] candidates;
+
+        /**
+         * The matched claim of each pick-up day, or null
+         */
+        private final Claim[] claims = new Claim[DAYS.length];
+
+        private RestaurantNode(long id, double latitude, double longitude, int mask, int pickUpSecond) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.mask = mask;
+            this.pickUpSecond = pickUpSecond;
+        }
+    }
+
+    private static final class ShelterNode {
+
+        private final long id;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        private int capacity;
+
+        private final int mask;
+
+        private final int openSecond;
+
+        private final int closeSecond;
+
+        /**
+         * The claims accepted by the shelter on each receiving day, nearest first
+         */
+        private final TreeSet<Claim>[] assigned = newClaimSets();
+
+        /**
+         * The claims rejected by the shelter on each receiving day, that would move in if the shelter had room
+         */
+        private final TreeSet<Claim>[] waiting = newClaimSets();
+
+        private ShelterNode(long id, double latitude, double longitude, int capacity, int mask, int openSecond,
+                int closeSecond) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.capacity = capacity;
+            this.mask = mask;
+            this.openSecond = openSecond;
+            this.closeSecond = closeSecond;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static TreeSet<Claim>[] newClaimSets() {
+            TreeSet<Claim>[] sets = (TreeSet<Claim>[]) new TreeSet<?>[DAYS.length];
+            for (int day = 0; day < sets.length; day++) {
+                sets[day] = new TreeSet<>(NEAREST_FIRST);
+            }
+            return sets;
+        }
+    }
+
+    /**
+     * A shelter the restaurant can be matched to
+     */
+    private static final class Candidate {
+
+        private static final Comparator<Candidate> NEAREST_FIRST = Comparator.<Candidate>comparingDouble(
+                candidate -> candidate.distanceKm).thenComparingLong(candidate -> candidate.shelter.id);
+
+        private final ShelterNode shelter;
+
+        private final double distanceKm;
+
+        private final int travelSeconds;
+
+        private Candidate(ShelterNode shelter, double distanceKm, int travelSeconds) {
+            this.shelter = shelter;
+            this.distanceKm = distanceKm;
+            this.travelSeconds = travelSeconds;
+        }
+    }
+
+    /**
+     * A restaurant in range of a new shelter
+     */
+    private static final class Offer {
+
+        private final RestaurantNode restaurant;
+
+        private final double distanceKm;
+
+        private Offer(RestaurantNode restaurant, double distanceKm) {
+            this.restaurant = restaurant;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    /**
+     * The delivery of a pick-up of a restaurant to a shelter, on one of the receiving days of the shelter
+     */
+    private static final class Claim {
+
+        private final RestaurantNode restaurant;
+
+        private final int day;
+
+        private final ShelterNode shelter;
+
+        private final int receivingDay;
+
+        private final double distanceKm;
+
+        /**
+         * Second of the delivery from the start of the pick-up day, past the end of the day if delivered on the next
+         * day
+         */
+        private final int deliverySecond;
+
+        private Claim(RestaurantNode restaurant, int day, ShelterNode shelter, int receivingDay, double distanceKm,
+                int deliverySecond) {
+            this.restaurant = restaurant;
+            this.day = day;
+            this.shelter = shelter;
+            this.receivingDay = receivingDay;
+            this.distanceKm = distanceKm;
+            this.deliverySecond = deliverySecond;
+        }
+    }
+
+    private static final class Vacancy {
+
+        private final ShelterNode shelter;
+
+        private final int receivingDay;
+
+        private Vacancy(ShelterNode shelter, int receivingDay) {
+            this.shelter = shelter;
+            this.receivingDay = receivingDay;
+        }
+    }
+
+    private static final class Proposal {
+
+        private final RestaurantNode restaurant;
+
+        private final int day;
+
+        private final int from;
+
+        private Proposal(RestaurantNode restaurant, int day, int from) {
+            this.restaurant = restaurant;
+            this.day = day;
+            this.from = from;
+        }
+    }
+}
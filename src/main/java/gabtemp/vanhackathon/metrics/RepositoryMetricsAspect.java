@@ -0,0 +1,69 @@
+package gabtemp.vanhackathon.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Resource;
+
+import gabtemp.vanhackathon.config.MetricsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the latency of every call to the repositories of the application on the {@value #REPOSITORY_CALLS} timer,
+ * tagged by repository, method and outcome
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    static final String REPOSITORY_CALLS = "repository.calls";
+
+    private static final String REPOSITORY_PACKAGE = "gabtemp.vanhackathon.repository";
+
+    private final ConcurrentMap<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(* gabtemp.vanhackathon.repository..*Repository+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            Timer.builder(REPOSITORY_CALLS)
+                 .tag("repository", repositoryName(joinPoint.getTarget()))
+                 .tag("method", joinPoint.getSignature().getName())
+                 .tag("outcome", outcome)
+                 .publishPercentiles(MetricsConfig.PERCENTILES)
+                 .publishPercentileHistogram()
+                 .register(meterRegistry)
+                 .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Finds the name of the repository interface of the application implemented by the target of the call, as the
+     * target is usually a proxy created by Spring Data
+     */
+    private String repositoryName(Object target) {
+        return repositoryNames.computeIfAbsent(target.getClass(), type -> {
+            for (Class<?> candidate : AopProxyUtils.proxiedUserInterfaces(target)) {
+                if (candidate.getName().startsWith(REPOSITORY_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
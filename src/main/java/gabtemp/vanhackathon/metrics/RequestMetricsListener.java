@@ -0,0 +1,123 @@
+package gabtemp.vanhackathon.metrics;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Resource;
+import javax.ws.rs.core.UriInfo;
+
+import gabtemp.vanhackathon.config.MetricsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jersey listener that records the latency of every request on the {@value #REQUESTS} timer and the number of requests
+ * being processed on the {@value #ACTIVE_REQUESTS} gauge, both tagged by HTTP method and URI template of the endpoint.
+ * The requests rejected by the admission filters are counted on the {@value #REJECTED_REQUESTS} counter, tagged by the
+ * reason of the rejection too
+ */
+@Component
+public class RequestMetricsListener implements ApplicationEventListener {
+
+    static final String REQUESTS = "http.server.requests";
+
+    static final String ACTIVE_REQUESTS = "http.server.requests.active";
+
+    static final String REJECTED_REQUESTS = "http.server.requests.rejected";
+
+    private final ConcurrentMap<Tags, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent event) {
+        return new RequestListener(System.nanoTime());
+    }
+
+    /**
+     * Counts a request rejected before reaching its endpoint
+     *
+     * @param method the HTTP method of the request
+     * @param uri    the URI template of the endpoint, as returned by {@link #uri(UriInfo)}
+     * @param reason the reason of the rejection
+     */
+    public void rejected(String method, String uri, String reason) {
+        meterRegistry.counter(REJECTED_REQUESTS, "method", method, "uri", uri, "reason", reason).increment();
+    }
+
+    /**
+     * @param uriInfo the URI information of a matched request
+     * @return the URI template of the endpoint matched by the request, or "UNMATCHED"
+     */
+    public static String uri(UriInfo uriInfo) {
+        List<UriTemplate> templates = ((ExtendedUriInfo) uriInfo).getMatchedTemplates();
+        if (templates.isEmpty()) {
+            return "UNMATCHED";
+        }
+        StringBuilder uri = new StringBuilder();
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            uri.append(templates.get(i).getTemplate());
+        }
+        return uri.toString().replaceAll("//+", "/");
+    }
+
+    private AtomicInteger activeRequests(Tags tags) {
+        return active.computeIfAbsent(tags,
+                key -> meterRegistry.gauge(ACTIVE_REQUESTS, key, new AtomicInteger()));
+    }
+
+    private class RequestListener implements RequestEventListener {
+
+        private final long start;
+
+        private Tags endpoint;
+
+        RequestListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onEvent(RequestEvent event) {
+            switch (event.getType()) {
+                case REQUEST_MATCHED:
+                    endpoint = Tags.of("method", event.getContainerRequest().getMethod(), "uri", uri(event.getUriInfo()));
+                    activeRequests(endpoint).incrementAndGet();
+                    break;
+                case FINISHED:
+                    Tags tags = endpoint;
+                    if (tags == null) {
+                        tags = Tags.of("method", event.getContainerRequest().getMethod(), "uri", "UNMATCHED");
+                    } else {
+                        activeRequests(endpoint).decrementAndGet();
+                    }
+                    ContainerResponse response = event.getContainerResponse();
+                    String status = response == null ? "500" : String.valueOf(response.getStatus());
+                    Timer.builder(REQUESTS)
+                         .tags(tags.and("status", status))
+                         .publishPercentiles(MetricsConfig.PERCENTILES)
+                         .publishPercentileHistogram()
+                         .register(meterRegistry)
+                         .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -1,8 +1,43 @@
 package gabtemp.vanhackathon.repository;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 import gabtemp.vanhackathon.domain.Restaurant;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RestaurantRepository extends PagingAndSortingRepository<Restaurant, Long>,
+        RestaurantRepositoryCustom {
 
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+    /**
+     * Finds a page of restaurants with an id greater than the provided one, ordered by id. Used for keyset pagination,
+     * where the id of the last restaurant of a page is the cursor for the next one
+     *
+     * @param id       the cursor, only restaurants with a greater id are returned
+     * @param pageable the size of the page
+     * @return the restaurants of the page, ordered by id
+     */
+    @Transactional(readOnly = true)
+    List<Restaurant> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 
+    /**
+     * Iterates over all the registered restaurants, ordered by id, loading them page by page
+     *
+     * @param pageSize the number of restaurants loaded by each query
+     * @param consumer the consumer of the restaurants
+     */
+    default void scan(int pageSize, Consumer<Restaurant> consumer) {
+        long cursor = 0L;
+        List<Restaurant> page;
+        do {
+            page = findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, pageSize));
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
 }
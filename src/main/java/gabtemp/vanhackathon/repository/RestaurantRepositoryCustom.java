@@ -0,0 +1,21 @@
+package gabtemp.vanhackathon.repository;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+
+/**
+ * Repository operations on restaurants not derived by Spring Data, implemented by {@link RestaurantRepositoryImpl}
+ */
+public interface RestaurantRepositoryCustom {
+
+    /**
+     * Writes the fields of the updated restaurant that differ from the current one with a single
+     * {@code UPDATE ... WHERE id = ? AND version = ?} statement, without loading the restaurant. The version is
+     * incremented and the last modified instant is set in the same statement, and copied to the updated restaurant.
+     * Nothing is written if no field changed, the version is only checked
+     *
+     * @param current the current state of the restaurant, whose version is the one expected in the database
+     * @param updated the copy of the current restaurant with the new fields
+     * @return true if the restaurant is up to date, false if it was deleted or its version is no longer the expected one
+     */
+    boolean updateChanges(Restaurant current, Restaurant updated);
+}
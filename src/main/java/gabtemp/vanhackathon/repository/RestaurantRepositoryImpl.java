@@ -0,0 +1,73 @@
+package gabtemp.vanhackathon.repository;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Targeted updates of restaurants, mixed into {@link RestaurantRepository} by Spring Data
+ */
+public class RestaurantRepositoryImpl implements RestaurantRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public boolean updateChanges(Restaurant current, Restaurant updated) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putChange(changes, "name", current.getName(), updated.getName());
+        putChange(changes, "address", current.getAddress(), updated.getAddress());
+        putChange(changes, "availablePickUpDays", current.getAvailablePickUpDays(), updated.getAvailablePickUpDays());
+        putChange(changes, "pickUpTime", current.getPickUpTime(), updated.getPickUpTime());
+        putChange(changes, "latitude", current.getLatitude(), updated.getLatitude());
+        putChange(changes, "longitude", current.getLongitude(), updated.getLongitude());
+        if (changes.isEmpty()) {
+            // nothing to write, but the version must still be the current one
+            return entityManager.createQuery("select count(r) from Restaurant r where r.id = :id and " +
+                    "r.version = :version", Long.class)
+                                .setParameter("id", current.getId())
+                                .setParameter("version", current.getVersion())
+                                .getSingleResult() > 0;
+        }
+
+        StringBuilder statement = new StringBuilder("update Restaurant r set ");
+        changes.keySet().forEach(attribute -> statement.append("r.").append(attribute).append(" = :").append(attribute)
+                                                       .append(", "));
+        statement.append("r.version = r.version + 1, r.lastModified = :lastModified ")
+                 .append("where r.id = :id and r.version = :version");
+
+        // binds with the types of the mapping, otherwise the converted set of pick-up days is taken as a list parameter
+        EntityPersister persister = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                                                 .getMetamodel().entityPersister(Restaurant.class);
+        Instant lastModified = Instant.now();
+        Query<?> query = entityManager.createQuery(statement.toString()).unwrap(Query.class);
+        changes.forEach((attribute, value) -> query.setParameter(attribute, value,
+                persister.getPropertyType(attribute)));
+        query.setParameter("lastModified", lastModified);
+        query.setParameter("id", current.getId());
+        query.setParameter("version", current.getVersion());
+        if (query.executeUpdate() == 0) {
+            return false;
+        }
+
+        updated.setVersion(current.getVersion() + 1);
+        updated.setLastModified(lastModified);
+        return true;
+    }
+
+    private static void putChange(Map<String, Object> changes, String attribute, Object current, Object updated) {
+        if (!Objects.equals(current, updated)) {
+            changes.put(attribute, updated);
+        }
+    }
+}
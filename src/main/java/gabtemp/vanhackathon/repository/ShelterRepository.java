@@ -0,0 +1,16 @@
+package gabtemp.vanhackathon.repository;
+
+import java.util.List;
+
+import gabtemp.vanhackathon.domain.Shelter;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ShelterRepository extends PagingAndSortingRepository<Shelter, Long> {
+
+    /**
+     * @return all the registered shelters, ordered by id
+     */
+    @Transactional(readOnly = true)
+    List<Shelter> findAllByOrderByIdAsc();
+}
@@ -0,0 +1,151 @@
+package gabtemp.vanhackathon.resource;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gabtemp.vanhackathon.admission.QueueDelayMonitor;
+import gabtemp.vanhackathon.config.MetricsConfig;
+import gabtemp.vanhackathon.datasource.ReadYourWrites;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs the work of the resources, mostly blocking repository calls, on a dedicated bounded thread pool and resumes the
+ * suspended {@link AsyncResponse} with the result, so the servlet container threads are released while the work runs.
+ * <p>
+ * Requests that can't be queued because the pool is saturated, or that don't complete within the configured timeout,
+ * are answered with a 503 HTTP status. When disabled the work runs synchronously on the container thread.
+ * <p>
+ * The time the requests wait in the queue is tracked by a {@link QueueDelayMonitor}, used to shed load before the
+ * queue is full. The size of the queue and the number of busy workers are exposed as gauges, and the queue delay as a
+ * timer.
+ */
+@Component
+public class AsyncDispatcher implements MeterBinder {
+
+    private final Logger LOG = LoggerFactory.getLogger(AsyncDispatcher.class);
+
+    private final boolean enabled;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    private final QueueDelayMonitor queueDelay;
+
+    private volatile Timer queueDelayTimer;
+
+    public AsyncDispatcher(@Value("${restaurant.async.enabled:true}") boolean enabled,
+            @Value("${restaurant.async.pool-size:32}") int poolSize,
+            @Value("${restaurant.async.queue-capacity:256}") int queueCapacity,
+            @Value("${restaurant.async.timeout-millis:10000}") long timeoutMillis,
+            @Value("${restaurant.admission.queue-delay-target-millis:100}") long queueDelayTargetMillis,
+            @Value("${restaurant.admission.queue-delay-interval-millis:1000}") long queueDelayIntervalMillis) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.queueDelay = new QueueDelayMonitor(queueDelayTargetMillis, queueDelayIntervalMillis);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("resource-worker-%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the work and resumes the response with its result, or with the exception thrown by the work. The work runs
+     * with the {@link ReadYourWrites} pinning of the request
+     *
+     * @param asyncResponse the suspended response
+     * @param request       the work that produces the response
+     */
+    public void dispatch(AsyncResponse asyncResponse, Callable<Response> request) {
+        Callable<Response> work = ReadYourWrites.propagate(request);
+        if (!enabled) {
+            run(asyncResponse, work);
+            return;
+        }
+
+        asyncResponse.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(response -> {
+            LOG.warn("Request timed out after {} ms.", timeoutMillis);
+            response.resume(Response.status(SERVICE_UNAVAILABLE).entity("Request timed out").build());
+        });
+
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                recordQueueDelay(queued);
+                run(asyncResponse, work);
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Request rejected, all {} workers are busy and the queue is full.", executor.getMaximumPoolSize());
+            asyncResponse.resume(Response.status(SERVICE_UNAVAILABLE).entity("Server too busy").build());
+        }
+    }
+
+    /**
+     * @return whether the requests wait for a worker longer than the target queue delay, see {@link QueueDelayMonitor}
+     */
+    public boolean isOverloaded() {
+        return queueDelay.isOverloaded(System.nanoTime());
+    }
+
+    /**
+     * @return the number of requests waiting for a worker
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the number of workers running requests
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registry.gauge("async.dispatcher.queue", executor, pool -> pool.getQueue().size());
+        registry.gauge("async.dispatcher.active", executor, ThreadPoolExecutor::getActiveCount);
+        registry.gauge("async.dispatcher.overloaded", this, dispatcher -> dispatcher.isOverloaded() ? 1 : 0);
+        queueDelayTimer = Timer.builder("async.dispatcher.queue.delay")
+                               .publishPercentiles(MetricsConfig.PERCENTILES)
+                               .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void recordQueueDelay(long queued) {
+        long now = System.nanoTime();
+        queueDelay.record(now - queued, now);
+        Timer timer = queueDelayTimer;
+        if (timer != null) {
+            timer.record(now - queued, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void run(AsyncResponse asyncResponse, Callable<Response> work) {
+        try {
+            asyncResponse.resume(work.call());
+        } catch (Exception e) {
+            asyncResponse.resume(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package gabtemp.vanhackathon.resource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Resource;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.google.common.cache.CacheStats;
+import gabtemp.vanhackathon.cache.RestaurantCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Service for the statistics of the application caches
+ */
+@Component
+@Path("/cache")
+public class CacheResource {
+
+    @Resource
+    private RestaurantCache restaurantCache;
+
+    /**
+     * Finds the statistics of the restaurant cache
+     *
+     * @return a response with the size and the hit, miss, load and eviction counters of the cache. Produces a 200 HTTP
+     * status code
+     */
+    @GET
+    @Path("/restaurant")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response restaurantStats() {
+        CacheStats stats = restaurantCache.stats();
+        Map<String, Object> entity = new LinkedHashMap<>();
+        entity.put("size", restaurantCache.size());
+        entity.put("hitCount", stats.hitCount());
+        entity.put("missCount", stats.missCount());
+        entity.put("hitRate", stats.hitRate());
+        entity.put("loadCount", stats.loadCount());
+        entity.put("evictionCount", stats.evictionCount());
+        return Response.ok(entity).build();
+    }
+}
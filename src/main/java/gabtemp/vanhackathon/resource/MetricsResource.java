@@ -0,0 +1,33 @@
+package gabtemp.vanhackathon.resource;
+
+import javax.annotation.Resource;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.springframework.stereotype.Component;
+
+/**
+ * Service for the metrics of the application, in the Prometheus text format
+ */
+@Component
+@Path("/metrics")
+public class MetricsResource {
+
+    @Resource
+    private PrometheusMeterRegistry meterRegistry;
+
+    /**
+     * Scrapes all the metrics of the application
+     *
+     * @return a response with the current value of all the metrics. Produces a 200 HTTP status code
+     */
+    @GET
+    @Produces(TextFormat.CONTENT_TYPE_004)
+    public Response scrape() {
+        return Response.ok(meterRegistry.scrape()).build();
+    }
+}
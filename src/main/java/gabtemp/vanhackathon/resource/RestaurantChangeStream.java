@@ -0,0 +1,234 @@
+package gabtemp.vanhackathon.resource;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gabtemp.vanhackathon.event.RestaurantChange;
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the changes of the {@link RestaurantChangeLog} to the clients connected to the Server-Sent Events stream. Each
+ * change is sent as a {@value #EVENT_NAME} event with the sequence number as the event id, so the clients can resume the
+ * stream with the Last-Event-ID header.
+ * <p>
+ * Each client has its own buffer of the changes not sent yet, bounded by the configured size, written in order by one
+ * of a few writer threads at a time. A client that falls further behind is disconnected and resumes the stream from
+ * the log when it reconnects, so a slow client doesn't hold the changes of the other ones or an unbounded memory. Idle
+ * streams are sent a comment every heartbeat, which keeps the connection open through proxies and detects the clients
+ * that are gone. The clients are disconnected too when the log starts over after a resync.
+ */
+@Component
+public class RestaurantChangeStream {
+
+    static final String EVENT_NAME = "change";
+
+    static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final Logger LOG = LoggerFactory.getLogger(RestaurantChangeStream.class);
+
+    private final int bufferSize;
+
+    private final long heartbeatSeconds;
+
+    private final ExecutorService writers;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("change-stream-heartbeat-%d").setDaemon(true).build());
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    @Resource
+    private RestaurantChangeLog changeLog;
+
+    /**
+     * @param bufferSize       the maximum number of changes waiting to be sent to a client before it is disconnected
+     * @param writers          the number of threads writing the events to the clients
+     * @param heartbeatSeconds the time between the heartbeats sent to the idle streams
+     */
+    public RestaurantChangeStream(@Value("${restaurant.changes.stream.buffer-size:10000}") int bufferSize,
+            @Value("${restaurant.changes.stream.writers:4}") int writers,
+            @Value("${restaurant.changes.stream.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.bufferSize = bufferSize;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.writers = Executors.newFixedThreadPool(writers,
+                new ThreadFactoryBuilder().setNameFormat("change-stream-%d").setDaemon(true).build());
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeat.scheduleWithFixedDelay(() -> subscribers.forEach(Subscriber::heartbeat), heartbeatSeconds,
+                heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sends the retained changes after the provided sequence number to the sink, followed by the next ones until the
+     * sink is closed
+     *
+     * @param sse   the factory of the events
+     * @param sink  the sink of the client
+     * @param since the sequence number of the last change known by the client
+     * @return true if the client is subscribed, false if the changes are no longer retained
+     */
+    public boolean subscribe(Sse sse, SseEventSink sink, long since) {
+        Subscriber subscriber = new Subscriber(sse, sink);
+        subscribers.add(subscriber);
+        if (!changeLog.subscribe(since, subscriber, subscriber::reset)) {
+            subscribers.remove(subscriber);
+            return false;
+        }
+        LOG.info("Change stream subscribed since {}.", since);
+        return true;
+    }
+
+    /**
+     * @return the number of connected clients
+     */
+    public int size() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private class Subscriber implements Consumer<RestaurantChange> {
+
+        private final Sse sse;
+
+        private final SseEventSink sink;
+
+        private final BlockingQueue<RestaurantChange> buffer = new LinkedBlockingQueue<>(bufferSize);
+
+        /**
+         * Whether a writer is sending the buffer, so the events are sent by one writer at a time and in order
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean heartbeatDue;
+
+        private volatile boolean closed;
+
+        private Subscriber(Sse sse, SseEventSink sink) {
+            this.sse = sse;
+            this.sink = sink;
+        }
+
+        /**
+         * Buffers the change, called by the log while holding its lock, so it never blocks or writes to the client
+         */
+        @Override
+        public void accept(RestaurantChange change) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(change)) {
+                LOG.warn("Change stream closed, the client is more than {} changes behind.", bufferSize);
+                close();
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        /**
+         * Disconnects the client when the log starts over, so it resumes from its last change and is told to reload all
+         * the restaurants
+         */
+        void reset() {
+            LOG.info("Change stream closed, the change log started over.");
+            close();
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                boolean sent = false;
+                RestaurantChange change;
+                while (!closed && (change = buffer.poll()) != null) {
+                    send(sse.newEventBuilder()
+                            .id(String.valueOf(change.getSequence()))
+                            .name(EVENT_NAME)
+                            .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                            .data(RestaurantChange.class, change)
+                            .build());
+                    sent = true;
+                }
+                if (heartbeatDue && !closed) {
+                    heartbeatDue = false;
+                    if (!sent) {
+                        send(sse.newEventBuilder().comment(HEARTBEAT_COMMENT).build());
+                    }
+                }
+                if (closed) {
+                    buffer.clear();
+                    sink.close();
+                }
+            } finally {
+                draining.set(false);
+            }
+            // a change or heartbeat arrived after the buffer was found empty and before the flag was cleared
+            if (!closed && (!buffer.isEmpty() || heartbeatDue)) {
+                schedule();
+            }
+        }
+
+        private void send(OutboundSseEvent event) {
+            if (sink.isClosed()) {
+                close();
+                return;
+            }
+            sink.send(event).whenComplete((result, error) -> {
+                if (error != null) {
+                    LOG.info("Change stream closed: '{}'", error.getMessage());
+                    close();
+                    sink.close();
+                }
+            });
+        }
+
+        /**
+         * Stops sending changes, the sink itself is closed by the writer
+         */
+        private void close() {
+            closed = true;
+            changeLog.unsubscribe(this);
+            subscribers.remove(this);
+        }
+    }
+}
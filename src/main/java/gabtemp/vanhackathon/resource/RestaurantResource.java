@@ -1,78 +1,519 @@
 package gabtemp.vanhackathon.resource;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 
-import com.google.common.collect.Iterables;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gabtemp.vanhackathon.cache.RestaurantCache;
+import gabtemp.vanhackathon.config.MetricsConfig;
+import gabtemp.vanhackathon.domain.InvalidRestaurantException;
 import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.RestaurantForm;
+import gabtemp.vanhackathon.event.RestaurantChange;
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.geo.Geocoder;
+import gabtemp.vanhackathon.index.AvailabilityIndex;
+import gabtemp.vanhackathon.index.GeoIndex;
 import gabtemp.vanhackathon.repository.RestaurantRepository;
+import gabtemp.vanhackathon.serialization.SmileMessageBodyWriter;
+import gabtemp.vanhackathon.service.ImportJob;
+import gabtemp.vanhackathon.service.ImportJobQueue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 
 /**
- * Service for CRUD operations on Restaurant resource
+ * Service for CRUD operations on Restaurant resource.
+ * <p>
+ * The HTTP methods suspend the request and delegate to the synchronous method with the same name through the
+ * {@link AsyncDispatcher}, so the blocking repository calls don't hold the servlet container threads.
  */
 @Component
 @Path("/restaurant")
 public class RestaurantResource {
 
+    /**
+     * Number of restaurants fetched from the database on each query while streaming all restaurants
+     */
+    static final int PAGE_SIZE = 500;
+
+    /**
+     * Media type of newline delimited JSON content
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Media type of JSON merge patch content
+     */
+    public static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    /**
+     * Formats of the restaurants, JSON by default or Smile. The versioned responses vary by format as they share the
+     * entity tag
+     */
+    static final List<Variant> FORMATS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE,
+            SmileMessageBodyWriter.APPLICATION_SMILE_TYPE).build();
+
+    /**
+     * Name of the distribution summary of the number of restaurants returned by {@link #findAll(Integer, Long, Request)}
+     */
+    static final String FIND_ALL_SIZE = "restaurant.findall.size";
+
+    /**
+     * Response header with the sequence number of the last change of the restaurants included in the response
+     */
+    public static final String CHANGE_SEQUENCE = "X-Change-Sequence";
+
+    /**
+     * Maximum number of changes returned by {@link #findChanges(Long, Integer)} when no limit is provided
+     */
+    static final int CHANGES_LIMIT = 1000;
+
+    /**
+     * Radius in kilometers of {@link #findNearby(String, String, String, String, String)} when no radius is provided
+     */
+    static final double NEARBY_RADIUS_KM = 5;
+
+    /**
+     * Maximum radius in kilometers of {@link #findNearby(String, String, String, String, String)}
+     */
+    static final double NEARBY_MAX_RADIUS_KM = 1000;
+
+    /**
+     * Number of restaurants returned by {@link #findNearby(String, String, String, String, String)} when no limit is
+     * provided, and maximum limit
+     */
+    static final int NEARBY_LIMIT = 20;
+
+    static final int NEARBY_MAX_LIMIT = 1000;
+
+    /**
+     * Seconds a client waits before submitting again a bulk import rejected because too many imports are waiting
+     */
+    static final int BULK_RETRY_AFTER_SECONDS = 30;
+
+    /**
+     * Prefix of the weak entity tags in the conditional request headers
+     */
+    private static final String WEAK_TAG_PREFIX = "W/";
+
     private final Logger LOG = LoggerFactory.getLogger(RestaurantResource.class);
 
+    @Resource
+    private AsyncDispatcher dispatcher;
+
     @Resource
     private RestaurantRepository repository;
 
+    @Resource
+    private RestaurantCache cache;
+
+    @Resource
+    private ImportJobQueue importJobs;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private SmileMessageBodyWriter smileWriter;
+
+    @Resource
+    private AvailabilityIndex availabilityIndex;
+
+    @Resource
+    private ApplicationEventPublisher publisher;
+
+    @Resource
+    private GeoIndex geoIndex;
+
+    @Resource
+    private Geocoder geocoder;
+
+    @Resource
+    private RestaurantChangeLog changeLog;
+
+    @Resource
+    private RestaurantChangeStream changeStream;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Asynchronous entry point of {@link #findAll(Integer, Long, Request)}
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, SmileMessageBodyWriter.APPLICATION_SMILE})
+    public void findAll(@QueryParam("limit") Integer limit, @QueryParam("after") Long after,
+            @Context Request request, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findAll(limit, after, request));
+    }
+
+    /**
+     * Finds all registered restaurants. The restaurants are ordered by id and streamed to the client page by page, so
+     * the memory used doesn't depend on the number of registered restaurants
+     *
+     * @param limit   the maximum number of restaurants to return (optional, all restaurants if not provided)
+     * @param after   the cursor of the page, only restaurants with an id greater than this one are returned. Clients
+     *                should use the id of the last restaurant of the previous page (optional)
+     * @param request the request, used to evaluate the conditional headers against the version of the collection and
+     *                to select the format of the restaurants, JSON or Smile
+     * @return a response with the list of the restaurants. Produces a 200 HTTP status code. Returns a 304 if the
+     * restaurants didn't change since the version known by the client, or a 400 if the limit is not a positive number
+     */
+    public Response findAll(Integer limit, Long after, Request request) {
+        if (limit != null && limit <= 0) {
+            String message = "Query parameter 'limit' must be a positive number";
+            LOG.warn("Failed to find registered restaurants: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        LOG.info("Finding registered restaurants with the following parameters: Limit={}, After={}", limit, after);
+        Response.ResponseBuilder notModified = evaluateCollectionPreconditions(request);
+        if (notModified != null) {
+            LOG.info("Registered restaurants not modified.");
+            return notModified.build();
+        }
+
+        Variant variant = request.selectVariant(FORMATS);
+        ObjectMapper mapper = variant != null && SmileMessageBodyWriter.APPLICATION_SMILE_TYPE.equals(
+                variant.getMediaType()) ? smileWriter.getObjectMapper() : objectMapper;
+        StreamingOutput output = stream -> {
+            JsonGenerator generator = mapper.getFactory().createGenerator(stream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            long cursor = after == null ? 0L : after;
+            int remaining = limit == null ? Integer.MAX_VALUE : limit;
+            int count = 0;
+            while (remaining > 0) {
+                int size = Math.min(remaining, PAGE_SIZE);
+                List<Restaurant> page = repository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, size));
+                for (Restaurant restaurant : page) {
+                    generator.writeObject(restaurant);
+                }
+                generator.flush();
+
+                count += page.size();
+                remaining -= page.size();
+                if (page.size() < size) {
+                    break;
+                }
+                cursor = page.get(page.size() - 1).getId();
+            }
+
+            generator.writeEndArray();
+            generator.close();
+            DistributionSummary.builder(FIND_ALL_SIZE)
+                               .publishPercentiles(MetricsConfig.PERCENTILES)
+                               .register(meterRegistry)
+                               .record(count);
+            LOG.info("{} registered restaurants found.", count);
+        };
+        return collectionVersion(Response.ok(output, variant)).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #findAvailable(String, String, String, Request)}
+     */
+    @GET
+    @Path("/available")
+    @Produces({MediaType.APPLICATION_JSON, SmileMessageBodyWriter.APPLICATION_SMILE})
+    public void findAvailable(@QueryParam("day") String day, @QueryParam("from") String from,
+            @QueryParam("to") String to, @Context Request request, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findAvailable(day, from, to, request));
+    }
+
     /**
-     * Finds all registered restaurants
+     * Finds the restaurants available for pick-up on the provided week day during the provided time window
      *
-     * @return a response with the list of all restaurants. Produces a 200 HTTP status code.
+     * @param day     the week day of the pick-up, e.g. "FRIDAY" (required)
+     * @param from    the start of the time window in the format 'hh:mm' (optional, defaults to midnight)
+     * @param to      the end of the time window in the format 'hh:mm' (optional, defaults to the end of the day). If
+     *                before {@code from} the window goes past midnight into the next day
+     * @param request the request, used to evaluate the conditional headers against the version of the collection
+     * @return a response with the list of the available restaurants ordered by pick-up time. Produces a 200 HTTP status
+     * code. Returns a 304 if the restaurants didn't change since the version known by the client, or a 400 if the day
+     * is not provided or if any of the parameters is invalid
+     */
+    public Response findAvailable(String day, String from, String to, Request request) {
+        LOG.info("Finding available restaurants with the following parameters: Day={}, From={}, To={}", day, from, to);
+
+        if (day == null) {
+            LOG.warn("Failed to find available restaurants: 'Query parameter 'day' is mandatory'");
+            return Response.status(BAD_REQUEST).entity("Query parameter 'day' is mandatory").build();
+        }
+
+        DayOfWeek resolvedDay;
+        try {
+            resolvedDay = DayOfWeek.valueOf(day.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            String message = "Invalid week day (" + day + ") for the 'day' field.";
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        LocalTime resolvedFrom;
+        LocalTime resolvedTo;
+        try {
+            resolvedFrom = from == null ? LocalTime.MIN : LocalTime.parse(from, DateTimeFormatter.ISO_TIME);
+            resolvedTo = to == null ? LocalTime.MAX : LocalTime.parse(to, DateTimeFormatter.ISO_TIME);
+        } catch (DateTimeParseException e) {
+            String message = "Invalid time format (" + e.getParsedString() + ") for the 'from' or 'to' field. The " +
+                    "allowed format is 'hh:mm', where 'hh' is the hour from 0 to 23 and 'mm' are the minutes from 0 to 59.";
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        Response.ResponseBuilder notModified = evaluateCollectionPreconditions(request);
+        if (notModified != null) {
+            LOG.info("Available restaurants not modified.");
+            return notModified.build();
+        }
+
+        // the version is read before the restaurants so it never claims changes the response doesn't include
+        Response.ResponseBuilder ok = collectionVersion(Response.ok());
+        List<Restaurant> available = cache.findAllById(availabilityIndex.find(resolvedDay, resolvedFrom, resolvedTo));
+        LOG.info("{} available restaurants found.", available.size());
+        return ok.entity(available).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #findNearby(String, String, String, String, String)}
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response findAll() {
-        LOG.info("Finding all registered restaurants.");
-        Iterable<Restaurant> all = repository.findAll();
-        LOG.info(Iterables.size(all) + " registered restaurants found.");
-        return Response.ok(all).build();
+    @Path("/nearby")
+    @Produces({MediaType.APPLICATION_JSON, SmileMessageBodyWriter.APPLICATION_SMILE})
+    public void findNearby(@QueryParam("lat") String latitude, @QueryParam("lon") String longitude,
+            @QueryParam("radiusKm") String radiusKm, @QueryParam("day") String day, @QueryParam("limit") String limit,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findNearby(latitude, longitude, radiusKm, day, limit));
     }
 
     /**
-     * Find a registered restaurant by the provided id
+     * Find the located restaurants nearest to the provided point, see {@link GeoIndex}
      *
-     * @param id the id of the restaurant
-     * @return a response with the restaurant and a HTTP status 200 if it exists. Returns a 404 otherwise
+     * @param latitude  the latitude of the point in degrees (required)
+     * @param longitude the longitude of the point in degrees (required)
+     * @param radiusKm  the maximum distance of the restaurants to the point in kilometers (optional, defaults to
+     *                  {@value #NEARBY_RADIUS_KM}, up to {@value #NEARBY_MAX_RADIUS_KM})
+     * @param day       the week day the restaurants must be available for pick-up, e.g. "FRIDAY" (optional)
+     * @param limit     the maximum number of restaurants to return (optional, defaults to {@value #NEARBY_LIMIT}, up
+     *                  to {@value #NEARBY_MAX_LIMIT})
+     * @return a response with the list of the nearest restaurants ordered by distance. Produces a 200 HTTP status code.
+     * Returns a 400 if the point is not provided or if any of the parameters is invalid
+     */
+    public Response findNearby(String latitude, String longitude, String radiusKm, String day, String limit) {
+        LOG.info("Finding nearby restaurants with the following parameters: Latitude={}, Longitude={}, RadiusKm={}, " +
+                "Day={}, Limit={}", latitude, longitude, radiusKm, day, limit);
+
+        if (latitude == null || longitude == null) {
+            String message = "Query parameters 'lat' and 'lon' are mandatory";
+            LOG.warn("Failed to find nearby restaurants: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        GeoPoint center;
+        double resolvedRadius;
+        int resolvedLimit;
+        try {
+            center = new GeoPoint(Double.parseDouble(latitude), Double.parseDouble(longitude));
+            resolvedRadius = radiusKm == null ? NEARBY_RADIUS_KM : Double.parseDouble(radiusKm);
+            resolvedLimit = limit == null ? NEARBY_LIMIT : Integer.parseInt(limit);
+        } catch (IllegalArgumentException e) {
+            String message = "Invalid number for the 'lat', 'lon', 'radiusKm' or 'limit' field: " + e.getMessage();
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+        if (!(resolvedRadius > 0 && resolvedRadius <= NEARBY_MAX_RADIUS_KM)) {
+            String message = "Query parameter 'radiusKm' must be a positive number up to " + NEARBY_MAX_RADIUS_KM;
+            LOG.warn("Failed to find nearby restaurants: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+        if (resolvedLimit <= 0 || resolvedLimit > NEARBY_MAX_LIMIT) {
+            String message = "Query parameter 'limit' must be a positive number up to " + NEARBY_MAX_LIMIT;
+            LOG.warn("Failed to find nearby restaurants: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        DayOfWeek resolvedDay = null;
+        if (day != null) {
+            try {
+                resolvedDay = DayOfWeek.valueOf(day.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                String message = "Invalid week day (" + day + ") for the 'day' field.";
+                LOG.warn(message);
+                return Response.status(BAD_REQUEST).entity(message).build();
+            }
+        }
+
+        List<Restaurant> nearby = cache.findAllById(
+                geoIndex.findNearest(center, resolvedRadius, resolvedDay, resolvedLimit));
+        LOG.info("{} nearby restaurants found.", nearby.size());
+        return Response.ok(nearby).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #findChanges(Long, Integer)}
+     */
+    @GET
+    @Path("/changes")
+    @Produces({MediaType.APPLICATION_JSON, SmileMessageBodyWriter.APPLICATION_SMILE})
+    public void findChanges(@QueryParam("since") Long since, @QueryParam("limit") Integer limit,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findChanges(since, limit));
+    }
+
+    /**
+     * Find the changes made to the restaurants after the provided sequence number, so the clients can sync their copy
+     * of the restaurants incrementally. The sequence number to start from is returned in the {@value #CHANGE_SEQUENCE}
+     * header of the find all response
+     *
+     * @param since the sequence number of the last change known by the client (required)
+     * @param limit the maximum number of changes to return (optional, defaults to {@value #CHANGES_LIMIT})
+     * @return a response with the list of the changes ordered by sequence number and the sequence number of the last
+     * one in the {@value #CHANGE_SEQUENCE} header. Produces a 200 HTTP status code. Returns a 400 if the sequence
+     * number is not provided or the limit is not a positive number, or a 410 if the changes are no longer retained and
+     * the client must reload all the restaurants
+     */
+    public Response findChanges(Long since, Integer limit) {
+        LOG.info("Finding restaurant changes with the following parameters: Since={}, Limit={}", since, limit);
+        if (since == null) {
+            String message = "Query parameter 'since' is mandatory";
+            LOG.warn("Failed to find restaurant changes: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+        if (limit != null && limit <= 0) {
+            String message = "Query parameter 'limit' must be a positive number";
+            LOG.warn("Failed to find restaurant changes: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        Optional<List<RestaurantChange>> changes = changeLog.since(since, limit == null ? CHANGES_LIMIT : limit);
+        if (!changes.isPresent()) {
+            String message = "Restaurant changes since " + since + " are no longer available.";
+            LOG.info(message);
+            return Response.status(Response.Status.GONE).entity(message).build();
+        }
+
+        List<RestaurantChange> found = changes.get();
+        long last = found.isEmpty() ? since : found.get(found.size() - 1).getSequence();
+        LOG.info("{} restaurant changes found.", found.size());
+        return Response.ok(found).header(CHANGE_SEQUENCE, last).build();
+    }
+
+    /**
+     * Streams the changes made to the restaurants as Server-Sent Events, see {@link RestaurantChangeStream}. The stream
+     * starts after the sequence number of the Last-Event-ID header, or of the {@code since} query parameter, or with the
+     * next change if none is provided. Answers with a 410 HTTP status if the changes are no longer retained
+     */
+    @GET
+    @Path("/changes/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamChanges(@QueryParam("since") Long since,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId, @Context Sse sse,
+            @Context SseEventSink sink) {
+        long start;
+        try {
+            start = lastEventId != null ? Long.parseLong(lastEventId.trim()) :
+                    since != null ? since : changeLog.getSequence();
+        } catch (NumberFormatException e) {
+            String message = "Invalid Last-Event-ID header (" + lastEventId + ")";
+            LOG.warn("Failed to stream restaurant changes: '{}'", message);
+            throw new WebApplicationException(Response.status(BAD_REQUEST).entity(message).build());
+        }
+
+        if (!changeStream.subscribe(sse, sink, start)) {
+            String message = "Restaurant changes since " + start + " are no longer available.";
+            LOG.info(message);
+            throw new WebApplicationException(Response.status(Response.Status.GONE).entity(message).build());
+        }
+    }
+
+    /**
+     * Asynchronous entry point of {@link #findById(Long, Request)}
      */
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response findById(@PathParam("id") Long id) {
-        LOG.info("Finding registered restaurant with id " + id + ".");
-        Optional<Restaurant> restaurant = repository.findById(id);
+    @Produces({MediaType.APPLICATION_JSON, SmileMessageBodyWriter.APPLICATION_SMILE})
+    public void findById(@PathParam("id") Long id, @Context Request request, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findById(id, request));
+    }
+
+    /**
+     * Find a registered restaurant by the provided id
+     *
+     * @param id      the id of the restaurant
+     * @param request the request, used to evaluate the conditional headers against the version of the restaurant
+     * @return a response with the restaurant and a HTTP status 200 if it exists. Returns a 304 if the restaurant didn't
+     * change since the version known by the client, or a 404 if it doesn't exist
+     */
+    public Response findById(Long id, Request request) {
+        LOG.info("Finding registered restaurant with id {}.", id);
+        Optional<Restaurant> restaurant = cache.findById(id);
         if (restaurant.isPresent()) {
-            LOG.info("Registered restaurant with id " + id + " found.");
-            return Response.ok(restaurant.get()).build();
+            EntityTag tag = entityTag(restaurant.get());
+            Date lastModified = lastModified(restaurant.get());
+            Response.ResponseBuilder notModified = lastModified == null ? request.evaluatePreconditions(tag) :
+                    request.evaluatePreconditions(lastModified, tag);
+            if (notModified != null) {
+                LOG.info("Registered restaurant with id {} not modified.", id);
+                return notModified.build();
+            }
+
+            LOG.info("Registered restaurant with id {} found.", id);
+            return Response.ok(restaurant.get()).tag(tag).lastModified(lastModified).variants(FORMATS).build();
         } else {
             String message = "Registered restaurant with id " + id + " not found.";
             LOG.info(message);
@@ -80,6 +521,18 @@ public class RestaurantResource {
         }
     }
 
+    /**
+     * Asynchronous entry point of {@link #create(String, String, String, String)}
+     */
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public void create(@FormParam("name") String name, @FormParam("address") String address,
+            @FormParam("pickUpDays") String pickUpDays, @FormParam("pickUpTime") String time,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> create(name, address, pickUpDays, time));
+    }
+
     /**
      * Register a new restaurant using the provided fields.
      *
@@ -91,54 +544,191 @@ public class RestaurantResource {
      * @return a response with the restaurant and a HTTP status 201 if the restaurant is successfully created with a location
      * header pointing to the newly created resource. Returns a 400 if the mandatory parameters are not provided
      */
-    @POST
-    @Produces(MediaType.APPLICATION_JSON)
-    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
-    public Response create(@FormParam("name") String name, @FormParam("address") String address,
-            @FormParam("pickUpDays") String pickUpDays, @FormParam("pickUpTime") String time) {
+    public Response create(String name, String address, String pickUpDays, String time) {
         LOG.info("Registering new restaurant with the following parameters: " +
-                "Name=" + name + ", Address=" + address +
-                ", PickUpDays=" + pickUpDays + ", PickUpTime=" + time);
+                "Name={}, Address={}, PickUpDays={}, PickUpTime={}", name, address, pickUpDays, time);
 
-        if (name == null) {
-            LOG.warn("Failed to register a new restaurant: 'Form parameter 'name' is mandatory'");
-            return Response.status(BAD_REQUEST).entity("Form parameter 'name' is mandatory").build();
+        Restaurant restaurant;
+        try {
+            restaurant = new RestaurantForm(name, address, pickUpDays, time).toRestaurant();
+        } catch (InvalidRestaurantException e) {
+            LOG.warn("Failed to register a new restaurant: '{}'", e.getMessage());
+            return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
         }
 
-        if (address == null) {
-            LOG.warn("Failed to register a new restaurant: 'Form parameter 'address' is mandatory'");
-            return Response.status(BAD_REQUEST).entity("Form parameter 'address' is mandatory").build();
-        }
+        geocoder.locate(restaurant);
+        Restaurant saved = repository.save(restaurant);
+        publisher.publishEvent(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, saved));
+        LOG.info("New restaurant registered with id {}", saved.getId());
+        return Response.created(URI.create("/restaurant/" + saved.getId())).entity(saved).build();
+    }
 
-        if (time == null) {
-            LOG.warn("Failed to register a new restaurant: 'Form parameter 'pickUpTime' is mandatory'");
-            return Response.status(BAD_REQUEST).entity("Form parameter 'pickUpTime' is mandatory").build();
+    /**
+     * Registers restaurants in bulk, in the background, see {@link ImportJobQueue}. Each row has the same fields as the
+     * ones used to register a single restaurant and is validated with the same rules. Valid rows are imported in
+     * chunks even if other rows are invalid. The body is read on the container thread, not by the
+     * {@link AsyncDispatcher}, as the import isn't bound by the timeout of the requests
+     *
+     * @param body a JSON array of restaurants, or newline delimited JSON objects with the {@value #APPLICATION_NDJSON}
+     *             content type
+     * @return a response with the queued import job and a 202 HTTP status code, with a location header pointing to the
+     * job. Returns a 503 if too many imports are already waiting
+     * @throws IOException if the body can't be read
+     */
+    @POST
+    @Path("/bulk")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    public Response createAll(InputStream body) throws IOException {
+        LOG.info("Registering restaurants in bulk.");
+        ImportJob job;
+        try {
+            job = importJobs.submit(body);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Bulk import rejected, too many imports are waiting.");
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                           .header(HttpHeaders.RETRY_AFTER, BULK_RETRY_AFTER_SECONDS)
+                           .entity("Too many bulk imports in progress")
+                           .build();
         }
+        return Response.accepted(job).location(URI.create("/restaurant/bulk/" + job.getId())).build();
+    }
 
-        Set<DayOfWeek> resolvedDays;
-        if (pickUpDays == null || pickUpDays.isEmpty()) {
-            LOG.info("Form parameter 'pickUpDays' not provided. Using all values.");
-            resolvedDays = new HashSet<>(Arrays.asList(DayOfWeek.values()));
-        } else {
-            resolvedDays = Arrays.stream(pickUpDays.split(",")).map(DayOfWeek::valueOf).collect(Collectors.toSet());
+    /**
+     * Asynchronous entry point of {@link #findImport(String)}
+     */
+    @GET
+    @Path("/bulk/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findImport(@PathParam("id") String id, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findImport(id));
+    }
+
+    /**
+     * Finds a bulk import job by id
+     *
+     * @param id the id of the job, from the location header of the response to the import
+     * @return a response with the status of the job and, once finished, the number of imported and failed rows and the
+     * errors of the failed rows. Produces a 200 HTTP status code. Returns a 404 if the job is unknown or no longer
+     * retained
+     */
+    public Response findImport(String id) {
+        Optional<ImportJob> job = importJobs.findById(id);
+        if (!job.isPresent()) {
+            String message = "Bulk import " + id + " not found";
+            LOG.warn(message);
+            return Response.status(Response.Status.NOT_FOUND).entity(message).build();
         }
+        return Response.ok(job.get()).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #update(Long, RestaurantForm, Long)} with form parameters
+     */
+    @PUT
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public void update(@PathParam("id") Long id, @FormParam("name") String name,
+            @FormParam("address") String address, @FormParam("pickUpDays") String pickUpDays,
+            @FormParam("pickUpTime") String time, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> update(id, new RestaurantForm(name, address, pickUpDays, time),
+                expectedVersion(id, ifMatch)));
+    }
+
+    /**
+     * Asynchronous entry point of {@link #update(Long, RestaurantForm, Long)} with a JSON object with the fields of the
+     * form
+     */
+    @PUT
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void update(@PathParam("id") Long id, RestaurantForm form,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> update(id, form == null ? new RestaurantForm() : form,
+                expectedVersion(id, ifMatch)));
+    }
+
+    /**
+     * Asynchronous entry point of {@link #patch(Long, InputStream, String)}
+     */
+    @PATCH
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(APPLICATION_MERGE_PATCH_JSON)
+    public void patch(@PathParam("id") Long id, InputStream body, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> patch(id, body, ifMatch));
+    }
+
+    /**
+     * Updates a registered restaurant with a JSON merge patch (RFC 7396) of its representation. The members of the patch
+     * are the fields to change, {@code name}, {@code address}, {@code availablePickUpDays} as an array of week days and
+     * {@code pickUpTime}, and optionally the {@code version} the patch was made from
+     *
+     * @param id      the id of the restaurant to update
+     * @param body    the JSON merge patch
+     * @param ifMatch the entity tag of the version the patch was made from, or "*" for any version (optional)
+     * @return the same responses of {@link #update(Long, RestaurantForm, Long)}. Returns a 400 HTTP status if the patch
+     * is not a JSON object, removes a field, or changes a field that can't be changed
+     * @throws IOException if the body can't be read
+     */
+    public Response patch(Long id, InputStream body, String ifMatch) throws IOException {
+        LOG.info("Patching existing restaurant with id {}.", id);
 
-        Restaurant restaurant = new Restaurant();
-        restaurant.setName(name);
-        restaurant.setAddress(address);
-        restaurant.setAvailablePickUpDays(resolvedDays);
+        JsonNode patch;
         try {
-            restaurant.setPickUpTime(LocalTime.parse(time, DateTimeFormatter.ISO_TIME));
-        } catch (DateTimeParseException e) {
-            String message = "Invalid time format (" + time + ") for the 'pickUpTime' field. The allowed format is 'hh:mm'," +
-                    " where 'hh' is the hour from 0 to 23 and 'mm' are the minutes from 0 to 59.";
-            LOG.error(message, e);
-            return Response.status(BAD_REQUEST).entity(message).build();
+            patch = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            patch = null;
+        }
+        if (patch == null || !patch.isObject()) {
+            return invalidPatch(id, "The body must be a JSON object");
         }
 
-        Restaurant saved = repository.save(restaurant);
-        LOG.info("New restaurant registered with id " + saved.getId());
-        return Response.created(URI.create("/restaurant/" + saved.getId())).entity(saved).build();
+        RestaurantForm form = new RestaurantForm();
+        Long version = expectedVersion(id, ifMatch);
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                return invalidPatch(id, "Field '" + field.getKey() + "' can't be removed");
+            }
+            switch (field.getKey()) {
+                case "name":
+                    form.setName(value.asText());
+                    break;
+                case "address":
+                    form.setAddress(value.asText());
+                    break;
+                case "availablePickUpDays":
+                    if (!value.isArray() || value.size() == 0) {
+                        return invalidPatch(id, "Field 'availablePickUpDays' must be a non empty array of week days");
+                    }
+                    List<String> days = new ArrayList<>();
+                    value.forEach(day -> days.add(day.asText()));
+                    form.setPickUpDays(String.join(",", days));
+                    break;
+                case "pickUpTime":
+                    form.setPickUpTime(value.asText());
+                    break;
+                case "version":
+                    if (!value.canConvertToLong()) {
+                        return invalidPatch(id, "Field 'version' must be a number");
+                    }
+                    if (version != null && version != value.asLong()) {
+                        return preconditionFailed(id);
+                    }
+                    version = value.asLong();
+                    break;
+                default:
+                    return invalidPatch(id, "Field '" + field.getKey() + "' can't be changed");
+            }
+        }
+        return update(id, form, version);
     }
 
     /**
@@ -150,55 +740,89 @@ public class RestaurantResource {
      * @param pickUpDays    the week days the restaurant is available for leftovers pick-up. if empty the restaurant is
      *                available all days of the week (optional)
      * @param time    the time of day the restaurant is available for leftovers pick-up (required)
+     * @return the same responses of {@link #update(Long, RestaurantForm, Long)}
+     */
+    public Response update(Long id, String name, String address, String pickUpDays, String time) {
+        return update(id, new RestaurantForm(name, address, pickUpDays, time), null);
+    }
+
+    /**
+     * Updates a registered restaurant with the provided fields of the form. Only the changed columns are written, with
+     * a single statement conditional on the version of the restaurant, without loading it from the database
+     *
+     * @param id      the id of the restaurant to update
+     * @param form    the fields to update, the null fields are kept
+     * @param version the version the update was made from, or null to update the current version
      * @return a response with the restaurant and a HTTP status 200 if the restaurant is successfully updated with the new information.
-     * Returns a 404 HTTP status if the restaurant is not found
+     * Returns a 400 if any of the fields is invalid, a 404 HTTP status if the restaurant is not found, a 412 if the
+     * restaurant is not in the provided version, or a 409 if it was concurrently modified
      */
-    @PUT
-    @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response update(@PathParam("id") Long id, @FormParam("name") String name,
-            @FormParam("address") String address, @FormParam("pickUpDays") String pickUpDays,
-            @FormParam("pickUpTime") String time) {
+    public Response update(Long id, RestaurantForm form, Long version) {
 
-        LOG.info("Updating existing restaurant with the following parameters: " +
-                "Name=" + name + ", Address=" + address +
-                ", PickUpDays=" + pickUpDays + ", PickUpTime=" + time);
+        LOG.info("Updating existing restaurant with id {} and version {} with the following parameters: " +
+                        "Name={}, Address={}, PickUpDays={}, PickUpTime={}", id, version, form.getName(),
+                form.getAddress(), form.getPickUpDays(), form.getPickUpTime());
+        return update(id, form, version, cache.findById(id), false);
+    }
 
-        Optional<Restaurant> restaurant = repository.findById(id);
+    /**
+     * Updates the restaurant from the cached one, or from the one reloaded from the primary database. The cached
+     * restaurant can be behind the database when it was changed by another node, so the update is retried once from the
+     * reloaded restaurant before it's answered as conflicting or not in the provided version
+     */
+    private Response update(Long id, RestaurantForm form, Long version, Optional<Restaurant> restaurant,
+            boolean reloaded) {
         if (!restaurant.isPresent()) {
             String message = "Registered restaurant with id " + id + " not found.";
             LOG.info(message);
             return Response.status(Response.Status.NOT_FOUND).entity(message).build();
         }
 
-        Restaurant updated = restaurant.get();
-        if (name != null) {
-            updated.setName(name);
+        Restaurant current = restaurant.get();
+        if (version != null && !version.equals(current.getVersion())) {
+            // the versions only grow, a cached restaurant older than the one of the request is stale
+            if (reloaded || version < current.getVersion()) {
+                return preconditionFailed(id);
+            }
+            return update(id, form, version, cache.reload(id), true);
         }
 
-        if (address != null) {
-            updated.setAddress(address);
+        Restaurant updated = new Restaurant(current);
+        try {
+            form.applyTo(updated);
+        } catch (InvalidRestaurantException e) {
+            LOG.warn("Failed to update restaurant with id {}: '{}'", id, e.getMessage());
+            return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
         }
-
-        if (pickUpDays != null && !pickUpDays.isEmpty()) {
-            Set<DayOfWeek> resolvedDays = Arrays.stream(pickUpDays.split(",")).map(DayOfWeek::valueOf).collect(Collectors.toSet());
-            updated.setAvailablePickUpDays(resolvedDays);
+        if (!Objects.equals(updated.getAddress(), current.getAddress())) {
+            geocoder.locate(updated);
         }
 
-        if (time != null) {
-            try {
-                updated.setPickUpTime(LocalTime.parse(time, DateTimeFormatter.ISO_TIME));
-            } catch (DateTimeParseException e) {
-                String message = "Invalid time format (" + time + ") for the 'pickUpTime' field. The allowed format is 'hh:mm'," +
-                        " where 'hh' is the hour from 0 to 23 and 'mm' are the minutes from 0 to 59.";
-                LOG.error(message, e);
-                return Response.status(BAD_REQUEST).entity(message).build();
+        if (!repository.updateChanges(current, updated)) {
+            if (!reloaded) {
+                return update(id, form, version, cache.reload(id), true);
             }
-
+            if (version != null) {
+                return preconditionFailed(id);
+            }
+            String message = "Registered restaurant with id " + id + " was concurrently modified.";
+            LOG.warn(message);
+            return Response.status(Response.Status.CONFLICT).entity(message).build();
         }
+        if (!Objects.equals(updated.getVersion(), current.getVersion())) {
+            publisher.publishEvent(new RestaurantChangeEvent(RestaurantChangeEvent.Type.UPDATED, updated));
+        }
+        return Response.ok(updated).tag(entityTag(updated)).lastModified(lastModified(updated)).build();
+    }
 
-        Restaurant saved = repository.save(updated);
-        return Response.ok(saved).build();
+    /**
+     * Asynchronous entry point of {@link #delete(Long)}
+     */
+    @DELETE
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void delete(@PathParam("id") Long id, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> delete(id));
     }
 
     /**
@@ -206,21 +830,115 @@ public class RestaurantResource {
      *
      * @param id the id of the restaurant
      * @return a response with the deleted restaurant and a HTTP status 200 if the restaurant is successfully deleted.
-     * Returns a 404 HTTP status if the restaurant is not found
+     * Returns a 404 HTTP status if the restaurant is not found, or a 409 if it was concurrently modified
      */
-    @DELETE
-    @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response delete(@PathParam("id") Long id) {
-        LOG.info("Deleting registered restaurant with id " + id + ".");
-        Optional<Restaurant> restaurant = repository.findById(id);
+    public Response delete(Long id) {
+        LOG.info("Deleting registered restaurant with id {}.", id);
+        return delete(id, cache.findById(id), false);
+    }
+
+    /**
+     * Deletes the cached restaurant, or the one reloaded from the primary database when the cached one is stale
+     */
+    private Response delete(Long id, Optional<Restaurant> restaurant, boolean reloaded) {
         if (!restaurant.isPresent()) {
             String message = "Registered restaurant with id " + id + " not found.";
             LOG.info(message);
             return Response.status(Response.Status.NOT_FOUND).entity(message).build();
         }
-        repository.delete(restaurant.get());
-        LOG.info("Registered restaurant with id " + id + " deleted.");
+        try {
+            repository.delete(restaurant.get());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (!reloaded) {
+                return delete(id, cache.reload(id), true);
+            }
+            String message = "Registered restaurant with id " + id + " was concurrently modified.";
+            LOG.warn(message);
+            return Response.status(Response.Status.CONFLICT).entity(message).build();
+        }
+        publisher.publishEvent(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED, restaurant.get()));
+        LOG.info("Registered restaurant with id {} deleted.", id);
         return Response.ok(restaurant.get()).build();
     }
+
+    /**
+     * Creates the weak entity tag of a restaurant, derived from its id and version. The tag is weak as the same version
+     * is sent in JSON or Smile, compressed or not
+     *
+     * @param restaurant the restaurant
+     * @return the entity tag
+     */
+    static EntityTag entityTag(Restaurant restaurant) {
+        return new EntityTag(restaurant.getId() + "-" + restaurant.getVersion(), true);
+    }
+
+    /**
+     * Resolves the version of a restaurant expected by an If-Match header, which must match the entity tag of the
+     * restaurant. The weak tags sent by the GET methods are accepted too, the tag only identifies the version
+     *
+     * @param id      the id of the restaurant
+     * @param ifMatch the If-Match header
+     * @return the expected version, null if the header is not provided or is "*", or -1 if no entity tag of the header
+     * can match the restaurant
+     */
+    static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith(WEAK_TAG_PREFIX)) {
+                tag = tag.substring(WEAK_TAG_PREFIX.length());
+            }
+            if (tag.startsWith(prefix) && tag.endsWith("\"")) {
+                try {
+                    return Long.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException e) {
+                    // not a tag of this restaurant, as the other invalid tags
+                }
+            }
+        }
+        return -1L;
+    }
+
+    private Response preconditionFailed(Long id) {
+        String message = "Registered restaurant with id " + id + " was modified since the version of the request.";
+        LOG.info(message);
+        return Response.status(Response.Status.PRECONDITION_FAILED).entity(message).build();
+    }
+
+    private Response invalidPatch(Long id, String message) {
+        LOG.warn("Failed to patch restaurant with id {}: '{}'", id, message);
+        return Response.status(BAD_REQUEST).entity(message).build();
+    }
+
+    private static Date lastModified(Restaurant restaurant) {
+        return restaurant.getLastModified() == null ? null :
+                Date.from(restaurant.getLastModified().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private Response.ResponseBuilder evaluateCollectionPreconditions(Request request) {
+        return request.evaluatePreconditions(Date.from(changeLog.getLastModified()),
+                collectionTag(changeLog.getSequence()));
+    }
+
+    private Response.ResponseBuilder collectionVersion(Response.ResponseBuilder builder) {
+        long sequence = changeLog.getSequence();
+        return builder.tag(collectionTag(sequence))
+                      .lastModified(Date.from(changeLog.getLastModified()))
+                      .header(CHANGE_SEQUENCE, sequence)
+                      .variants(FORMATS);
+    }
+
+    /**
+     * Creates the weak entity tag of the collection of restaurants, derived from the sequence number of its last
+     * change
+     *
+     * @param sequence the sequence number of the last change of the restaurants
+     * @return the entity tag
+     */
+    static EntityTag collectionTag(long sequence) {
+        return new EntityTag("c-" + sequence, true);
+    }
 }
@@ -0,0 +1,185 @@
+package gabtemp.vanhackathon.resource;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Resource;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.cache.RestaurantCache;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.index.AvailabilityIndex;
+import gabtemp.vanhackathon.routing.Route;
+import gabtemp.vanhackathon.routing.RoutePlanner;
+import gabtemp.vanhackathon.routing.Stop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+
+/**
+ * Service for the routes of the couriers through the restaurants available for pick-up
+ */
+@Component
+@Path("/route")
+public class RouteResource {
+
+    /**
+     * Maximum number of restaurants of a route
+     */
+    static final int MAX_STOPS = 2000;
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final Logger LOG = LoggerFactory.getLogger(RouteResource.class);
+
+    private final int pickUpWindowSeconds;
+
+    @Resource
+    private AsyncDispatcher dispatcher;
+
+    @Resource
+    private AvailabilityIndex availabilityIndex;
+
+    @Resource
+    private RestaurantCache cache;
+
+    @Resource
+    private RoutePlanner planner;
+
+    public RouteResource(@Value("${restaurant.routing.pick-up-window-minutes:60}") int pickUpWindowMinutes) {
+        this.pickUpWindowSeconds = pickUpWindowMinutes * 60;
+    }
+
+    /**
+     * Asynchronous entry point of {@link #plan(String, String, String, String, String)}
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public void plan(@QueryParam("lat") String latitude, @QueryParam("lon") String longitude,
+            @QueryParam("day") String day, @QueryParam("from") String from, @QueryParam("to") String to,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> plan(latitude, longitude, day, from, to));
+    }
+
+    /**
+     * Plans the route of a courier through the located restaurants available for pick-up in the provided time window,
+     * see {@link RoutePlanner}. Each restaurant can be picked up from its pick-up time until the end of the configured
+     * pick-up window, so the restaurants whose pick-up window is still open at {@code from}, including the ones of the
+     * previous day past midnight, are visited too
+     *
+     * @param latitude  the latitude of the courier in degrees (required)
+     * @param longitude the longitude of the courier in degrees (required)
+     * @param day       the week day of the route, e.g. "FRIDAY" (required)
+     * @param from      the start time of the route in the format 'hh:mm' (required)
+     * @param to        the latest pick-up time of the restaurants to visit in the format 'hh:mm' (optional,
+     *                  defaults to the end of the day). If before {@code from} the window goes past midnight into the
+     *                  next day
+     * @return a response with the planned route. Produces a 200 HTTP status code. Returns a 400 if a required
+     * parameter is not provided, if any of the parameters is invalid or if there are too many restaurants to visit
+     */
+    public Response plan(String latitude, String longitude, String day, String from, String to) {
+        LOG.info("Planning route with the following parameters: Latitude={}, Longitude={}, Day={}, From={}, To={}",
+                latitude, longitude, day, from, to);
+
+        if (latitude == null || longitude == null || day == null || from == null) {
+            String message = "Query parameters 'lat', 'lon', 'day' and 'from' are mandatory";
+            LOG.warn("Failed to plan route: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        GeoPoint start;
+        try {
+            start = new GeoPoint(Double.parseDouble(latitude), Double.parseDouble(longitude));
+        } catch (IllegalArgumentException e) {
+            String message = "Invalid number for the 'lat' or 'lon' field: " + e.getMessage();
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        DayOfWeek resolvedDay;
+        try {
+            resolvedDay = DayOfWeek.valueOf(day.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            String message = "Invalid week day (" + day + ") for the 'day' field.";
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        LocalTime resolvedFrom;
+        LocalTime resolvedTo;
+        try {
+            resolvedFrom = LocalTime.parse(from, DateTimeFormatter.ISO_TIME);
+            resolvedTo = to == null ? LocalTime.MAX : LocalTime.parse(to, DateTimeFormatter.ISO_TIME);
+        } catch (DateTimeParseException e) {
+            String message = "Invalid time format (" + e.getParsedString() + ") for the 'from' or 'to' field. The " +
+                    "allowed format is 'hh:mm', where 'hh' is the hour from 0 to 23 and 'mm' are the minutes from 0 to 59.";
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        // the start of the pick-up window of each restaurant, in seconds since the start of the route day
+        Map<Long, Integer> windowStarts = new LinkedHashMap<>();
+        int startTime = resolvedFrom.toSecondOfDay();
+        int endTime = resolvedTo.toSecondOfDay();
+        int earliest = startTime - pickUpWindowSeconds;
+        if (earliest < 0) {
+            collect(resolvedDay.minus(1), SECONDS_PER_DAY + earliest, SECONDS_PER_DAY - 1, -SECONDS_PER_DAY,
+                    windowStarts);
+        }
+        if (endTime >= startTime) {
+            collect(resolvedDay, Math.max(earliest, 0), endTime, 0, windowStarts);
+        } else {
+            // past midnight, on the next day
+            collect(resolvedDay, Math.max(earliest, 0), SECONDS_PER_DAY - 1, 0, windowStarts);
+            collect(resolvedDay.plus(1), 0, endTime, SECONDS_PER_DAY, windowStarts);
+        }
+
+        List<Restaurant> available = cache.findAllById(new ArrayList<>(windowStarts.keySet()));
+        List<Stop> stops = new ArrayList<>(available.size());
+        for (Restaurant restaurant : available) {
+            if (restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+                continue;
+            }
+            int windowStart = windowStarts.get(restaurant.getId());
+            stops.add(new Stop(restaurant.getId(), new GeoPoint(restaurant.getLatitude(), restaurant.getLongitude()),
+                    windowStart, windowStart + pickUpWindowSeconds));
+        }
+        if (stops.size() > MAX_STOPS) {
+            String message = "Too many restaurants (" + stops.size() + ") in the pick-up window, the maximum is " +
+                    MAX_STOPS + ".";
+            LOG.warn("Failed to plan route: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        LOG.info("Planning route through {} of the {} available restaurants.", stops.size(), available.size());
+        Route route = planner.plan(start, startTime, stops);
+        return Response.ok(route).build();
+    }
+
+    /**
+     * Collects the start of the pick-up windows of the restaurants available on the provided day and seconds of the
+     * day, keeping the earliest window of a restaurant found more than once
+     *
+     * @param offset the seconds from the start of the route day to the start of the provided day
+     */
+    private void collect(DayOfWeek day, int fromSecond, int toSecond, int offset, Map<Long, Integer> windowStarts) {
+        availabilityIndex.scan(day, LocalTime.ofSecondOfDay(fromSecond), LocalTime.ofSecondOfDay(toSecond),
+                (secondOfDay, restaurantId) -> windowStarts.putIfAbsent(restaurantId, offset + secondOfDay));
+    }
+}
@@ -0,0 +1,149 @@
+package gabtemp.vanhackathon.resource;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Resource;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import gabtemp.vanhackathon.index.AvailabilityIndex;
+import gabtemp.vanhackathon.index.ScheduledPickUp;
+import gabtemp.vanhackathon.serialization.SmileMessageBodyWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+
+/**
+ * Service for the schedule of the pick-ups, the weekly pick-ups of the {@link AvailabilityIndex} laid out on the
+ * dates of a time range. The slots of the index are already sorted by pick-up time, so each date of the range is a
+ * binary search followed by a sequential scan, with no query to the database or the cache
+ */
+@Component
+@Path("/schedule")
+public class ScheduleResource {
+
+    /**
+     * Maximum length of the time range of a schedule
+     */
+    static final Duration MAX_RANGE = Duration.ofDays(7);
+
+    private final Logger LOG = LoggerFactory.getLogger(ScheduleResource.class);
+
+    private final Clock clock;
+
+    @Resource
+    private AsyncDispatcher dispatcher;
+
+    @Resource
+    private AvailabilityIndex availabilityIndex;
+
+    @Resource
+    private RestaurantChangeLog changeLog;
+
+    public ScheduleResource(@Value("${restaurant.schedule.zone:America/Vancouver}") String zone) {
+        this.clock = Clock.system(ZoneId.of(zone));
+    }
+
+    /**
+     * Asynchronous entry point of {@link #find(String, String, Request)}
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, SmileMessageBodyWriter.APPLICATION_SMILE})
+    public void find(@QueryParam("from") String from, @QueryParam("to") String to, @Context Request request,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> find(from, to, request));
+    }
+
+    /**
+     * Finds the pick-ups of the restaurants in the provided time range
+     *
+     * @param from    the start of the time range (inclusive) in the format 'yyyy-MM-ddThh:mm' (optional, defaults to
+     *                the current time in the configured zone)
+     * @param to      the end of the time range (inclusive) in the format 'yyyy-MM-ddThh:mm' (optional, defaults to
+     *                the last second before {@link #MAX_RANGE} after {@code from}). A range of {@link #MAX_RANGE} ends
+     *                on its last second too, so each weekly pick-up is listed once
+     * @param request the request, used to evaluate the conditional headers against the version of the restaurants
+     * @return a response with the list of the pick-ups ordered by date and time. Produces a 200 HTTP status code.
+     * Returns a 304 if the restaurants didn't change since the version known by the client and {@code from} is
+     * provided, or a 400 if any of the parameters is invalid or if the range is longer than {@link #MAX_RANGE}
+     */
+    public Response find(String from, String to, Request request) {
+        LOG.info("Finding pick-up schedule with the following parameters: From={}, To={}", from, to);
+
+        LocalDateTime resolvedFrom;
+        LocalDateTime resolvedTo;
+        try {
+            resolvedFrom = from == null ? LocalDateTime.now(clock).truncatedTo(ChronoUnit.MINUTES) :
+                    LocalDateTime.parse(from, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            // by default a whole week, each weekly pick-up once
+            resolvedTo = to == null ? resolvedFrom.plus(MAX_RANGE).minusSeconds(1) :
+                    LocalDateTime.parse(to, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            String message = "Invalid date time format (" + e.getParsedString() + ") for the 'from' or 'to' field. " +
+                    "The allowed format is 'yyyy-MM-ddThh:mm', e.g. '2018-07-06T18:30'.";
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        if (resolvedTo.isBefore(resolvedFrom) || resolvedTo.isAfter(resolvedFrom.plus(MAX_RANGE))) {
+            String message = "The 'to' field (" + resolvedTo + ") must be after the 'from' field (" + resolvedFrom +
+                    ") and at most " + MAX_RANGE.toDays() + " days later.";
+            LOG.warn("Failed to find pick-up schedule: '{}'", message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+        if (resolvedTo.equals(resolvedFrom.plus(MAX_RANGE))) {
+            // the end of a whole week is the same weekly pick-up as its start
+            resolvedTo = resolvedTo.minusSeconds(1);
+        }
+
+        // a range relative to the current time changes with the time, only a fixed range has the version of the index
+        Response.ResponseBuilder ok = Response.ok().variants(RestaurantResource.FORMATS);
+        if (from != null) {
+            long sequence = changeLog.getSequence();
+            Date lastModified = Date.from(changeLog.getLastModified());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified,
+                    RestaurantResource.collectionTag(sequence));
+            if (notModified != null) {
+                LOG.info("Pick-up schedule not modified.");
+                return notModified.build();
+            }
+            ok.tag(RestaurantResource.collectionTag(sequence)).lastModified(lastModified);
+        }
+
+        List<ScheduledPickUp> schedule = new ArrayList<>();
+        LocalDate lastDate = resolvedTo.toLocalDate();
+        for (LocalDate date = resolvedFrom.toLocalDate(); !date.isAfter(lastDate); date = date.plusDays(1)) {
+            LocalDate pickUpDate = date;
+            LocalTime start = date.equals(resolvedFrom.toLocalDate()) ? resolvedFrom.toLocalTime() : LocalTime.MIN;
+            LocalTime end = date.equals(lastDate) ? resolvedTo.toLocalTime() : LocalTime.MAX;
+            DayOfWeek day = date.getDayOfWeek();
+            availabilityIndex.scan(day, start, end, (secondOfDay, restaurantId) -> schedule.add(
+                    new ScheduledPickUp(pickUpDate, LocalTime.ofSecondOfDay(secondOfDay), restaurantId)));
+        }
+        LOG.info("{} scheduled pick-ups found.", schedule.size());
+        return ok.entity(schedule).build();
+    }
+}
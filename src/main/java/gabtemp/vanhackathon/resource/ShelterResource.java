@@ -0,0 +1,309 @@
+package gabtemp.vanhackathon.resource;
+
+import java.net.URI;
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.Resource;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.domain.InvalidShelterException;
+import gabtemp.vanhackathon.domain.PickUpParser;
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.domain.ShelterForm;
+import gabtemp.vanhackathon.event.ShelterChangeEvent;
+import gabtemp.vanhackathon.geo.Geocoder;
+import gabtemp.vanhackathon.matching.Delivery;
+import gabtemp.vanhackathon.matching.MatchingEngine;
+import gabtemp.vanhackathon.repository.ShelterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+
+/**
+ * Service for CRUD operations on Shelter resource, and for the deliveries of leftovers matched to each shelter by the
+ * {@link MatchingEngine}.
+ * <p>
+ * As in {@link RestaurantResource}, the HTTP methods delegate to the synchronous method with the same name through the
+ * {@link AsyncDispatcher}.
+ */
+@Component
+@Path("/shelter")
+public class ShelterResource {
+
+    private final Logger LOG = LoggerFactory.getLogger(ShelterResource.class);
+
+    @Resource
+    private AsyncDispatcher dispatcher;
+
+    @Resource
+    private ShelterRepository repository;
+
+    @Resource
+    private ApplicationEventPublisher publisher;
+
+    @Resource
+    private Geocoder geocoder;
+
+    @Resource
+    private MatchingEngine matchingEngine;
+
+    /**
+     * Asynchronous entry point of {@link #findAll()}
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findAll(@Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, this::findAll);
+    }
+
+    /**
+     * Finds all registered shelters
+     *
+     * @return a response with the list of the shelters ordered by id. Produces a 200 HTTP status code
+     */
+    public Response findAll() {
+        LOG.info("Finding registered shelters.");
+        List<Shelter> shelters = repository.findAllByOrderByIdAsc();
+        LOG.info("{} registered shelters found.", shelters.size());
+        return Response.ok(shelters).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #findById(Long)}
+     */
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findById(@PathParam("id") Long id, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findById(id));
+    }
+
+    /**
+     * Find a registered shelter by the provided id
+     *
+     * @param id the id of the shelter
+     * @return a response with the shelter and a HTTP status 200 if it exists. Returns a 404 if it doesn't exist
+     */
+    public Response findById(Long id) {
+        LOG.info("Finding registered shelter with id {}.", id);
+        Optional<Shelter> shelter = repository.findById(id);
+        if (!shelter.isPresent()) {
+            return notFound(id);
+        }
+        LOG.info("Registered shelter with id {} found.", id);
+        return Response.ok(shelter.get()).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #findDeliveries(Long, String)}
+     */
+    @GET
+    @Path("/{id}/deliveries")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findDeliveries(@PathParam("id") Long id, @QueryParam("day") String day,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> findDeliveries(id, day));
+    }
+
+    /**
+     * Finds the deliveries of leftovers matched to the shelter on the provided receiving day
+     *
+     * @param id  the id of the shelter
+     * @param day the receiving day, e.g. "FRIDAY" (required)
+     * @return a response with the list of the deliveries ordered by delivery time. Produces a 200 HTTP status code.
+     * Returns a 400 if the day is not provided or is invalid, or a 404 if the shelter is not registered or its address
+     * couldn't be located
+     */
+    public Response findDeliveries(Long id, String day) {
+        LOG.info("Finding deliveries of shelter with id {} on {}.", id, day);
+
+        if (day == null) {
+            LOG.warn("Failed to find deliveries: 'Query parameter 'day' is mandatory'");
+            return Response.status(BAD_REQUEST).entity("Query parameter 'day' is mandatory").build();
+        }
+
+        DayOfWeek resolvedDay = PickUpParser.parseDay(day);
+        if (resolvedDay == null) {
+            String message = "Invalid week day (" + day + ") for the 'day' field.";
+            LOG.warn(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+
+        Optional<List<Delivery>> deliveries = matchingEngine.findDeliveries(id, resolvedDay);
+        if (!deliveries.isPresent()) {
+            return notFound(id);
+        }
+        LOG.info("{} deliveries found for shelter with id {}.", deliveries.get().size(), id);
+        return Response.ok(deliveries.get()).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #create(String, String, String, String, String, String)}
+     */
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public void create(@FormParam("name") String name, @FormParam("address") String address,
+            @FormParam("capacity") String capacity, @FormParam("receivingDays") String receivingDays,
+            @FormParam("openTime") String openTime, @FormParam("closeTime") String closeTime,
+            @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> create(name, address, capacity, receivingDays, openTime, closeTime));
+    }
+
+    /**
+     * Register a new shelter using the provided fields
+     *
+     * @param name          the name of the shelter (required)
+     * @param address       the address of the shelter (required)
+     * @param capacity      the number of deliveries received per day (required)
+     * @param receivingDays the week days the shelter receives deliveries. If empty the shelter receives deliveries all
+     *                      days of the week (optional)
+     * @param openTime      the time of day the shelter starts receiving deliveries (required)
+     * @param closeTime     the time of day the shelter stops receiving deliveries, the next day if not after the open
+     *                      time (required)
+     * @return a response with the shelter and a HTTP status 201 if the shelter is successfully created with a location
+     * header pointing to the newly created resource. Returns a 400 if the mandatory parameters are not provided
+     */
+    public Response create(String name, String address, String capacity, String receivingDays, String openTime,
+            String closeTime) {
+        LOG.info("Registering new shelter with the following parameters: Name={}, Address={}, Capacity={}, " +
+                "ReceivingDays={}, OpenTime={}, CloseTime={}", name, address, capacity, receivingDays, openTime,
+                closeTime);
+
+        Shelter shelter;
+        try {
+            shelter = new ShelterForm(name, address, capacity, receivingDays, openTime, closeTime).toShelter();
+        } catch (InvalidShelterException e) {
+            LOG.warn("Failed to register a new shelter: '{}'", e.getMessage());
+            return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        geocoder.locate(shelter);
+        Shelter saved = repository.save(shelter);
+        publisher.publishEvent(new ShelterChangeEvent(ShelterChangeEvent.Type.CREATED, saved));
+        LOG.info("New shelter registered with id {}", saved.getId());
+        return Response.created(URI.create("/shelter/" + saved.getId())).entity(saved).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #update(Long, String, String, String, String, String, String)}
+     */
+    @PUT
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public void update(@PathParam("id") Long id, @FormParam("name") String name,
+            @FormParam("address") String address, @FormParam("capacity") String capacity,
+            @FormParam("receivingDays") String receivingDays, @FormParam("openTime") String openTime,
+            @FormParam("closeTime") String closeTime, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> update(id, name, address, capacity, receivingDays, openTime, closeTime));
+    }
+
+    /**
+     * Updates a registered shelter with the provided information. Only the non-null fields are updated
+     *
+     * @param id            the id of the shelter to update
+     * @param name          the name of the shelter
+     * @param address       the address of the shelter
+     * @param capacity      the number of deliveries received per day
+     * @param receivingDays the week days the shelter receives deliveries
+     * @param openTime      the time of day the shelter starts receiving deliveries
+     * @param closeTime     the time of day the shelter stops receiving deliveries
+     * @return a response with the shelter and a HTTP status 200 if the shelter is successfully updated. Returns a 400
+     * if any of the fields is invalid, a 404 if the shelter is not found, or a 409 if it was concurrently modified
+     */
+    public Response update(Long id, String name, String address, String capacity, String receivingDays,
+            String openTime, String closeTime) {
+        LOG.info("Updating existing shelter with the following parameters: Name={}, Address={}, Capacity={}, " +
+                "ReceivingDays={}, OpenTime={}, CloseTime={}", name, address, capacity, receivingDays, openTime,
+                closeTime);
+
+        Optional<Shelter> shelter = repository.findById(id);
+        if (!shelter.isPresent()) {
+            return notFound(id);
+        }
+
+        Shelter updated = new Shelter(shelter.get());
+        try {
+            new ShelterForm(name, address, capacity, receivingDays, openTime, closeTime).applyTo(updated);
+        } catch (InvalidShelterException e) {
+            LOG.warn("Failed to update shelter with id {}: '{}'", id, e.getMessage());
+            return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        if (address != null) {
+            geocoder.locate(updated);
+        }
+
+        Shelter saved;
+        try {
+            saved = repository.save(updated);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return conflict(id);
+        }
+        publisher.publishEvent(new ShelterChangeEvent(ShelterChangeEvent.Type.UPDATED, saved));
+        return Response.ok(saved).build();
+    }
+
+    /**
+     * Asynchronous entry point of {@link #delete(Long)}
+     */
+    @DELETE
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void delete(@PathParam("id") Long id, @Suspended AsyncResponse response) {
+        dispatcher.dispatch(response, () -> delete(id));
+    }
+
+    /**
+     * Deletes a registered shelter with the provided id
+     *
+     * @param id the id of the shelter
+     * @return a response with the deleted shelter and a HTTP status 200 if the shelter is successfully deleted.
+     * Returns a 404 HTTP status if the shelter is not found, or a 409 if it was concurrently modified
+     */
+    public Response delete(Long id) {
+        LOG.info("Deleting registered shelter with id {}.", id);
+        Optional<Shelter> shelter = repository.findById(id);
+        if (!shelter.isPresent()) {
+            return notFound(id);
+        }
+        try {
+            repository.delete(shelter.get());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return conflict(id);
+        }
+        publisher.publishEvent(new ShelterChangeEvent(ShelterChangeEvent.Type.DELETED, shelter.get()));
+        LOG.info("Registered shelter with id {} deleted.", id);
+        return Response.ok(shelter.get()).build();
+    }
+
+    private Response notFound(Long id) {
+        String message = "Registered shelter with id " + id + " not found.";
+        LOG.info(message);
+        return Response.status(Response.Status.NOT_FOUND).entity(message).build();
+    }
+
+    private Response conflict(Long id) {
+        String message = "Registered shelter with id " + id + " was concurrently modified.";
+        LOG.warn(message);
+        return Response.status(Response.Status.CONFLICT).entity(message).build();
+    }
+}
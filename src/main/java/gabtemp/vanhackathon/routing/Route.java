@@ -0,0 +1,57 @@
+package gabtemp.vanhackathon.routing;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A route planned by the {@link RoutePlanner}: the stops in the order they are visited, the distance travelled and the
+ * duration from the start until the last pick-up
+ */
+public class Route {
+
+    private final List<RouteStop> stops;
+
+    private final double distanceKm;
+
+    private final long durationMinutes;
+
+    private final int lateStops;
+
+    Route(List<RouteStop> stops, double distanceKm, long durationMinutes, int lateStops) {
+        this.stops = Collections.unmodifiableList(stops);
+        this.distanceKm = distanceKm;
+        this.durationMinutes = durationMinutes;
+        this.lateStops = lateStops;
+    }
+
+    public List<RouteStop> getStops() {
+        return stops;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * @return the number of stops the courier arrives after the end of their time window
+     */
+    public int getLateStops() {
+        return lateStops;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("stops", stops.size())
+                          .add("distanceKm", distanceKm)
+                          .add("durationMinutes", durationMinutes)
+                          .add("lateStops", lateStops)
+                          .toString();
+    }
+}
@@ -0,0 +1,470 @@
+package gabtemp.vanhackathon.routing;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import javax.annotation.PreDestroy;
+
+import gabtemp.vanhackathon.geo.GeoPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Plans the route of a courier picking up the leftovers of a list of restaurants, each one within its time window.
+ * <p>
+ * The cost of a route is its duration, from the start until the last pick-up including the waits for the windows to
+ * open, plus the time the courier is late at the stops weighted by {@value #LATENESS_WEIGHT}. The travel times come
+ * from a matrix of the great circle distances between the stops, at a constant speed.
+ * <p>
+ * The planner builds a route with the nearest neighbour heuristic, choosing the stop that can be picked up first, and
+ * improves it with 2-opt (reversing a sequence of stops) and or-opt (moving a sequence of up to {@value #OR_OPT_LENGTH}
+ * stops) moves until no move improves it. One search runs on each thread of a fork-join pool, restarting from
+ * randomized nearest neighbour routes, until the time budget is spent or the configured number of restarts in a row
+ * didn't find a cheaper route. The best route found is returned. Routes of up to {@value #EXACT_STOPS} stops are
+ * instead solved exactly on the calling thread, enumerating the orders while their partial cost is below the cheapest
+ * one found.
+ */
+@Component
+public class RoutePlanner {
+
+    static final double LATENESS_WEIGHT = 100;
+
+    static final int OR_OPT_LENGTH = 3;
+
+    static final int EXACT_STOPS = 8;
+
+    private static final double EPSILON = 1e-6;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private static final int RANDOMIZED_CANDIDATES = 3;
+
+    private final Logger LOG = LoggerFactory.getLogger(RoutePlanner.class);
+
+    private final double speedKmh;
+
+    private final int serviceSeconds;
+
+    private final long timeBudgetNanos;
+
+    private final int maxStalledRestarts;
+
+    private final ForkJoinPool pool;
+
+    public RoutePlanner(@Value("${restaurant.routing.speed-kmh:25}") double speedKmh,
+            @Value("${restaurant.routing.service-minutes:5}") int serviceMinutes,
+            @Value("${restaurant.routing.time-budget-millis:200}") long timeBudgetMillis,
+            @Value("${restaurant.routing.parallelism:0}") int parallelism,
+            @Value("${restaurant.routing.max-stalled-restarts:50}") int maxStalledRestarts) {
+        if (speedKmh <= 0) {
+            throw new IllegalArgumentException("The speed of the couriers must be positive");
+        }
+        this.speedKmh = speedKmh;
+        this.serviceSeconds = serviceMinutes * 60;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        this.maxStalledRestarts = maxStalledRestarts;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Plans the route of a courier through all the provided stops
+     *
+     * @param start     the location of the courier
+     * @param startTime the time the courier starts, in seconds since midnight
+     * @param stops     the stops to visit
+     * @return the best route found within the time budget
+     */
+    public Route plan(GeoPoint start, int startTime, List<Stop> stops) {
+        if (stops.isEmpty()) {
+            return new Route(Collections.emptyList(), 0, 0, 0);
+        }
+
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Instance instance = new Instance(start, startTime, stops);
+        pool.submit(instance::computeDistances).join();
+
+        if (stops.size() <= EXACT_STOPS) {
+            Search search = new Search(instance, 0, deadline);
+            search.enumerate(0, instance.startTime, 0, 0, new boolean[instance.size]);
+            Route route = instance.toRoute(search.best);
+            LOG.info("Route of {} stops solved exactly: {}", stops.size(), route);
+            return route;
+        }
+
+        List<Search> searches = new ArrayList<>();
+        for (int index = 0; index < pool.getParallelism(); index++) {
+            searches.add(new Search(instance, index, deadline));
+        }
+        Search best = pool.invoke(new RecursiveTask<Search>() {
+            @Override
+            protected Search compute() {
+                invokeAll(searches);
+                Search cheapest = searches.get(0);
+                for (Search search : searches) {
+                    if (search.bestCost < cheapest.bestCost) {
+                        cheapest = search;
+                    }
+                }
+                return cheapest;
+            }
+        });
+
+        Route route = instance.toRoute(best.best);
+        LOG.info("Route of {} stops planned with {} restarts: {}", stops.size(),
+                searches.stream().mapToInt(search -> search.restarts).sum(), route);
+        return route;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The stops of a route and the distances between them. Node 0 is the start of the courier and the following nodes
+     * are the stops, in the order of the list
+     */
+    private class Instance {
+
+        private final int startTime;
+
+        private final List<Stop> stops;
+
+        private final int size;
+
+        private final double[] latitudes;
+
+        private final double[] longitudes;
+
+        private final double[] windowStarts;
+
+        private final double[] windowEnds;
+
+        private final double[] distances;
+
+        private final double secondsPerKm = 3600 / speedKmh;
+
+        Instance(GeoPoint start, int startTime, List<Stop> stops) {
+            this.startTime = startTime;
+            this.stops = stops;
+            this.size = stops.size() + 1;
+            this.latitudes = new double[size];
+            this.longitudes = new double[size];
+            this.windowStarts = new double[size];
+            this.windowEnds = new double[size];
+            this.distances = new double[size * size];
+            latitudes[0] = start.getLatitude();
+            longitudes[0] = start.getLongitude();
+            for (int node = 1; node < size; node++) {
+                Stop stop = stops.get(node - 1);
+                latitudes[node] = stop.getLocation().getLatitude();
+                longitudes[node] = stop.getLocation().getLongitude();
+                windowStarts[node] = stop.getWindowStart();
+                windowEnds[node] = stop.getWindowEnd();
+            }
+        }
+
+        void computeDistances() {
+            IntStream.range(0, size).parallel().forEach(from -> {
+                for (int to = 0; to < size; to++) {
+                    distances[from * size + to] =
+                            GeoPoint.distanceKm(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+                }
+            });
+        }
+
+        double travelSeconds(int from, int to) {
+            return distances[from * size + to] * secondsPerKm;
+        }
+
+        Route toRoute(int[] order) {
+            List<RouteStop> routeStops = new ArrayList<>(order.length);
+            double time = startTime;
+            double distance = 0;
+            int lateStops = 0;
+            int previous = 0;
+            for (int node : order) {
+                distance += distances[previous * size + node];
+                time = Math.max(time + travelSeconds(previous, node), windowStarts[node]);
+                boolean late = time > windowEnds[node] + EPSILON;
+                lateStops += late ? 1 : 0;
+                Stop stop = stops.get(node - 1);
+                routeStops.add(new RouteStop(stop.getId(), latitudes[node], longitudes[node],
+                        LocalTime.ofSecondOfDay(Math.round(time) % 86400), late));
+                time += serviceSeconds;
+                previous = node;
+            }
+            return new Route(routeStops, distance, Math.round((time - startTime) / 60), lateStops);
+        }
+    }
+
+    /**
+     * A local search with restarts. The current route is kept with the departure time and the accumulated lateness at
+     * each position, so a move is evaluated from the first changed position and abandoned as soon as its partial cost
+     * exceeds the cost of the current route
+     */
+    private class Search extends RecursiveTask<int[]> {
+
+        private final Instance instance;
+
+        private final int index;
+
+        private final long deadline;
+
+        private final Random random;
+
+        private final int[] order;
+
+        private final int[] candidate;
+
+        private final double[] departures;
+
+        private final double[] lateness;
+
+        private double cost;
+
+        private int[] best;
+
+        private double bestCost = Double.MAX_VALUE;
+
+        private int restarts;
+
+        private int stalledRestarts;
+
+        private int evaluations;
+
+        private boolean expired;
+
+        Search(Instance instance, int index, long deadline) {
+            this.instance = instance;
+            this.index = index;
+            this.deadline = deadline;
+            this.random = new Random(index);
+            int length = instance.size - 1;
+            this.order = new int[length];
+            this.candidate = new int[length];
+            this.departures = new double[length];
+            this.lateness = new double[length];
+        }
+
+        @Override
+        protected int[] compute() {
+            do {
+                nearestNeighbour(index > 0 || restarts > 0);
+                System.arraycopy(order, 0, candidate, 0, order.length);
+                update(0);
+                boolean improved = true;
+                while (improved && !expired()) {
+                    improved = twoOpt() || orOpt();
+                }
+                if (cost < bestCost - EPSILON) {
+                    bestCost = cost;
+                    best = order.clone();
+                    stalledRestarts = 0;
+                } else {
+                    stalledRestarts++;
+                }
+                restarts++;
+            } while (!expired() && stalledRestarts < maxStalledRestarts && order.length > 2);
+            return best;
+        }
+
+        /**
+         * Enumerates the orders of the stops not visited yet from the provided position, skipping the ones whose
+         * partial cost already reaches the cheapest complete route, which is kept as the best one
+         *
+         * @param position the position of the route to fill
+         * @param time     the departure time from the previous stop
+         * @param late     the lateness accumulated at the previous stops
+         * @param previous the previous node
+         * @param visited  the nodes already in the route
+         */
+        void enumerate(int position, double time, double late, int previous, boolean[] visited) {
+            if (position == order.length) {
+                bestCost = time - instance.startTime + LATENESS_WEIGHT * late;
+                best = order.clone();
+                return;
+            }
+            for (int node = 1; node < instance.size; node++) {
+                if (visited[node]) {
+                    continue;
+                }
+                double pickUp = Math.max(time + instance.travelSeconds(previous, node), instance.windowStarts[node]);
+                double nodeLate = late + Math.max(0, pickUp - instance.windowEnds[node]);
+                double departure = pickUp + serviceSeconds;
+                if (departure - instance.startTime + LATENESS_WEIGHT * nodeLate >= bestCost) {
+                    continue;
+                }
+                visited[node] = true;
+                order[position] = node;
+                enumerate(position + 1, departure, nodeLate, node, visited);
+                visited[node] = false;
+            }
+        }
+
+        /**
+         * Builds a route visiting next the stop that can be picked up first, or one of the first ones at random
+         */
+        private void nearestNeighbour(boolean randomized) {
+            boolean[] visited = new boolean[instance.size];
+            double time = instance.startTime;
+            int previous = 0;
+            int[] candidates = new int[RANDOMIZED_CANDIDATES];
+            double[] pickUps = new double[RANDOMIZED_CANDIDATES];
+            for (int position = 0; position < order.length; position++) {
+                int count = 0;
+                for (int node = 1; node < instance.size; node++) {
+                    if (visited[node]) {
+                        continue;
+                    }
+                    double pickUp = Math.max(time + instance.travelSeconds(previous, node),
+                            instance.windowStarts[node]);
+                    pickUp += LATENESS_WEIGHT * Math.max(0, pickUp - instance.windowEnds[node]);
+                    int slot = count < candidates.length ? count++ : candidates.length;
+                    while (slot > 0 && pickUps[slot - 1] > pickUp) {
+                        if (slot < candidates.length) {
+                            candidates[slot] = candidates[slot - 1];
+                            pickUps[slot] = pickUps[slot - 1];
+                        }
+                        slot--;
+                    }
+                    if (slot < candidates.length) {
+                        candidates[slot] = node;
+                        pickUps[slot] = pickUp;
+                    }
+                }
+                int next = candidates[randomized ? random.nextInt(count) : 0];
+                visited[next] = true;
+                order[position] = next;
+                time = Math.max(time + instance.travelSeconds(previous, next), instance.windowStarts[next]) +
+                        serviceSeconds;
+                previous = next;
+            }
+        }
+
+        /**
+         * Tries the 2-opt moves, applying the first one that improves the route
+         *
+         * @return true if the route was improved
+         */
+        private boolean twoOpt() {
+            for (int i = 0; i < order.length - 1; i++) {
+                for (int j = i + 1; j < order.length; j++) {
+                    for (int k = i; k <= j; k++) {
+                        candidate[k] = order[j - (k - i)];
+                    }
+                    if (accept(i, j)) {
+                        return true;
+                    }
+                    if (expired()) {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Tries the or-opt moves, applying the first one that improves the route
+         *
+         * @return true if the route was improved
+         */
+        private boolean orOpt() {
+            for (int length = 1; length <= OR_OPT_LENGTH; length++) {
+                for (int i = 0; i + length <= order.length; i++) {
+                    for (int target = 0; target <= order.length - length; target++) {
+                        if (target == i) {
+                            continue;
+                        }
+                        // the segment moves to start at the target position, shifting the stops in between
+                        int first = Math.min(i, target);
+                        int last = Math.max(i, target) + length - 1;
+                        if (target < i) {
+                            System.arraycopy(order, i, candidate, target, length);
+                            System.arraycopy(order, target, candidate, target + length, i - target);
+                        } else {
+                            System.arraycopy(order, i + length, candidate, i, target - i);
+                            System.arraycopy(order, i, candidate, target, length);
+                        }
+                        if (accept(first, last)) {
+                            return true;
+                        }
+                        if (expired()) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Evaluates the candidate route, that differs from the current one between the provided positions. The
+         * candidate becomes the current route if it is cheaper, otherwise it is restored to the current route
+         */
+        private boolean accept(int first, int last) {
+            evaluations++;
+            if (evaluate(first) < cost - EPSILON) {
+                System.arraycopy(candidate, first, order, first, last - first + 1);
+                update(first);
+                return true;
+            }
+            System.arraycopy(order, first, candidate, first, last - first + 1);
+            return false;
+        }
+
+        /**
+         * @return the cost of the candidate route, or infinity if it is not cheaper than the current route
+         */
+        private double evaluate(int first) {
+            double time = first == 0 ? instance.startTime : departures[first - 1];
+            double late = first == 0 ? 0 : lateness[first - 1];
+            int previous = first == 0 ? 0 : candidate[first - 1];
+            for (int position = first; position < candidate.length; position++) {
+                int node = candidate[position];
+                time = Math.max(time + instance.travelSeconds(previous, node), instance.windowStarts[node]);
+                late += Math.max(0, time - instance.windowEnds[node]);
+                time += serviceSeconds;
+                if (time - instance.startTime + LATENESS_WEIGHT * late >= cost) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                previous = node;
+            }
+            return time - instance.startTime + LATENESS_WEIGHT * late;
+        }
+
+        /**
+         * Updates the departure times and the lateness of the current route from the provided position
+         */
+        private void update(int first) {
+            double time = first == 0 ? instance.startTime : departures[first - 1];
+            double late = first == 0 ? 0 : lateness[first - 1];
+            int previous = first == 0 ? 0 : order[first - 1];
+            for (int position = first; position < order.length; position++) {
+                int node = order[position];
+                time = Math.max(time + instance.travelSeconds(previous, node), instance.windowStarts[node]);
+                late += Math.max(0, time - instance.windowEnds[node]);
+                time += serviceSeconds;
+                departures[position] = time;
+                lateness[position] = late;
+                previous = node;
+            }
+            cost = time - instance.startTime + LATENESS_WEIGHT * late;
+        }
+
+        private boolean expired() {
+            if (!expired && evaluations % DEADLINE_CHECK_INTERVAL == 0) {
+                expired = System.nanoTime() > deadline;
+            }
+            return expired;
+        }
+    }
+}
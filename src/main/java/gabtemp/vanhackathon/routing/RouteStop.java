@@ -0,0 +1,67 @@
+package gabtemp.vanhackathon.routing;
+
+import java.time.LocalTime;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A stop of a planned {@link Route}, with the time the courier picks up the leftovers
+ */
+public class RouteStop {
+
+    private final long id;
+
+    private final double latitude;
+
+    private final double longitude;
+
+    private final LocalTime pickUp;
+
+    private final boolean late;
+
+    RouteStop(long id, double latitude, double longitude, LocalTime pickUp, boolean late) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.pickUp = pickUp;
+        this.late = late;
+    }
+
+    /**
+     * @return the id of the restaurant
+     */
+    public long getId() {
+        return id;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @return the time the courier picks up the leftovers, after arriving and waiting for the window if early
+     */
+    public LocalTime getPickUp() {
+        return pickUp;
+    }
+
+    /**
+     * @return true if the courier arrives after the end of the time window of the stop
+     */
+    public boolean isLate() {
+        return late;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("id", id)
+                          .add("pickUp", pickUp)
+                          .add("late", late)
+                          .toString();
+    }
+}
@@ -0,0 +1,64 @@
+package gabtemp.vanhackathon.routing;
+
+import com.google.common.base.MoreObjects;
+import gabtemp.vanhackathon.geo.GeoPoint;
+
+/**
+ * A restaurant to visit by a courier, within the time window of its pick-up. The times are in seconds since the
+ * midnight of the day of the route, so windows past midnight end after 86400
+ */
+public class Stop {
+
+    private final long id;
+
+    private final GeoPoint location;
+
+    private final int windowStart;
+
+    private final int windowEnd;
+
+    public Stop(long id, GeoPoint location, int windowStart, int windowEnd) {
+        if (windowEnd < windowStart) {
+            throw new IllegalArgumentException("The time window of stop " + id + " ends before it starts");
+        }
+        this.id = id;
+        this.location = location;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+    }
+
+    /**
+     * @return the id of the restaurant
+     */
+    public long getId() {
+        return id;
+    }
+
+    public GeoPoint getLocation() {
+        return location;
+    }
+
+    /**
+     * @return the earliest time of the pick-up, couriers arriving before wait
+     */
+    public int getWindowStart() {
+        return windowStart;
+    }
+
+    /**
+     * @return the latest time of the pick-up, couriers arriving after are late
+     */
+    public int getWindowEnd() {
+        return windowEnd;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("id", id)
+                          .add("location", location)
+                          .add("windowStart", windowStart)
+                          .add("windowEnd", windowEnd)
+                          .toString();
+    }
+}
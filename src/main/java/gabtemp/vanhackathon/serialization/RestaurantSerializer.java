@@ -0,0 +1,165 @@
+package gabtemp.vanhackathon.serialization;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.springframework.boot.jackson.JsonComponent;
+
+/**
+ * Serializer of the {@link Restaurant}, writing the same document as the serialization by reflection of its getters
+ * without the reflection: the field names and week days are encoded once, the times are formatted by hand and the
+ * fields are written straight to the generator, JSON or Smile.
+ * <p>
+ * The times and week days fall back to the serializers of the mapper when it writes dates as timestamps or enums as
+ * indexes, and the null fields are skipped when the mapper excludes them.
+ */
+@JsonComponent
+public class RestaurantSerializer extends StdSerializer<Restaurant> {
+
+    private static final SerializableString ID = new SerializedString("id");
+
+    private static final SerializableString NAME = new SerializedString("name");
+
+    private static final SerializableString ADDRESS = new SerializedString("address");
+
+    private static final SerializableString AVAILABLE_PICK_UP_DAYS = new SerializedString("availablePickUpDays");
+
+    private static final SerializableString PICK_UP_TIME = new SerializedString("pickUpTime");
+
+    private static final SerializableString LATITUDE = new SerializedString("latitude");
+
+    private static final SerializableString LONGITUDE = new SerializedString("longitude");
+
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    private static final SerializableString LAST_MODIFIED = new SerializedString("lastModified");
+
+    private static final SerializableString[] DAYS = new SerializableString[DayOfWeek.values().length];
+
+    static {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            DAYS[day.ordinal()] = new SerializedString(day.name());
+        }
+    }
+
+    public RestaurantSerializer() {
+        super(Restaurant.class);
+    }
+
+    @Override
+    public void serialize(Restaurant restaurant, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        JsonInclude.Include inclusion = provider.getConfig().getDefaultPropertyInclusion().getValueInclusion();
+        boolean nulls = inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+        boolean timestamps = provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        generator.writeStartObject(restaurant);
+        writeNumber(generator, ID, restaurant.getId(), nulls);
+        writeString(generator, NAME, restaurant.getName(), nulls);
+        writeString(generator, ADDRESS, restaurant.getAddress(), nulls);
+
+        if (restaurant.getAvailablePickUpDays() != null) {
+            generator.writeFieldName(AVAILABLE_PICK_UP_DAYS);
+            if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX)) {
+                provider.defaultSerializeValue(restaurant.getAvailablePickUpDays(), generator);
+            } else {
+                generator.writeStartArray();
+                for (DayOfWeek day : restaurant.getAvailablePickUpDays()) {
+                    generator.writeString(DAYS[day.ordinal()]);
+                }
+                generator.writeEndArray();
+            }
+        } else if (nulls) {
+            generator.writeFieldName(AVAILABLE_PICK_UP_DAYS);
+            generator.writeNull();
+        }
+
+        LocalTime pickUpTime = restaurant.getPickUpTime();
+        if (pickUpTime != null) {
+            generator.writeFieldName(PICK_UP_TIME);
+            if (timestamps) {
+                provider.defaultSerializeValue(pickUpTime, generator);
+            } else if (pickUpTime.getNano() == 0) {
+                char[] time = new char[8];
+                twoDigits(time, 0, pickUpTime.getHour());
+                time[2] = ':';
+                twoDigits(time, 3, pickUpTime.getMinute());
+                time[5] = ':';
+                twoDigits(time, 6, pickUpTime.getSecond());
+                generator.writeString(time, 0, time.length);
+            } else {
+                generator.writeString(DateTimeFormatter.ISO_LOCAL_TIME.format(pickUpTime));
+            }
+        } else if (nulls) {
+            generator.writeFieldName(PICK_UP_TIME);
+            generator.writeNull();
+        }
+
+        writeNumber(generator, LATITUDE, restaurant.getLatitude(), nulls);
+        writeNumber(generator, LONGITUDE, restaurant.getLongitude(), nulls);
+        writeNumber(generator, VERSION, restaurant.getVersion(), nulls);
+
+        Instant lastModified = restaurant.getLastModified();
+        if (lastModified != null) {
+            generator.writeFieldName(LAST_MODIFIED);
+            if (timestamps) {
+                provider.defaultSerializeValue(lastModified, generator);
+            } else {
+                generator.writeString(lastModified.toString());
+            }
+        } else if (nulls) {
+            generator.writeFieldName(LAST_MODIFIED);
+            generator.writeNull();
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value, boolean nulls)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        } else if (nulls) {
+            generator.writeFieldName(name);
+            generator.writeNull();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, SerializableString name, Long value, boolean nulls)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        } else if (nulls) {
+            generator.writeFieldName(name);
+            generator.writeNull();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, SerializableString name, Double value, boolean nulls)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        } else if (nulls) {
+            generator.writeFieldName(name);
+            generator.writeNull();
+        }
+    }
+
+    private static void twoDigits(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 10);
+        chars[offset + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -0,0 +1,66 @@
+package gabtemp.vanhackathon.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the entities of the responses in the Smile binary format, the JSON data model with binary numbers and back
+ * references to repeated field names and short strings. The Smile object mapper is built as the JSON one of the
+ * application, with the same modules and serializers, so both formats describe the same document. The shared builder
+ * only configures the Smile object mapper, so the mappers built from it later are still JSON ones.
+ * <p>
+ * String entities, i.e. the error messages, are left to the plain text writer.
+ */
+@Component
+@Produces(SmileMessageBodyWriter.APPLICATION_SMILE)
+public class SmileMessageBodyWriter implements MessageBodyWriter<Object> {
+
+    /**
+     * Media type of Smile content
+     */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE_TYPE = MediaType.valueOf(APPLICATION_SMILE);
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param objectMapperBuilder the builder of the object mappers configured for the application
+     */
+    public SmileMessageBodyWriter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        SmileFactory factory = new SmileFactory();
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.objectMapper = new ObjectMapper(factory);
+        objectMapperBuilder.configure(objectMapper);
+    }
+
+    /**
+     * @return the object mapper writing Smile content
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type != String.class && mediaType.isCompatible(APPLICATION_SMILE_TYPE);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        objectMapper.writerFor(objectMapper.constructType(genericType)).writeValue(entityStream, entity);
+    }
+}
@@ -0,0 +1,104 @@
+package gabtemp.vanhackathon.service;
+
+import java.time.Instant;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A bulk import of restaurants run in the background by the {@link ImportJobQueue}, with its progress and, once
+ * finished, its {@link ImportReport}
+ */
+public class ImportJob {
+
+    /**
+     * The progress of the import
+     */
+    public enum Status {
+        QUEUED, RUNNING, FINISHED, FAILED
+    }
+
+    private final String id;
+
+    private final Instant submitted;
+
+    private volatile Status status = Status.QUEUED;
+
+    private volatile Instant started;
+
+    private volatile Instant finished;
+
+    private volatile ImportReport report;
+
+    private volatile String error;
+
+    ImportJob(String id, Instant submitted) {
+        this.id = id;
+        this.submitted = submitted;
+    }
+
+    void start(Instant now) {
+        started = now;
+        status = Status.RUNNING;
+    }
+
+    void finish(ImportReport report, Instant now) {
+        this.report = report;
+        finished = now;
+        status = Status.FINISHED;
+    }
+
+    void fail(String error, Instant now) {
+        this.error = error;
+        finished = now;
+        status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return the instant the import started, or null while queued
+     */
+    public Instant getStarted() {
+        return started;
+    }
+
+    /**
+     * @return the instant the import finished or failed, or null while queued or running
+     */
+    public Instant getFinished() {
+        return finished;
+    }
+
+    /**
+     * @return the report of the import, or null until {@link Status#FINISHED}
+     */
+    public ImportReport getReport() {
+        return report;
+    }
+
+    /**
+     * @return the reason the content couldn't be read, only for {@link Status#FAILED} imports
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("id", id)
+                          .add("status", status)
+                          .add("report", report)
+                          .toString();
+    }
+}
@@ -0,0 +1,115 @@
+package gabtemp.vanhackathon.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the bulk imports of restaurants in the background, one at a time, so an import isn't bound by the timeout of
+ * the request that submitted it. The submitted content is first copied to a temporary file, as the request body is
+ * closed once the request is answered, and the file is deleted when its import ends.
+ * <p>
+ * At most the configured number of imports wait for their turn, further ones are rejected. The jobs are kept in memory
+ * for the configured retention after their last change, so the report of an import is only known by the node that ran
+ * it
+ */
+@Component
+public class ImportJobQueue {
+
+    private final Logger LOG = LoggerFactory.getLogger(ImportJobQueue.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final Cache<String, ImportJob> jobs;
+
+    @Resource
+    private RestaurantImporter importer;
+
+    public ImportJobQueue(@Value("${restaurant.import.queue-capacity:4}") int queueCapacity,
+            @Value("${restaurant.import.retention-minutes:60}") long retentionMinutes) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("import-worker-%d").setDaemon(true).build());
+        this.jobs = CacheBuilder.newBuilder()
+                                .expireAfterWrite(retentionMinutes, TimeUnit.MINUTES)
+                                .build();
+    }
+
+    /**
+     * Queues the import of the provided content
+     *
+     * @param content the content, a JSON array of restaurant forms or a sequence of restaurant form JSON objects
+     * @return the queued job
+     * @throws IOException                if the content can't be read
+     * @throws RejectedExecutionException if the queue of imports is full
+     */
+    public ImportJob submit(InputStream content) throws IOException {
+        Path file = Files.createTempFile("restaurant-import-", ".json");
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), Instant.now());
+        long size;
+        try {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+            size = Files.size(file);
+            executor.execute(() -> run(job, file));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        // once queued the file belongs to the job, which may already be running or even finished
+        jobs.put(job.getId(), job);
+        LOG.info("Bulk import {} queued with {} bytes.", job.getId(), size);
+        return job;
+    }
+
+    /**
+     * Finds a job by id
+     *
+     * @param id the id of the job
+     * @return the job, or an empty optional if unknown or no longer retained
+     */
+    public Optional<ImportJob> findById(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ImportJob job, Path file) {
+        job.start(Instant.now());
+        try (InputStream input = Files.newInputStream(file)) {
+            job.finish(importer.importRestaurants(input), Instant.now());
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Bulk import {} failed.", job.getId(), e);
+            job.fail(e.getMessage(), Instant.now());
+        } finally {
+            // written again so the finished job is retained for the whole retention
+            jobs.put(job.getId(), job);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete the content of bulk import {}.", job.getId(), e);
+            }
+        }
+    }
+}
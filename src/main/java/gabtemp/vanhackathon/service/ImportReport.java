@@ -0,0 +1,90 @@
+package gabtemp.vanhackathon.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The result of a bulk import of restaurants: the number of imported and failed rows and the errors of the failed rows
+ */
+public class ImportReport {
+
+    /**
+     * Maximum number of row errors kept in the report, the remaining ones are only counted
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private int imported;
+
+    private int failed;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addError(int row, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    /**
+     * @return the number of restaurants imported
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * @return the number of rows that failed to be bound, validated or persisted
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the errors of the failed rows, limited to the first {@value #MAX_REPORTED_ERRORS}
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("imported", imported)
+                          .add("failed", failed)
+                          .toString();
+    }
+
+    /**
+     * The error of a single row of the import
+     */
+    public static class RowError {
+
+        private final int row;
+
+        private final String message;
+
+        RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        /**
+         * @return the position of the row in the imported content, starting at 1
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
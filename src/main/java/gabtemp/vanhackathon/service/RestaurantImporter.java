@@ -0,0 +1,171 @@
+package gabtemp.vanhackathon.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Resource;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import gabtemp.vanhackathon.domain.InvalidRestaurantException;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.RestaurantForm;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.geo.Geocoder;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports restaurants in bulk from a stream of {@link RestaurantForm}s, either a JSON array or newline delimited JSON
+ * objects. The content is read incrementally and the valid rows are persisted in chunks, each one in its own
+ * transaction, so the JDBC inserts are batched and the memory used doesn't depend on the size of the import. Each
+ * persisted chunk is published as a single {@link RestaurantsCreatedEvent}, applied to the in memory views in one batch.
+ * <p>
+ * Each row is read as a JSON tree before being bound to the form, so a row that can't be bound, e.g. with an unknown
+ * field or a field of the wrong type, is reported and skipped like a row that fails validation. A chunk that fails to
+ * persist is persisted again row by row, so only the failing rows are reported.
+ */
+@Component
+public class RestaurantImporter {
+
+    private final Logger LOG = LoggerFactory.getLogger(RestaurantImporter.class);
+
+    private final int chunkSize;
+
+    @Resource
+    private RestaurantRepository repository;
+
+    @Resource
+    private ApplicationEventPublisher publisher;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private Geocoder geocoder;
+
+    public RestaurantImporter(@Value("${restaurant.import.chunk-size:500}") int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports the restaurants of the provided content. Rows that can't be bound, fail validation or fail to persist
+     * are skipped and reported, the remaining ones are imported. Malformed content stops the import, keeping the chunks
+     * already persisted
+     *
+     * @param input the content, a JSON array of restaurant forms or a sequence of restaurant form JSON objects
+     * @return the report of the import
+     * @throws IOException if the content can't be read
+     */
+    public ImportReport importRestaurants(InputStream input) throws IOException {
+        ImportReport report = new ImportReport();
+        List<Restaurant> chunk = new ArrayList<>(chunkSize);
+        int row = 0;
+
+        // unknown fields are rejected as by the forms of the resources, e.g. the fields of a restaurant as answered
+        ObjectReader reader = objectMapper.readerFor(RestaurantForm.class)
+                                          .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        List<Integer> rows = new ArrayList<>(chunkSize);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                row++;
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    Restaurant restaurant = reader.<RestaurantForm>readValue(node).toRestaurant();
+                    geocoder.locate(restaurant);
+                    chunk.add(restaurant);
+                    rows.add(row);
+                } catch (JsonMappingException e) {
+                    report.addError(row, bindError(e));
+                } catch (InvalidRestaurantException e) {
+                    report.addError(row, e.getMessage());
+                }
+
+                if (chunk.size() == chunkSize) {
+                    persist(chunk, rows, report);
+                    chunk = new ArrayList<>(chunkSize);
+                    rows = new ArrayList<>(chunkSize);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            String location = e.getLocation() == null ? "" : " (line " + e.getLocation().getLineNr() + ", column " +
+                    e.getLocation().getColumnNr() + ")";
+            report.addError(row, "Malformed content" + location + ": " + e.getOriginalMessage());
+        }
+
+        persist(chunk, rows, report);
+        LOG.info("Bulk import finished: {}", report);
+        return report;
+    }
+
+    /**
+     * @return the error of a row that can't be bound to a form, naming the field at fault
+     */
+    private static String bindError(JsonMappingException e) {
+        String field = e.getPath().isEmpty() ? null : e.getPath().get(e.getPath().size() - 1).getFieldName();
+        if (e instanceof UnrecognizedPropertyException) {
+            return "Unknown form parameter '" + ((UnrecognizedPropertyException) e).getPropertyName() + "'";
+        }
+        if (field == null) {
+            return "Invalid row: " + e.getOriginalMessage();
+        }
+        return "Invalid form parameter '" + field + "': " + e.getOriginalMessage();
+    }
+
+    /**
+     * Persists the chunk in a single transaction or, if it fails, each row in its own one
+     *
+     * @param chunk  the restaurants to persist
+     * @param rows   the rows of the restaurants in the imported content
+     * @param report the report of the import
+     */
+    private void persist(List<Restaurant> chunk, List<Integer> rows, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Restaurant> saved;
+        try {
+            saved = Lists.newArrayList(repository.saveAll(chunk));
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to persist a chunk of {} restaurants, persisting them one by one: '{}'", chunk.size(),
+                    e.getMessage());
+            saved = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Restaurant restaurant = chunk.get(i);
+                // the id and version assigned by the rolled back transaction
+                restaurant.setId(null);
+                restaurant.setVersion(null);
+                try {
+                    saved.add(repository.save(restaurant));
+                } catch (RuntimeException rowError) {
+                    report.addError(rows.get(i), "Failed to persist: " + Throwables.getRootCause(rowError).getMessage());
+                }
+            }
+        }
+        if (!saved.isEmpty()) {
+            publisher.publishEvent(new RestaurantsCreatedEvent(saved));
+            report.addImported(saved.size());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.Collections;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.metrics.RequestMetricsListener;
+import gabtemp.vanhackathon.resource.AsyncDispatcher;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadSheddingFilterTest {
+
+    @Mock
+    private AsyncDispatcher dispatcher;
+
+    @Mock
+    private RequestMetricsListener requestMetrics;
+
+    @Mock
+    private ContainerRequestContext request;
+
+    @Mock
+    private ExtendedUriInfo uriInfo;
+
+    @InjectMocks
+    private LoadSheddingFilter filter;
+
+    @Test
+    public void testShedReads() {
+        when(request.getMethod()).thenReturn(HttpMethod.GET);
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        when(uriInfo.getMatchedTemplates()).thenReturn(Collections.singletonList(new UriTemplate("/restaurant")));
+        when(dispatcher.isOverloaded()).thenReturn(true);
+
+        filter.filter(request);
+        ArgumentCaptor<Response> shed = ArgumentCaptor.forClass(Response.class);
+        verify(request).abortWith(shed.capture());
+        assertThat("Shed reads - status: ", shed.getValue().getStatus(), is(SERVICE_UNAVAILABLE.getStatusCode()));
+        verify(requestMetrics).rejected(HttpMethod.GET, "/restaurant", LoadSheddingFilter.REASON);
+    }
+
+    @Test
+    public void testKeepWritesAndMetrics() {
+        when(request.getMethod()).thenReturn(HttpMethod.POST, HttpMethod.GET);
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        when(uriInfo.getMatchedTemplates()).thenReturn(Collections.singletonList(new UriTemplate("/metrics")));
+        when(dispatcher.isOverloaded()).thenReturn(true);
+
+        filter.filter(request);
+        filter.filter(request);
+        verify(request, never()).abortWith(any());
+        verifyZeroInteractions(requestMetrics);
+    }
+
+    @Test
+    public void testNotOverloaded() {
+        when(request.getMethod()).thenReturn(HttpMethod.GET);
+
+        filter.filter(request);
+        verify(request, never()).abortWith(any());
+    }
+}
@@ -0,0 +1,42 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class QueueDelayMonitorTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final QueueDelayMonitor monitor = new QueueDelayMonitor(100, 1000);
+
+    @Test
+    public void testStandingQueue() {
+        monitor.record(150 * MILLI, 0);
+        monitor.record(300 * MILLI, 500 * MILLI);
+        assertThat("Standing queue - burst: ", monitor.isOverloaded(500 * MILLI), is(false));
+
+        monitor.record(200 * MILLI, 1000 * MILLI);
+        assertThat("Standing queue - above for an interval: ", monitor.isOverloaded(1000 * MILLI), is(true));
+        assertThat("Standing queue - expired without requests: ", monitor.isOverloaded(2000 * MILLI), is(false));
+
+        monitor.record(200 * MILLI, 1500 * MILLI);
+        assertThat("Standing queue - still above: ", monitor.isOverloaded(1500 * MILLI), is(true));
+        monitor.record(10 * MILLI, 1600 * MILLI);
+        assertThat("Standing queue - drained: ", monitor.isOverloaded(1600 * MILLI), is(false));
+        monitor.record(200 * MILLI, 1700 * MILLI);
+        assertThat("Standing queue - above again: ", monitor.isOverloaded(1700 * MILLI), is(false));
+    }
+
+    @Test
+    public void testDisabled() {
+        QueueDelayMonitor disabled = new QueueDelayMonitor(0, 1000);
+        for (long now = 0; now <= 2000 * MILLI; now += 100 * MILLI) {
+            disabled.record(10_000 * MILLI, now);
+        }
+        assertThat("Disabled: ", disabled.isOverloaded(2000 * MILLI), is(false));
+    }
+}
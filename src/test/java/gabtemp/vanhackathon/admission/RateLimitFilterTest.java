@@ -0,0 +1,96 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.Collections;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.metrics.RequestMetricsListener;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static javax.ws.rs.core.Response.Status.TOO_MANY_REQUESTS;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RateLimitFilterTest {
+
+    @Mock
+    private RequestMetricsListener requestMetrics;
+
+    @Mock
+    private HttpServletRequest servletRequest;
+
+    @Mock
+    private ContainerRequestContext request;
+
+    @Mock
+    private ExtendedUriInfo uriInfo;
+
+    @InjectMocks
+    private RateLimitFilter filter = new RateLimitFilter("0.001/2", "GET /restaurant = 0.001/1, GET /none=1", "", 10);
+
+    @Test
+    public void testEndpointLimit() {
+        when(request.getMethod()).thenReturn(HttpMethod.GET);
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        when(uriInfo.getMatchedTemplates()).thenReturn(Collections.singletonList(new UriTemplate("/restaurant")));
+        when(servletRequest.getRemoteAddr()).thenReturn("10.0.0.1", "10.0.0.1", "10.0.0.2");
+
+        filter.filter(request);
+        verify(request, never()).abortWith(any());
+
+        filter.filter(request);
+        ArgumentCaptor<Response> rejected = ArgumentCaptor.forClass(Response.class);
+        verify(request).abortWith(rejected.capture());
+        assertThat("Endpoint limit - status: ", rejected.getValue().getStatus(), is(TOO_MANY_REQUESTS.getStatusCode()));
+        assertThat("Endpoint limit - retry after: ",
+                rejected.getValue().getHeaderString(HttpHeaders.RETRY_AFTER), is("1000"));
+        verify(requestMetrics).rejected(HttpMethod.GET, "/restaurant", RateLimitFilter.REASON);
+
+        filter.filter(request);
+        verify(request, times(1)).abortWith(any());
+    }
+
+    @Test
+    public void testDefaultLimit() {
+        when(request.getMethod()).thenReturn(HttpMethod.DELETE);
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        when(uriInfo.getMatchedTemplates()).thenReturn(Collections.singletonList(new UriTemplate("/restaurant/{id}")));
+        when(servletRequest.getRemoteAddr()).thenReturn("10.0.0.1");
+
+        filter.filter(request);
+        filter.filter(request);
+        verify(request, never()).abortWith(any());
+        filter.filter(request);
+        verify(request).abortWith(any());
+    }
+
+    @Test
+    public void testClient() {
+        assertThat("Client - remote address: ", RateLimitFilter.client(null, "10.0.0.1"), is("10.0.0.1"));
+        assertThat("Client - forwarded: ", RateLimitFilter.client(" 192.168.0.7, 10.0.0.2", "10.0.0.1"),
+                is("192.168.0.7"));
+        assertThat("Client - empty header: ", RateLimitFilter.client("", "10.0.0.1"), is("10.0.0.1"));
+        assertThat("Client - unknown: ", RateLimitFilter.client(null, null), is("unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        new RateLimitFilter("10/0", "", "", 10);
+    }
+}
@@ -0,0 +1,42 @@
+package gabtemp.vanhackathon.admission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstAndRefill() {
+        long now = 1000;
+        TokenBucket bucket = new TokenBucket(2, 3, now);
+
+        assertThat("Burst - first: ", bucket.tryAcquire(now), is(0L));
+        assertThat("Burst - second: ", bucket.tryAcquire(now), is(0L));
+        assertThat("Burst - third: ", bucket.tryAcquire(now), is(0L));
+        assertThat("Burst - empty, wait: ", bucket.tryAcquire(now), is(SECOND / 2));
+
+        assertThat("Refill - before the next permit: ", bucket.tryAcquire(now + SECOND / 4), is(SECOND / 4));
+        assertThat("Refill - next permit: ", bucket.tryAcquire(now + SECOND / 2), is(0L));
+        assertThat("Refill - empty again: ", bucket.tryAcquire(now + SECOND / 2) > 0, is(true));
+    }
+
+    @Test
+    public void testIdleBucketIsFull() {
+        long now = -5 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 2, now);
+        bucket.tryAcquire(now);
+        bucket.tryAcquire(now);
+
+        long later = now + 60 * SECOND;
+        assertThat("Idle - first: ", bucket.tryAcquire(later), is(0L));
+        assertThat("Idle - second: ", bucket.tryAcquire(later), is(0L));
+        assertThat("Idle - no more than the burst: ", bucket.tryAcquire(later), is(SECOND / 10));
+        assertThat("Idle - refill time: ", bucket.getRefillNanos(), is(SECOND / 5));
+    }
+}
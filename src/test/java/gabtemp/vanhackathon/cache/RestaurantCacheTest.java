@@ -0,0 +1,144 @@
+package gabtemp.vanhackathon.cache;
+
+import java.util.Optional;
+
+import gabtemp.vanhackathon.datasource.ReadYourWrites;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestaurantCacheTest {
+
+    @Mock
+    private RestaurantRepository repository;
+
+    private RestaurantCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new RestaurantCache(100, 600);
+        ReflectionTestUtils.setField(cache, "repository", repository);
+    }
+
+    @Test
+    public void testReadThrough() {
+        Restaurant restaurant = restaurant(1L, "name");
+        when(repository.findById(1L)).thenReturn(Optional.of(restaurant));
+        when(repository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThat("Read through - first read: ", cache.findById(1L), is(Optional.of(restaurant)));
+        assertThat("Read through - second read: ", cache.findById(1L), is(Optional.of(restaurant)));
+        assertThat("Read through - missing: ", cache.findById(2L), is(Optional.empty()));
+        assertThat("Read through - missing again: ", cache.findById(2L), is(Optional.empty()));
+
+        verify(repository, times(1)).findById(1L);
+        verify(repository, times(1)).findById(2L);
+        assertThat("Read through - hits: ", cache.stats().hitCount(), is(2L));
+        assertThat("Read through - misses: ", cache.stats().missCount(), is(2L));
+    }
+
+    @Test
+    public void testFindAllById() {
+        Restaurant restaurant1 = restaurant(1L, "name 1");
+        Restaurant restaurant3 = restaurant(3L, "name 3");
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, restaurant1));
+        when(repository.findAllById(any())).thenReturn(asList(restaurant3));
+
+        assertThat("Find all by id: ", cache.findAllById(asList(3L, 2L, 1L)), is(asList(restaurant3, restaurant1)));
+        assertThat("Find all by id - cached: ", cache.findAllById(asList(3L, 2L, 1L)),
+                is(asList(restaurant3, restaurant1)));
+        verify(repository, times(1)).findAllById(any());
+        assertThat("Find all by id - hits: ", cache.stats().hitCount(), is(4L));
+        assertThat("Find all by id - misses: ", cache.stats().missCount(), is(2L));
+    }
+
+    @Test
+    public void testPinnedBypass() {
+        Restaurant stale = restaurant(1L, "name");
+        Restaurant current = restaurant(1L, "new name");
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, stale));
+        when(repository.findById(1L)).thenReturn(Optional.of(current));
+        when(repository.findAllById(any())).thenReturn(asList(current));
+
+        ReadYourWrites.setPinned(true);
+        try {
+            assertThat("Pinned - read from the database: ", cache.findById(1L).get().getName(), is("new name"));
+            assertThat("Pinned - all read from the database: ", cache.findAllById(asList(1L)), is(asList(current)));
+        } finally {
+            ReadYourWrites.setPinned(false);
+        }
+        assertThat("Pinned - cache refreshed: ", cache.findById(1L).get().getName(), is("new name"));
+        verify(repository, times(1)).findById(1L);
+        verify(repository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void testReload() {
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, restaurant(1L, "name")));
+        when(repository.findById(1L)).thenAnswer(invocationOnMock -> {
+            assertThat("Reload - pinned: ", ReadYourWrites.isPinned(), is(true));
+            return Optional.empty();
+        });
+
+        assertThat("Reload - deleted: ", cache.reload(1L), is(Optional.empty()));
+        assertThat("Reload - cached: ", cache.findById(1L), is(Optional.empty()));
+        assertThat("Reload - pinning restored: ", ReadYourWrites.isPinned(), is(false));
+    }
+
+    @Test
+    public void testChanges() {
+        Restaurant created = restaurant(1L, "name");
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, created));
+        assertThat("Changes - created: ", cache.findById(1L), is(Optional.of(created)));
+
+        Restaurant updated = restaurant(1L, "new name");
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.UPDATED, updated));
+        assertThat("Changes - updated: ", cache.findById(1L).get().getName(), is("new name"));
+
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED, updated));
+        assertThat("Changes - deleted: ", cache.findById(1L), is(Optional.empty()));
+
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    public void testIsOlder() {
+        Restaurant stale = restaurant(1L, "name");
+        stale.setVersion(1L);
+        assertThat("Is older - not cached: ", cache.isOlder(stale), is(false));
+
+        Restaurant current = restaurant(1L, "new name");
+        current.setVersion(2L);
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.UPDATED, current));
+        assertThat("Is older - older version: ", cache.isOlder(stale), is(true));
+        assertThat("Is older - same version: ", cache.isOlder(current), is(false));
+
+        cache.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED, current));
+        assertThat("Is older - deleted: ", cache.isOlder(stale), is(false));
+
+        verify(repository, never()).findById(any());
+    }
+
+    private static Restaurant restaurant(Long id, String name) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName(name);
+        return restaurant;
+    }
+}
@@ -0,0 +1,52 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.util.Arrays;
+
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import org.junit.Test;
+
+import static gabtemp.vanhackathon.cluster.ChangeMessage.Entity.RESTAURANT;
+import static gabtemp.vanhackathon.cluster.ChangeMessage.Entity.SHELTER;
+import static gabtemp.vanhackathon.event.RestaurantChangeEvent.Type.CREATED;
+import static gabtemp.vanhackathon.event.RestaurantChangeEvent.Type.DELETED;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ChangeMessageTest {
+
+    @Test
+    public void testEncodeDecode() {
+        byte[] bytes = new ChangeMessage(-42L, 7L, new ChangeMessage.Entity[]{RESTAURANT, SHELTER},
+                new RestaurantChangeEvent.Type[]{CREATED, DELETED}, new long[]{1L, Long.MAX_VALUE}).encode();
+
+        ChangeMessage decoded = ChangeMessage.decode(bytes);
+        assertThat("Decode - node: ", decoded.getNode(), is(-42L));
+        assertThat("Decode - sequence: ", decoded.getSequence(), is(7L));
+        assertThat("Decode - entities: ", decoded.getEntities(),
+                is(new ChangeMessage.Entity[]{RESTAURANT, SHELTER}));
+        assertThat("Decode - types: ", decoded.getTypes(), is(new RestaurantChangeEvent.Type[]{CREATED, DELETED}));
+        assertThat("Decode - ids: ", decoded.getIds(), is(new long[]{1L, Long.MAX_VALUE}));
+    }
+
+    @Test
+    public void testMaxSize() {
+        ChangeMessage.Entity[] entities = new ChangeMessage.Entity[ChangeMessage.MAX_CHANGES];
+        Arrays.fill(entities, SHELTER);
+        RestaurantChangeEvent.Type[] types = new RestaurantChangeEvent.Type[ChangeMessage.MAX_CHANGES];
+        Arrays.fill(types, CREATED);
+        byte[] bytes = new ChangeMessage(1L, 1L, entities, types, new long[ChangeMessage.MAX_CHANGES]).encode();
+        assertThat("Max size - fits: ", bytes.length <= ClusterTransport.MAX_MESSAGE_SIZE, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeTruncated() {
+        byte[] bytes = new ChangeMessage(1L, 1L, new ChangeMessage.Entity[]{RESTAURANT},
+                new RestaurantChangeEvent.Type[]{CREATED}, new long[]{1L}).encode();
+        ChangeMessage.decode(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeUnknown() {
+        ChangeMessage.decode("not a change message".getBytes());
+    }
+}
@@ -0,0 +1,268 @@
+package gabtemp.vanhackathon.cluster;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import gabtemp.vanhackathon.cache.RestaurantCache;
+import gabtemp.vanhackathon.datasource.ReadYourWrites;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.event.ShelterChangeEvent;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import gabtemp.vanhackathon.repository.ShelterRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static gabtemp.vanhackathon.event.RestaurantChangeEvent.Type.CREATED;
+import static gabtemp.vanhackathon.event.RestaurantChangeEvent.Type.DELETED;
+import static gabtemp.vanhackathon.event.RestaurantChangeEvent.Type.UPDATED;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClusterEventBusTest {
+
+    private final Set<InMemoryTransport> cluster = InMemoryTransport.cluster();
+
+    private final ClusterEventBus sender = new ClusterEventBus(new InMemoryTransport(cluster), 60_000, 60_000);
+
+    @Mock
+    private RestaurantRepository repository;
+
+    @Mock
+    private ShelterRepository shelterRepository;
+
+    @Mock
+    private RestaurantCache cache;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @InjectMocks
+    private ClusterEventBus receiver = new ClusterEventBus(new InMemoryTransport(cluster), 60_000, 60_000);
+
+    @Before
+    public void setUp() throws IOException {
+        sender.start();
+        receiver.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        sender.stop();
+        receiver.stop();
+    }
+
+    @Test
+    public void testCoalesce() {
+        Restaurant updated = restaurant(1L);
+        when(repository.findAllById(singletonList(1L))).thenReturn(singletonList(updated));
+
+        sender.onRestaurantChange(new RestaurantChangeEvent(CREATED, restaurant(1L)));
+        sender.onRestaurantChange(new RestaurantChangeEvent(UPDATED, restaurant(1L)));
+        sender.onRestaurantChange(new RestaurantChangeEvent(CREATED, restaurant(2L)));
+        sender.onRestaurantChange(new RestaurantChangeEvent(DELETED, restaurant(2L)));
+        sender.onRestaurantChange(new RestaurantChangeEvent(UPDATED, restaurant(3L), true));
+        verifyZeroInteractions(publisher);
+        sender.flush();
+
+        List<RestaurantChangeEvent> events = publishedEvents(2);
+        assertThat("Coalesce - created: ", events.get(0).getType(), is(CREATED));
+        assertThat("Coalesce - created restaurant: ", events.get(0).getRestaurant(), is(updated));
+        assertThat("Coalesce - created remote: ", events.get(0).isRemote(), is(true));
+        assertThat("Coalesce - deleted: ", events.get(1).getType(), is(DELETED));
+        assertThat("Coalesce - deleted id: ", events.get(1).getRestaurant().getId(), is(2L));
+        verify(publisher, never()).publishEvent(any(RestaurantsResyncEvent.class));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sender.bindTo(registry);
+        assertThat("Coalesce - sent: ", registry.get("cluster.changes.sent").functionCounter().count(), is(2.0));
+        assertThat("Coalesce - coalesced: ", registry.get("cluster.changes.coalesced").functionCounter().count(),
+                is(2.0));
+    }
+
+    @Test
+    public void testStaleChange() {
+        Restaurant stale = restaurant(1L);
+        Restaurant current = restaurant(2L);
+        when(repository.findAllById(asList(1L, 2L))).thenReturn(asList(stale, current));
+        when(cache.isOlder(stale)).thenReturn(true);
+
+        sender.onRestaurantChange(new RestaurantChangeEvent(UPDATED, restaurant(1L)));
+        sender.onRestaurantChange(new RestaurantChangeEvent(UPDATED, restaurant(2L)));
+        sender.flush();
+
+        List<RestaurantChangeEvent> events = publishedEvents(1);
+        assertThat("Stale change - current published: ", events.get(0).getRestaurant().getId(), is(2L));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        receiver.bindTo(registry);
+        assertThat("Stale change - stale: ", registry.get("cluster.changes.stale").functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    public void testShelterChanges() {
+        Shelter updated = new Shelter();
+        updated.setId(1L);
+        when(shelterRepository.findAllById(singletonList(1L))).thenReturn(singletonList(updated));
+
+        sender.onShelterChange(new ShelterChangeEvent(ShelterChangeEvent.Type.CREATED, shelter(1L)));
+        sender.onShelterChange(new ShelterChangeEvent(ShelterChangeEvent.Type.UPDATED, shelter(1L)));
+        sender.onShelterChange(new ShelterChangeEvent(ShelterChangeEvent.Type.DELETED, shelter(2L)));
+        sender.onShelterChange(new ShelterChangeEvent(ShelterChangeEvent.Type.UPDATED, shelter(3L), true));
+        sender.onRestaurantChange(new RestaurantChangeEvent(DELETED, restaurant(4L)));
+        sender.flush();
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(publisher, times(3)).publishEvent(events.capture());
+        RestaurantChangeEvent restaurant = (RestaurantChangeEvent) events.getAllValues().get(0);
+        assertThat("Shelter changes - restaurant first: ", restaurant.getRestaurant().getId(), is(4L));
+        ShelterChangeEvent created = (ShelterChangeEvent) events.getAllValues().get(1);
+        assertThat("Shelter changes - created: ", created.getType(), is(ShelterChangeEvent.Type.CREATED));
+        assertThat("Shelter changes - created shelter: ", created.getShelter() == updated, is(true));
+        assertThat("Shelter changes - created remote: ", created.isRemote(), is(true));
+        ShelterChangeEvent deleted = (ShelterChangeEvent) events.getAllValues().get(2);
+        assertThat("Shelter changes - deleted: ", deleted.getType(), is(ShelterChangeEvent.Type.DELETED));
+        assertThat("Shelter changes - deleted id: ", deleted.getShelter().getId(), is(2L));
+    }
+
+    @Test
+    public void testBatch() {
+        int changes = ChangeMessage.MAX_CHANGES + 1;
+        for (long id = 1; id <= changes; id++) {
+            sender.onRestaurantChange(new RestaurantChangeEvent(DELETED, restaurant(id)));
+        }
+        sender.flush();
+
+        assertThat("Batch - published: ", publishedEvents(changes).size(), is(changes));
+        verifyZeroInteractions(repository);
+    }
+
+    @Test
+    public void testReloadMissing() {
+        sender.onRestaurantChange(new RestaurantChangeEvent(UPDATED, restaurant(5L)));
+        sender.flush();
+
+        RestaurantChangeEvent event = publishedEvents(1).get(0);
+        assertThat("Reload missing - deleted: ", event.getType(), is(DELETED));
+        assertThat("Reload missing - id: ", event.getRestaurant().getId(), is(5L));
+    }
+
+    @Test
+    public void testLostMessages() throws Exception {
+        long node = 99L;
+        receiver.receive(deletion(node, 1L, 1L).encode());
+        verify(publisher, never()).publishEvent(any(RestaurantsResyncEvent.class));
+
+        CompletableFuture<Boolean> pinned = new CompletableFuture<>();
+        doAnswer(invocation -> pinned.complete(ReadYourWrites.isPinned()))
+                .when(publisher).publishEvent(any(RestaurantsResyncEvent.class));
+        receiver.receive(deletion(node, 4L, 2L).encode());
+        assertThat("Lost messages - resync pinned: ", pinned.get(1, TimeUnit.SECONDS), is(true));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        receiver.bindTo(registry);
+        assertThat("Lost messages: ", registry.get("cluster.messages.lost").functionCounter().count(), is(2.0));
+        assertThat("Lost messages - received: ", registry.get("cluster.changes.received").functionCounter().count(),
+                is(2.0));
+        assertThat("Lost messages - resyncs: ", registry.get("cluster.resyncs").functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    public void testLostLastMessages() {
+        long node = 99L;
+        receiver.receive(deletion(node, 1L, 1L).encode());
+        receiver.receive(ChangeMessage.heartbeat(node, 1L).encode());
+        verify(publisher, never()).publishEvent(any(RestaurantsResyncEvent.class));
+
+        receiver.receive(ChangeMessage.heartbeat(node, 3L).encode());
+        verify(publisher, timeout(1000)).publishEvent(any(RestaurantsResyncEvent.class));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        receiver.bindTo(registry);
+        assertThat("Lost last messages: ", registry.get("cluster.messages.lost").functionCounter().count(), is(2.0));
+        assertThat("Lost last messages - received: ",
+                registry.get("cluster.changes.received").functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    public void testHeartbeat() {
+        sender.onRestaurantChange(new RestaurantChangeEvent(DELETED, restaurant(1L)));
+        sender.flush();
+        sender.heartbeat();
+        sender.heartbeat();
+
+        assertThat("Heartbeat - published: ", publishedEvents(1).size(), is(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        receiver.bindTo(registry);
+        assertThat("Heartbeat - lost: ", registry.get("cluster.messages.lost").functionCounter().count(), is(0.0));
+    }
+
+    @Test
+    public void testFirstContactAfterGrace() throws Exception {
+        ClusterEventBus late = new ClusterEventBus(new InMemoryTransport(InMemoryTransport.cluster()), 60_000, 10);
+        ReflectionTestUtils.setField(late, "publisher", publisher);
+        late.start();
+        try {
+            Thread.sleep(ClusterEventBus.GRACE_HEARTBEATS * 10 + 50);
+            late.receive(ChangeMessage.heartbeat(99L, 2L).encode());
+            ArgumentCaptor<RestaurantsResyncEvent> event = ArgumentCaptor.forClass(RestaurantsResyncEvent.class);
+            verify(publisher, timeout(1000)).publishEvent(event.capture());
+            assertThat("First contact after grace - node: ", event.getValue().getReason().contains("99"), is(true));
+        } finally {
+            late.stop();
+        }
+    }
+
+    @Test
+    public void testInvalidMessage() {
+        receiver.receive(asList(1, 2, 3).toString().getBytes());
+        verifyZeroInteractions(publisher);
+    }
+
+    private List<RestaurantChangeEvent> publishedEvents(int count) {
+        ArgumentCaptor<RestaurantChangeEvent> events = ArgumentCaptor.forClass(RestaurantChangeEvent.class);
+        verify(publisher, times(count)).publishEvent(events.capture());
+        return events.getAllValues();
+    }
+
+    private static ChangeMessage deletion(long node, long sequence, long id) {
+        return new ChangeMessage(node, sequence, new ChangeMessage.Entity[]{ChangeMessage.Entity.RESTAURANT},
+                new RestaurantChangeEvent.Type[]{DELETED}, new long[]{id});
+    }
+
+    private static Shelter shelter(long id) {
+        Shelter shelter = new Shelter();
+        shelter.setId(id);
+        return shelter;
+    }
+
+    private static Restaurant restaurant(long id) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        return restaurant;
+    }
+}
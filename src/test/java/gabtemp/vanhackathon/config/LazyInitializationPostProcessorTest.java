@@ -0,0 +1,33 @@
+package gabtemp.vanhackathon.config;
+
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static java.util.Collections.singleton;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class LazyInitializationPostProcessorTest {
+
+    @Test
+    public void testPostProcessBeanFactory() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("planner", new RootBeanDefinition(Object.class));
+        beanFactory.registerBeanDefinition("index", new RootBeanDefinition(Object.class));
+        RootBeanDefinition infrastructure = new RootBeanDefinition(Object.class);
+        infrastructure.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+        beanFactory.registerBeanDefinition("infrastructure", infrastructure);
+        RootBeanDefinition prototype = new RootBeanDefinition(Object.class);
+        prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition("prototype", prototype);
+
+        new LazyInitializationPostProcessor(singleton("index")).postProcessBeanFactory(beanFactory);
+        assertThat("Lazy - application bean: ", beanFactory.getBeanDefinition("planner").isLazyInit(), is(true));
+        assertThat("Lazy - eager bean: ", beanFactory.getBeanDefinition("index").isLazyInit(), is(false));
+        assertThat("Lazy - infrastructure bean: ", beanFactory.getBeanDefinition("infrastructure").isLazyInit(),
+                is(false));
+        assertThat("Lazy - prototype bean: ", beanFactory.getBeanDefinition("prototype").isLazyInit(), is(false));
+    }
+}
@@ -0,0 +1,81 @@
+package gabtemp.vanhackathon.datasource;
+
+import java.util.Collections;
+import java.util.Map;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReadYourWritesFilterTest {
+
+    @Mock
+    private ContainerRequestContext request;
+
+    @Mock
+    private ContainerResponseContext response;
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(2000);
+
+    @After
+    public void tearDown() {
+        ReadYourWrites.setPinned(false);
+    }
+
+    @Test
+    public void testWriteSetsCookie() {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        when(request.getMethod()).thenReturn(HttpMethod.PATCH);
+        when(response.getStatusInfo()).thenReturn(Response.Status.OK);
+        when(response.getHeaders()).thenReturn(headers);
+
+        filter.filter(request, response);
+        NewCookie cookie = (NewCookie) headers.getFirst(HttpHeaders.SET_COOKIE);
+        assertThat("Write - cookie: ", cookie.getName(), is(ReadYourWritesFilter.COOKIE));
+        assertThat("Write - max age: ", cookie.getMaxAge(), is(2));
+
+        when(request.getCookies()).thenReturn(Collections.singletonMap(cookie.getName(), cookie));
+        filter.filter(request);
+        assertThat("Write - next request pinned: ", ReadYourWrites.isPinned(), is(true));
+    }
+
+    @Test
+    public void testReadOrFailedWriteKeepsReplicas() {
+        when(request.getMethod()).thenReturn(HttpMethod.GET, HttpMethod.PUT);
+        when(response.getStatusInfo()).thenReturn(Response.Status.CONFLICT);
+
+        filter.filter(request, response);
+        filter.filter(request, response);
+        verify(response, never()).getHeaders();
+    }
+
+    @Test
+    public void testIsSticky() {
+        assertThat("Sticky - no cookie: ", ReadYourWritesFilter.isSticky(Collections.emptyMap(), 1000), is(false));
+        assertThat("Sticky - not expired: ", ReadYourWritesFilter.isSticky(cookie("2000"), 1000), is(true));
+        assertThat("Sticky - expired: ", ReadYourWritesFilter.isSticky(cookie("2000"), 2000), is(false));
+        assertThat("Sticky - invalid: ", ReadYourWritesFilter.isSticky(cookie("soon"), 1000), is(false));
+    }
+
+    private static Map<String, Cookie> cookie(String value) {
+        return Collections.singletonMap(ReadYourWritesFilter.COOKIE, new Cookie(ReadYourWritesFilter.COOKIE, value));
+    }
+}
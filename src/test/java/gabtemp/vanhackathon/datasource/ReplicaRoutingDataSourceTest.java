@@ -0,0 +1,131 @@
+package gabtemp.vanhackathon.datasource;
+
+import java.util.Arrays;
+import java.util.Properties;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Routing between in memory H2 instances, a primary and two replicas, each one with a row that tells them apart. The
+ * routing is checked with the JDBC transactions and with the JPA ones of the repositories, whose dialect prepares the
+ * connection when the transaction begins
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(database("primary"), Arrays.asList(database("replica-a"),
+                    database("replica-b")))));
+
+    private final DataSourceTransactionManager transactionManager =
+            new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @After
+    public void tearDown() {
+        ReadYourWrites.setPinned(false);
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void testReadOnlyToReplicas() {
+        assertThat("Read-only - first replica: ", name(true), is("replica-a"));
+        assertThat("Read-only - next replica: ", name(true), is("replica-b"));
+        assertThat("Read-only - round robin: ", name(true), is("replica-a"));
+    }
+
+    @Test
+    public void testWritesToPrimary() {
+        assertThat("Read-write transaction: ", name(false), is("primary"));
+        assertThat("No transaction: ", jdbcTemplate.queryForObject("SELECT NAME FROM INSTANCE", String.class),
+                is("primary"));
+    }
+
+    @Test
+    public void testPinnedToPrimary() {
+        ReadYourWrites.setPinned(true);
+        assertThat("Pinned read-only transaction: ", name(true), is("primary"));
+    }
+
+    @Test
+    public void testJpaReadOnlyToReplicas() {
+        EntityManager entityManager = entityManager();
+        assertThat("JPA read-only - first replica: ", name(entityManager, true), is("replica-a"));
+        assertThat("JPA read-only - next replica: ", name(entityManager, true), is("replica-b"));
+    }
+
+    @Test
+    public void testJpaWritesToPrimary() {
+        assertThat("JPA read-write transaction: ", name(entityManager(), false), is("primary"));
+    }
+
+    @Test
+    public void testJpaPinnedToPrimary() {
+        EntityManager entityManager = entityManager();
+        ReadYourWrites.setPinned(true);
+        assertThat("JPA pinned read-only transaction: ", name(entityManager, true), is("primary"));
+    }
+
+    private String name(boolean readOnly) {
+        return transaction(transactionManager, readOnly)
+                .execute(status -> jdbcTemplate.queryForObject("SELECT NAME FROM INSTANCE", String.class));
+    }
+
+    private String name(EntityManager entityManager, boolean readOnly) {
+        return transaction(new JpaTransactionManager(entityManagerFactory), readOnly)
+                .execute(status -> (String) entityManager.createNativeQuery("SELECT NAME FROM INSTANCE")
+                                                         .getSingleResult());
+    }
+
+    private static TransactionTemplate transaction(PlatformTransactionManager transactionManager, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction;
+    }
+
+    /**
+     * @return the shared entity manager of a persistence unit without entities on the routing data source, bound to
+     * the transactions as the ones of the repositories
+     */
+    private EntityManager entityManager() {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(jdbcTemplate.getDataSource());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPackagesToScan(ReplicaRoutingDataSourceTest.class.getPackage().getName());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        factory.setJpaProperties(properties);
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        return SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS INSTANCE (NAME VARCHAR(20))");
+        jdbcTemplate.execute("DELETE FROM INSTANCE");
+        jdbcTemplate.update("INSERT INTO INSTANCE VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,42 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.DayOfWeek.SUNDAY;
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DayOfWeekSetConverterTest {
+
+    private final DayOfWeekSetConverter converter = new DayOfWeekSetConverter();
+
+    @Test
+    public void testConvertToDatabaseColumn() {
+        assertThat("To column - empty: ", converter.convertToDatabaseColumn(EnumSet.noneOf(DayOfWeek.class)), is(0));
+        assertThat("To column - monday: ", converter.convertToDatabaseColumn(EnumSet.of(MONDAY)), is(1));
+        assertThat("To column - sunday: ", converter.convertToDatabaseColumn(EnumSet.of(SUNDAY)), is(64));
+        assertThat("To column - friday and sunday: ",
+                converter.convertToDatabaseColumn(new HashSet<>(asList(FRIDAY, SUNDAY))), is(80));
+        assertThat("To column - all days: ", converter.convertToDatabaseColumn(EnumSet.allOf(DayOfWeek.class)),
+                is(DayOfWeekMask.ALL_DAYS));
+        assertThat("To column - null: ", converter.convertToDatabaseColumn(null), is(nullValue()));
+    }
+
+    @Test
+    public void testConvertToEntityAttribute() {
+        assertThat("To attribute - empty: ", converter.convertToEntityAttribute(0), is(EnumSet.noneOf(DayOfWeek.class)));
+        assertThat("To attribute - friday and sunday: ", converter.convertToEntityAttribute(80),
+                is(EnumSet.of(FRIDAY, SUNDAY)));
+        assertThat("To attribute - all days: ", converter.convertToEntityAttribute(DayOfWeekMask.ALL_DAYS),
+                is(EnumSet.allOf(DayOfWeek.class)));
+        assertThat("To attribute - null: ", converter.convertToEntityAttribute(null), is(nullValue()));
+    }
+}
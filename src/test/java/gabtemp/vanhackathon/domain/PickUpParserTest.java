@@ -0,0 +1,66 @@
+package gabtemp.vanhackathon.domain;
+
+import java.time.LocalTime;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.SATURDAY;
+import static java.time.DayOfWeek.SUNDAY;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class PickUpParserTest {
+
+    @Test
+    public void testParseDays() {
+        assertThat("Parse days - single: ", PickUpParser.parseDays("FRIDAY"), is(DayOfWeekMask.bit(FRIDAY)));
+        assertThat("Parse days - list: ", PickUpParser.parseDays("FRIDAY,SATURDAY,SUNDAY"),
+                is(DayOfWeekMask.toMask(EnumSet.of(FRIDAY, SATURDAY, SUNDAY))));
+        assertThat("Parse days - whitespace and case: ", PickUpParser.parseDays(" friday, Saturday ,SUNDAY\t"),
+                is(DayOfWeekMask.toMask(EnumSet.of(FRIDAY, SATURDAY, SUNDAY))));
+        assertThat("Parse days - repeated: ", PickUpParser.parseDays("FRIDAY,friday"), is(DayOfWeekMask.bit(FRIDAY)));
+        assertThat("Parse days - all: ",
+                PickUpParser.parseDays("MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY,SATURDAY,SUNDAY"),
+                is(DayOfWeekMask.ALL_DAYS));
+    }
+
+    @Test
+    public void testParseDaysInvalid() {
+        assertThat("Parse days - unknown: ", PickUpParser.parseDays("FRIDAY,FUNDAY"), is(PickUpParser.INVALID));
+        assertThat("Parse days - abbreviation: ", PickUpParser.parseDays("FRI"), is(PickUpParser.INVALID));
+        assertThat("Parse days - empty day: ", PickUpParser.parseDays("FRIDAY,,SUNDAY"), is(PickUpParser.INVALID));
+        assertThat("Parse days - trailing comma: ", PickUpParser.parseDays("FRIDAY,"), is(PickUpParser.INVALID));
+        assertThat("Parse days - blank: ", PickUpParser.parseDays("  "), is(PickUpParser.INVALID));
+        assertThat("Parse days - longer name: ", PickUpParser.parseDays("FRIDAYS"), is(PickUpParser.INVALID));
+    }
+
+    @Test
+    public void testParseDay() {
+        assertThat("Parse day - name: ", PickUpParser.parseDay("FRIDAY"), is(FRIDAY));
+        assertThat("Parse day - whitespace and case: ", PickUpParser.parseDay(" friDay\t"), is(FRIDAY));
+        assertThat("Parse day - abbreviation: ", PickUpParser.parseDay("FRI"), is(nullValue()));
+        assertThat("Parse day - list: ", PickUpParser.parseDay("FRIDAY,SATURDAY"), is(nullValue()));
+        assertThat("Parse day - blank: ", PickUpParser.parseDay("  "), is(nullValue()));
+    }
+
+    @Test
+    public void testParseTime() {
+        assertThat("Parse time - hours and minutes: ", PickUpParser.parseTime("22:45"), is(LocalTime.of(22, 45)));
+        assertThat("Parse time - single digit hour: ", PickUpParser.parseTime("9:05"), is(LocalTime.of(9, 5)));
+        assertThat("Parse time - whitespace: ", PickUpParser.parseTime(" 00:00 "), is(LocalTime.MIDNIGHT));
+        assertThat("Parse time - seconds: ", PickUpParser.parseTime("23:59:59"), is(LocalTime.of(23, 59, 59)));
+        assertThat("Parse time - fraction: ", PickUpParser.parseTime("23:59:59.5"),
+                is(LocalTime.of(23, 59, 59, 500_000_000)));
+    }
+
+    @Test
+    public void testParseTimeInvalid() {
+        for (String time : new String[]{"24:00", "22:60", "22", "22:4", "22:45:", "22:45:61", "22:45:00.", "9pm",
+                "22:45Z", "", " ", "-1:00", "222:45"}) {
+            assertThat("Parse time - invalid " + time + ": ", PickUpParser.parseTime(time), is(nullValue()));
+        }
+    }
+}
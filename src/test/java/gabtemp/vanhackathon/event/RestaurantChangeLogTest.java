@@ -0,0 +1,120 @@
+package gabtemp.vanhackathon.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class RestaurantChangeLogTest {
+
+    private final RestaurantChangeLog changeLog = new RestaurantChangeLog(3);
+
+    @Test
+    public void testSince() {
+        long start = changeLog.getSequence();
+        change(RestaurantChangeEvent.Type.CREATED, 1L);
+        change(RestaurantChangeEvent.Type.UPDATED, 1L);
+        change(RestaurantChangeEvent.Type.DELETED, 1L);
+
+        List<RestaurantChange> changes = changeLog.since(start + 1, 10).get();
+        assertThat("Since - sequence: ", changeLog.getSequence(), is(start + 3));
+        assertThat("Since - sequences: ", sequences(changes), is(asList(start + 2, start + 3)));
+        assertThat("Since - types: ", changes.stream().map(RestaurantChange::getType).collect(Collectors.toList()),
+                is(asList(RestaurantChangeEvent.Type.UPDATED, RestaurantChangeEvent.Type.DELETED)));
+        assertThat("Since - deleted restaurant: ", changes.get(1).getRestaurant() == null, is(true));
+        assertThat("Since - deleted id: ", changes.get(1).getId(), is(1L));
+        assertThat("Since limited - sequences: ", sequences(changeLog.since(start, 2).get()),
+                is(asList(start + 1, start + 2)));
+        assertThat("Since last - changes: ", changeLog.since(start + 3, 10).get().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testSinceNotRetained() {
+        long start = changeLog.getSequence();
+        for (long id = 1; id <= 5; id++) {
+            change(RestaurantChangeEvent.Type.CREATED, id);
+        }
+
+        assertThat("Since not retained: ", changeLog.since(start + 1, 10), is(Optional.empty()));
+        assertThat("Since oldest retained - sequences: ", sequences(changeLog.since(start + 2, 10).get()),
+                is(asList(start + 3, start + 4, start + 5)));
+        assertThat("Since unknown: ", changeLog.since(start + 6, 10), is(Optional.empty()));
+    }
+
+    @Test
+    public void testSinceOtherEpoch() {
+        RestaurantChangeLog restarted = new RestaurantChangeLog(3, 7);
+        RestaurantChangeLog other = new RestaurantChangeLog(3, 8);
+        assertThat("Since other epoch - sequence: ", restarted.getSequence(),
+                is(7L << RestaurantChangeLog.COUNTER_BITS));
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(1L);
+        other.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, restaurant));
+        assertThat("Since other epoch - current: ", restarted.since(other.getSequence() - 1, 10), is(Optional.empty()));
+        assertThat("Since other epoch - same counter: ", other.since(restarted.getSequence(), 10),
+                is(Optional.empty()));
+        assertThat("Since other epoch - subscribed: ", restarted.subscribe(other.getSequence(), change -> {
+        }, () -> {
+        }), is(false));
+    }
+
+    @Test
+    public void testSubscribe() {
+        long start = changeLog.getSequence();
+        change(RestaurantChangeEvent.Type.CREATED, 1L);
+        change(RestaurantChangeEvent.Type.CREATED, 2L);
+
+        List<RestaurantChange> received = new ArrayList<>();
+        Consumer<RestaurantChange> subscriber = received::add;
+        assertThat("Subscribe - subscribed: ", changeLog.subscribe(start + 1, subscriber, () -> {
+        }), is(true));
+        change(RestaurantChangeEvent.Type.UPDATED, 1L);
+        assertThat("Subscribe - sequences: ", sequences(received), is(asList(start + 2, start + 3)));
+
+        changeLog.unsubscribe(subscriber);
+        change(RestaurantChangeEvent.Type.UPDATED, 2L);
+        assertThat("Unsubscribe - sequences: ", sequences(received), is(asList(start + 2, start + 3)));
+        assertThat("Subscribe not retained - subscribed: ", changeLog.subscribe(start - 1, subscriber, () -> {
+        }), is(false));
+    }
+
+    @Test
+    public void testResync() {
+        change(RestaurantChangeEvent.Type.CREATED, 1L);
+        long before = changeLog.getSequence();
+        List<RestaurantChange> received = new ArrayList<>();
+        AtomicBoolean reset = new AtomicBoolean();
+        changeLog.subscribe(before, received::add, () -> reset.set(true));
+
+        changeLog.onRestaurantsResync(new RestaurantsResyncEvent("test"));
+        assertThat("Resync - subscriber reset: ", reset.get(), is(true));
+        assertThat("Resync - sequence moved: ", changeLog.getSequence(), is(before + 1));
+        assertThat("Resync - previous not retained: ", changeLog.since(before, 10), is(Optional.empty()));
+        assertThat("Resync - current: ", changeLog.since(before + 1, 10), is(Optional.of(Collections.emptyList())));
+
+        change(RestaurantChangeEvent.Type.UPDATED, 1L);
+        assertThat("Resync - unsubscribed: ", received.isEmpty(), is(true));
+        assertThat("Resync - next change: ", sequences(changeLog.since(before + 1, 10).get()), is(asList(before + 2)));
+    }
+
+    private void change(RestaurantChangeEvent.Type type, Long id) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        changeLog.onRestaurantChange(new RestaurantChangeEvent(type, restaurant));
+    }
+
+    private static List<Long> sequences(List<RestaurantChange> changes) {
+        return changes.stream().map(RestaurantChange::getSequence).collect(Collectors.toList());
+    }
+}
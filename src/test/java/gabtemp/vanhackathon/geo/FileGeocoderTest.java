@@ -0,0 +1,43 @@
+package gabtemp.vanhackathon.geo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class FileGeocoderTest {
+
+    private final FileGeocoder geocoder = new FileGeocoder(new ByteArrayResource((
+            "# address;latitude;longitude\n" +
+            "1000 Robson St, Vancouver;49.2837;-123.1228\n" +
+            "\n" +
+            "300 Water St, Vancouver; 49.2844; -123.1089\n").getBytes(StandardCharsets.UTF_8)));
+
+    @Test
+    public void testGeocode() {
+        assertThat("Geocode: ", geocoder.geocode("1000 Robson St, Vancouver"),
+                is(Optional.of(new GeoPoint(49.2837, -123.1228))));
+        assertThat("Geocode - normalized: ", geocoder.geocode("  300 water st.  vancouver "),
+                is(Optional.of(new GeoPoint(49.2844, -123.1089))));
+        assertThat("Geocode - unknown: ", geocoder.geocode("1 Unknown Rd"), is(Optional.empty()));
+    }
+
+    @Test
+    public void testLocate() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setAddress("1000 Robson St, Vancouver");
+        geocoder.locate(restaurant);
+        assertThat("Locate - latitude: ", restaurant.getLatitude(), is(49.2837));
+        assertThat("Locate - longitude: ", restaurant.getLongitude(), is(-123.1228));
+
+        restaurant.setAddress("1 Unknown Rd");
+        geocoder.locate(restaurant);
+        assertThat("Locate unknown - latitude: ", restaurant.getLatitude() == null, is(true));
+        assertThat("Locate unknown - longitude: ", restaurant.getLongitude() == null, is(true));
+    }
+}
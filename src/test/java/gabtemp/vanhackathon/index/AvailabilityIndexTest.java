@@ -0,0 +1,151 @@
+package gabtemp.vanhackathon.index;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.event.RestaurantsResyncEvent;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.DayOfWeek.SATURDAY;
+import static java.time.DayOfWeek.SUNDAY;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class AvailabilityIndexTest {
+
+    private final AvailabilityIndex index = new AvailabilityIndex();
+
+    @Test
+    public void testFind() {
+        index.put(restaurant(1L, LocalTime.of(22, 0), FRIDAY, SATURDAY));
+        index.put(restaurant(2L, LocalTime.of(21, 30), FRIDAY));
+        index.put(restaurant(3L, LocalTime.of(23, 30), FRIDAY));
+        index.put(restaurant(4L, LocalTime.of(22, 0), SATURDAY));
+
+        assertThat("Find - friday window: ", index.find(FRIDAY, LocalTime.of(21, 0), LocalTime.of(23, 0)),
+                is(asList(2L, 1L)));
+        assertThat("Find - saturday window: ", index.find(SATURDAY, LocalTime.of(22, 0), LocalTime.of(22, 0)),
+                is(asList(1L, 4L)));
+        assertThat("Find - whole friday: ", index.find(FRIDAY, LocalTime.MIN, LocalTime.MAX), is(asList(2L, 1L, 3L)));
+        assertThat("Find - empty day: ", index.find(MONDAY, LocalTime.MIN, LocalTime.MAX), is(emptyList()));
+        assertThat("Find - size: ", index.size(), is(4));
+    }
+
+    @Test
+    public void testFindPastMidnight() {
+        index.put(restaurant(1L, LocalTime.of(23, 30), SUNDAY));
+        index.put(restaurant(2L, LocalTime.of(0, 30), MONDAY));
+        index.put(restaurant(3L, LocalTime.of(2, 0), MONDAY));
+
+        assertThat("Find past midnight: ", index.find(SUNDAY, LocalTime.of(23, 0), LocalTime.of(1, 0)),
+                is(asList(1L, 2L)));
+    }
+
+    @Test
+    public void testScan() {
+        index.put(restaurant(1L, LocalTime.of(22, 0), FRIDAY, SATURDAY));
+        index.put(restaurant(2L, LocalTime.of(21, 30, 15), FRIDAY));
+        index.put(restaurant(3L, LocalTime.of(23, 30), FRIDAY));
+
+        List<String> slots = new ArrayList<>();
+        index.scan(FRIDAY, LocalTime.of(21, 0), LocalTime.of(22, 0),
+                (secondOfDay, restaurantId) -> slots.add(LocalTime.ofSecondOfDay(secondOfDay) + "=" + restaurantId));
+        assertThat("Scan - friday window: ", slots, is(asList("21:30:15=2", "22:00=1")));
+
+        slots.clear();
+        index.scan(MONDAY, LocalTime.MIN, LocalTime.MAX, (secondOfDay, restaurantId) -> slots.add("unexpected"));
+        assertThat("Scan - empty day: ", slots, is(emptyList()));
+    }
+
+    @Test
+    public void testPutAll() {
+        index.put(restaurant(1L, LocalTime.of(22, 0), FRIDAY, SATURDAY));
+        index.put(restaurant(2L, LocalTime.of(21, 0), FRIDAY));
+
+        index.onRestaurantsCreated(new RestaurantsCreatedEvent(asList(
+                restaurant(3L, LocalTime.of(23, 0), FRIDAY),
+                restaurant(1L, LocalTime.of(20, 0), SATURDAY),
+                restaurant(4L, LocalTime.of(21, 30), FRIDAY, SATURDAY),
+                restaurant(5L, LocalTime.of(20, 30), FRIDAY))));
+
+        assertThat("Put all - friday: ", index.find(FRIDAY, LocalTime.MIN, LocalTime.MAX),
+                is(asList(5L, 2L, 4L, 3L)));
+        assertThat("Put all - saturday: ", index.find(SATURDAY, LocalTime.MIN, LocalTime.MAX), is(asList(1L, 4L)));
+        assertThat("Put all - size: ", index.size(), is(5));
+    }
+
+    @Test
+    public void testChanges() {
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED,
+                restaurant(1L, LocalTime.of(22, 0), FRIDAY, SATURDAY)));
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.UPDATED,
+                restaurant(1L, LocalTime.of(20, 0), SATURDAY)));
+
+        assertThat("Update - old day: ", index.find(FRIDAY, LocalTime.MIN, LocalTime.MAX), is(emptyList()));
+        assertThat("Update - old time: ", index.find(SATURDAY, LocalTime.of(21, 0), LocalTime.MAX), is(emptyList()));
+        assertThat("Update - new time: ", index.find(SATURDAY, LocalTime.of(20, 0), LocalTime.of(20, 0)),
+                is(asList(1L)));
+
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED,
+                restaurant(1L, LocalTime.of(20, 0), SATURDAY)));
+        assertThat("Delete: ", index.find(SATURDAY, LocalTime.MIN, LocalTime.MAX), is(emptyList()));
+        assertThat("Delete - size: ", index.size(), is(0));
+    }
+
+    @Test
+    public void testResync() {
+        index.put(restaurant(1L, LocalTime.of(22, 0), FRIDAY));
+        index.put(restaurant(2L, LocalTime.of(21, 0), FRIDAY));
+
+        RestaurantRepository repository = mock(RestaurantRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Restaurant> consumer = invocation.getArgument(1);
+            consumer.accept(restaurant(2L, LocalTime.of(20, 0), SATURDAY));
+            consumer.accept(restaurant(3L, LocalTime.of(23, 0), FRIDAY));
+            return null;
+        }).when(repository).scan(anyInt(), any());
+        ReflectionTestUtils.setField(index, "repository", repository);
+        index.onRestaurantsResync(new RestaurantsResyncEvent("test"));
+
+        assertThat("Resync - friday: ", index.find(FRIDAY, LocalTime.MIN, LocalTime.MAX), is(asList(3L)));
+        assertThat("Resync - saturday: ", index.find(SATURDAY, LocalTime.MIN, LocalTime.MAX), is(asList(2L)));
+        assertThat("Resync - size: ", index.size(), is(2));
+    }
+
+    @Test
+    public void testGrow() {
+        for (long id = 1; id <= 1000; id++) {
+            index.put(restaurant(id, LocalTime.ofSecondOfDay(86399 - id), DayOfWeek.values()));
+        }
+
+        assertThat("Grow - size: ", index.size(), is(1000));
+        assertThat("Grow - first: ", index.find(MONDAY, LocalTime.MIN, LocalTime.MAX).get(0), is(1000L));
+        assertThat("Grow - window: ", index.find(SUNDAY, LocalTime.ofSecondOfDay(86397), LocalTime.MAX),
+                is(asList(2L, 1L)));
+    }
+
+    private static Restaurant restaurant(Long id, LocalTime pickUpTime, DayOfWeek... days) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setPickUpTime(pickUpTime);
+        restaurant.setAvailablePickUpDays(EnumSet.copyOf(asList(days)));
+        return restaurant;
+    }
+}
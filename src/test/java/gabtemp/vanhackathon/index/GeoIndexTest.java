@@ -0,0 +1,118 @@
+package gabtemp.vanhackathon.index;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import org.junit.Test;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.MONDAY;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class GeoIndexTest {
+
+    private final GeoIndex index = new GeoIndex(0.01);
+
+    @Test
+    public void testFindNearest() {
+        index.put(restaurant(1L, 49.2837, -123.1228, FRIDAY));
+        index.put(restaurant(2L, 49.2820, -123.1200, MONDAY));
+        index.put(restaurant(3L, 49.2571, -123.1010, FRIDAY));
+        index.put(restaurant(4L, 49.1700, -123.1370, FRIDAY));
+        index.put(restaurant(5L, 49.2800, -123.1100));
+
+        GeoPoint center = new GeoPoint(49.2827, -123.1207);
+        assertThat("Find nearest: ", index.findNearest(center, 5, null, 10), is(asList(2L, 1L, 5L, 3L)));
+        assertThat("Find nearest - limit: ", index.findNearest(center, 5, null, 2), is(asList(2L, 1L)));
+        assertThat("Find nearest - day: ", index.findNearest(center, 20, FRIDAY, 10), is(asList(1L, 5L, 3L, 4L)));
+        assertThat("Find nearest - radius: ", index.findNearest(center, 0.1, null, 10), is(asList(2L)));
+        assertThat("Find nearest - far away: ", index.findNearest(new GeoPoint(0, 0), 100, null, 10),
+                is(emptyList()));
+        assertThat("Find nearest - size: ", index.size(), is(5));
+    }
+
+    @Test
+    public void testFindNearestAcrossAntimeridian() {
+        index.put(restaurant(1L, -17.0, 179.99));
+        index.put(restaurant(2L, -17.0, -179.98));
+
+        GeoPoint center = new GeoPoint(-17.0, -179.99);
+        assertThat("Find nearest across antimeridian: ", index.findNearest(center, 10, null, 10), is(asList(2L, 1L)));
+    }
+
+    @Test
+    public void testFindNearestMatchesFullScan() {
+        Random random = new Random(42);
+        GeoIndex coarse = new GeoIndex(0.5);
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            Restaurant restaurant = restaurant(id, 49 + random.nextDouble(), -124 + random.nextDouble());
+            restaurants.add(restaurant);
+            index.put(restaurant);
+            coarse.put(restaurant);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            GeoPoint center = new GeoPoint(48.8 + random.nextDouble() * 1.4, -124.2 + random.nextDouble() * 1.4);
+            double radius = 1 + random.nextDouble() * 60;
+            List<Long> expected = restaurants.stream()
+                    .filter(restaurant -> distance(center, restaurant) <= radius)
+                    .sorted(Comparator.comparingDouble(restaurant -> distance(center, restaurant)))
+                    .limit(15)
+                    .map(Restaurant::getId)
+                    .collect(Collectors.toList());
+            assertThat("Find nearest - full scan: ", index.findNearest(center, radius, null, 15), is(expected));
+            assertThat("Find nearest coarse - full scan: ", coarse.findNearest(center, radius, null, 15),
+                    is(expected));
+        }
+    }
+
+    @Test
+    public void testChanges() {
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED,
+                restaurant(1L, 49.2837, -123.1228)));
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.UPDATED,
+                restaurant(1L, 49.1700, -123.1370)));
+
+        GeoPoint downtown = new GeoPoint(49.2837, -123.1228);
+        GeoPoint richmond = new GeoPoint(49.1700, -123.1370);
+        assertThat("Update - old location: ", index.findNearest(downtown, 1, null, 10), is(emptyList()));
+        assertThat("Update - new location: ", index.findNearest(richmond, 1, null, 10), is(asList(1L)));
+
+        Restaurant notLocated = new Restaurant();
+        notLocated.setId(1L);
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.UPDATED, notLocated));
+        assertThat("Update - not located: ", index.size(), is(0));
+
+        index.put(restaurant(2L, 49.1700, -123.1370));
+        index.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED,
+                restaurant(2L, 49.1700, -123.1370)));
+        assertThat("Delete: ", index.findNearest(richmond, 1, null, 10), is(emptyList()));
+    }
+
+    private static double distance(GeoPoint center, Restaurant restaurant) {
+        return GeoPoint.distanceKm(center.getLatitude(), center.getLongitude(), restaurant.getLatitude(),
+                restaurant.getLongitude());
+    }
+
+    private static Restaurant restaurant(Long id, double latitude, double longitude, DayOfWeek... days) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setLatitude(latitude);
+        restaurant.setLongitude(longitude);
+        restaurant.setAvailablePickUpDays(
+                days.length == 0 ? EnumSet.allOf(DayOfWeek.class) : EnumSet.copyOf(asList(days)));
+        return restaurant;
+    }
+}
@@ -0,0 +1,226 @@
+package gabtemp.vanhackathon.matching;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import org.junit.Test;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.SATURDAY;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class MatchingEngineTest {
+
+    private static final int CANDIDATES = 3;
+
+    private final MatchingEngine engine = new MatchingEngine(30, 10, 30, CANDIDATES);
+
+    @Test
+    public void testMatchNearestWithinCapacity() {
+        engine.put(shelter(1L, 49.2800, 1, "00:00", "00:00"));
+        engine.put(shelter(2L, 49.3000, 2, "00:00", "00:00"));
+        engine.put(restaurant(11L, 49.2810, "21:00"));
+        engine.put(restaurant(12L, 49.2820, "21:00"));
+
+        assertThat("Match - nearest: ", shelterOf(11L, FRIDAY), is(1L));
+        assertThat("Match - next nearest with room: ", shelterOf(12L, FRIDAY), is(2L));
+
+        engine.put(restaurant(10L, 49.2800, "21:00"));
+        assertThat("Match - nearer restaurant: ", shelterOf(10L, FRIDAY), is(1L));
+        assertThat("Match - bumped: ", shelterOf(11L, FRIDAY), is(2L));
+        assertThat("Match - shelter deliveries: ", restaurantsOf(2L, FRIDAY), is(asList(11L, 12L)));
+
+        engine.removeRestaurant(10L);
+        assertThat("Match - room filled: ", shelterOf(11L, FRIDAY), is(1L));
+        assertThat("Match - room left: ", restaurantsOf(2L, FRIDAY), is(asList(12L)));
+    }
+
+    @Test
+    public void testMatchTimeWindow() {
+        engine.put(shelter(1L, 49.2800, 10, "08:00", "12:00"));
+        engine.put(shelter(2L, 49.3000, 10, "23:00", "02:00"));
+        engine.put(restaurant(10L, 49.2800, "22:00"));
+        engine.put(restaurant(11L, 49.2800, "22:40"));
+        engine.put(restaurant(12L, 49.2800, "23:59"));
+
+        assertThat("Match time window - closed: ", engine.findDelivery(10L, FRIDAY).isPresent(), is(false));
+
+        Delivery waiting = engine.findDelivery(11L, FRIDAY).get();
+        assertThat("Match time window - shelter: ", waiting.getShelterId(), is(2L));
+        assertThat("Match time window - wait: ", waiting.getDeliveryTime(), is(LocalTime.of(23, 0)));
+
+        Delivery pastMidnight = engine.findDelivery(12L, FRIDAY).get();
+        assertThat("Match time window - next day: ", pastMidnight.getDeliveryDay(), is(SATURDAY));
+        assertThat("Match time window - received on opening day: ", restaurantsOf(2L, FRIDAY),
+                is(asList(11L, 12L)));
+
+        engine.put(restaurant(10L, 49.2800, "22:45"));
+        assertThat("Match time window - moved pick-up: ", shelterOf(10L, FRIDAY), is(2L));
+        engine.put(restaurant(11L, 49.2800, "22:50"));
+        assertThat("Match time window - moved delivery: ", engine.findDelivery(11L, FRIDAY).get().getDeliveryTime(),
+                is(LocalTime.of(23, 0)));
+        engine.put(restaurant(11L, 49.2800, "23:10"));
+        assertThat("Match time window - moved delivery after opening: ",
+                engine.findDelivery(11L, FRIDAY).get().getDeliveryTime().isAfter(LocalTime.of(23, 10)), is(true));
+    }
+
+    @Test
+    public void testMatchShelterChanges() {
+        engine.put(shelter(1L, 49.2800, 2, "00:00", "00:00"));
+        engine.put(restaurant(10L, 49.2900, "21:00"));
+        engine.put(restaurant(11L, 49.2810, "21:00"));
+        engine.put(restaurant(12L, 49.2820, "21:00"));
+        assertThat("Shelter changes - unmatched: ", engine.findDelivery(10L, FRIDAY).isPresent(), is(false));
+
+        engine.put(shelter(2L, 49.2950, 1, "00:00", "00:00"));
+        assertThat("Shelter changes - new shelter: ", restaurantsOf(2L, FRIDAY), is(asList(10L)));
+
+        engine.put(shelter(1L, 49.2800, 1, "00:00", "00:00"));
+        assertThat("Shelter changes - reduced capacity: ", restaurantsOf(1L, FRIDAY), is(asList(11L)));
+        assertThat("Shelter changes - dropped: ", engine.findDelivery(12L, FRIDAY).isPresent(), is(false));
+
+        engine.put(shelter(1L, 49.2800, 3, "00:00", "00:00"));
+        assertThat("Shelter changes - increased capacity: ", restaurantsOf(1L, FRIDAY), is(asList(11L, 12L)));
+        engine.put(shelter(1L, 49.2800, 1, "00:00", "00:00"));
+
+        engine.removeShelter(2L);
+        assertThat("Shelter changes - removed: ", engine.findDeliveries(2L, FRIDAY).isPresent(), is(false));
+        assertThat("Shelter changes - removed matches: ", engine.findDelivery(10L, FRIDAY).isPresent(), is(false));
+        assertThat("Shelter changes - empty day: ", engine.findDeliveries(1L, SATURDAY).get(), is(emptyList()));
+    }
+
+    @Test
+    public void testMatchIncrementalEqualsGreedy() {
+        Random random = new Random(42);
+        Map<Long, Shelter> shelters = new HashMap<>();
+        Map<Long, Restaurant> restaurants = new HashMap<>();
+        for (int change = 0; change < 3000; change++) {
+            int kind = random.nextInt(20);
+            if (kind < 2) {
+                Shelter shelter = shelter(1 + random.nextInt(15), 49.2 + random.nextDouble() * 0.1,
+                        random.nextInt(6), "00:00", "00:00");
+                shelter.setLongitude(-123.2 + random.nextDouble() * 0.1);
+                shelters.put(shelter.getId(), shelter);
+                engine.put(shelter);
+            } else if (kind == 2 && !shelters.isEmpty()) {
+                Long id = new ArrayList<>(shelters.keySet()).get(random.nextInt(shelters.size()));
+                shelters.remove(id);
+                engine.removeShelter(id);
+            } else if (kind == 3 && !shelters.isEmpty()) {
+                Shelter shelter = new ArrayList<>(shelters.values()).get(random.nextInt(shelters.size()));
+                shelter.setCapacity(random.nextInt(6));
+                engine.put(shelter);
+            } else if (kind == 4 && !restaurants.isEmpty()) {
+                Restaurant restaurant = new ArrayList<>(restaurants.values()).get(random.nextInt(restaurants.size()));
+                restaurant.setPickUpTime(LocalTime.of(18 + random.nextInt(4), random.nextInt(60)));
+                engine.put(restaurant);
+            } else if (kind < 8 && !restaurants.isEmpty()) {
+                Long id = new ArrayList<>(restaurants.keySet()).get(random.nextInt(restaurants.size()));
+                restaurants.remove(id);
+                engine.removeRestaurant(id);
+            } else {
+                Restaurant restaurant = restaurant(100 + random.nextInt(200), 49.2 + random.nextDouble() * 0.1,
+                        "20:00");
+                restaurant.setLongitude(-123.2 + random.nextDouble() * 0.1);
+                restaurant.setAvailablePickUpDays(EnumSet.of(DayOfWeek.of(1 + random.nextInt(2)),
+                        DayOfWeek.of(1 + random.nextInt(2))));
+                restaurants.put(restaurant.getId(), restaurant);
+                engine.put(restaurant);
+            }
+        }
+
+        Map<String, Long> expected = greedy(shelters.values(), restaurants.values());
+        assertThat("Incremental equals greedy - matched: ", expected.size() > 20, is(true));
+        for (Restaurant restaurant : restaurants.values()) {
+            for (DayOfWeek day : restaurant.getAvailablePickUpDays()) {
+                assertThat("Incremental equals greedy - restaurant " + restaurant.getId() + " on " + day + ": ",
+                        engine.findDelivery(restaurant.getId(), day).map(Delivery::getShelterId).orElse(null),
+                        is(expected.get(restaurant.getId() + "-" + day)));
+            }
+        }
+    }
+
+    /**
+     * Matches from scratch the pairs of pick-up and candidate shelter from the nearest to the farthest, the stable
+     * matching for shelters open all day
+     */
+    private static Map<String, Long> greedy(Iterable<Shelter> shelters, Iterable<Restaurant> restaurants) {
+        List<Object[]> pairs = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            List<Object[]> nearest = new ArrayList<>();
+            for (Shelter shelter : shelters) {
+                double distanceKm = GeoPoint.distanceKm(restaurant.getLatitude(), restaurant.getLongitude(),
+                        shelter.getLatitude(), shelter.getLongitude());
+                if (distanceKm <= 10) {
+                    nearest.add(new Object[]{distanceKm, restaurant, shelter});
+                }
+            }
+            nearest.sort(Comparator.comparing((Object[] pair) -> (Double) pair[0]));
+            pairs.addAll(nearest.subList(0, Math.min(CANDIDATES, nearest.size())));
+        }
+        pairs.sort(Comparator.comparing((Object[] pair) -> (Double) pair[0]));
+
+        Map<String, Long> matched = new HashMap<>();
+        Map<String, Integer> received = new HashMap<>();
+        for (Object[] pair : pairs) {
+            Restaurant restaurant = (Restaurant) pair[1];
+            Shelter shelter = (Shelter) pair[2];
+            for (DayOfWeek day : restaurant.getAvailablePickUpDays()) {
+                String pickUp = restaurant.getId() + "-" + day;
+                String receiving = shelter.getId() + "-" + day;
+                if (!matched.containsKey(pickUp) && received.getOrDefault(receiving, 0) < shelter.getCapacity()) {
+                    matched.put(pickUp, shelter.getId());
+                    received.merge(receiving, 1, Integer::sum);
+                }
+            }
+        }
+        return matched;
+    }
+
+    private Long shelterOf(Long restaurantId, DayOfWeek day) {
+        Optional<Delivery> delivery = engine.findDelivery(restaurantId, day);
+        return delivery.map(Delivery::getShelterId).orElse(null);
+    }
+
+    private List<Long> restaurantsOf(Long shelterId, DayOfWeek day) {
+        return engine.findDeliveries(shelterId, day).get().stream().map(Delivery::getRestaurantId).sorted()
+                     .collect(Collectors.toList());
+    }
+
+    private static Shelter shelter(long id, double latitude, int capacity, String openTime, String closeTime) {
+        Shelter shelter = new Shelter();
+        shelter.setId(id);
+        shelter.setLatitude(latitude);
+        shelter.setLongitude(-123.12);
+        shelter.setCapacity(capacity);
+        shelter.setReceivingDays(EnumSet.allOf(DayOfWeek.class));
+        shelter.setOpenTime(LocalTime.parse(openTime));
+        shelter.setCloseTime(LocalTime.parse(closeTime));
+        return shelter;
+    }
+
+    private static Restaurant restaurant(long id, double latitude, String pickUpTime) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setLatitude(latitude);
+        restaurant.setLongitude(-123.12);
+        restaurant.setAvailablePickUpDays(EnumSet.of(FRIDAY));
+        restaurant.setPickUpTime(LocalTime.parse(pickUpTime));
+        return restaurant;
+    }
+}
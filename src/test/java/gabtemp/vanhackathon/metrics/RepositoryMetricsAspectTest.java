@@ -0,0 +1,72 @@
+package gabtemp.vanhackathon.metrics;
+
+import java.util.Optional;
+
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RepositoryMetricsAspectTest {
+
+    @Mock
+    private RestaurantRepository target;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RestaurantRepository repository;
+
+    @Before
+    public void setUp() {
+        RepositoryMetricsAspect aspect = new RepositoryMetricsAspect();
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(RestaurantRepository.class);
+        factory.addAspect(aspect);
+        repository = factory.getProxy();
+    }
+
+    @Test
+    public void testTimeSuccess() {
+        when(target.findById(1L)).thenReturn(Optional.empty());
+
+        repository.findById(1L);
+        repository.findById(1L);
+
+        assertThat("Repository call success - count: ", meterRegistry.get(RepositoryMetricsAspect.REPOSITORY_CALLS)
+                                                                     .tag("repository", "RestaurantRepository")
+                                                                     .tag("method", "findById")
+                                                                     .tag("outcome", "success")
+                                                                     .timer().count(), is(2L));
+    }
+
+    @Test
+    public void testTimeError() {
+        when(target.count()).thenThrow(new IllegalStateException("failure"));
+
+        try {
+            repository.count();
+            fail("Repository call error - exception expected");
+        } catch (IllegalStateException e) {
+            assertThat("Repository call error - exception: ", e.getMessage(), is("failure"));
+        }
+
+        assertThat("Repository call error - count: ", meterRegistry.get(RepositoryMetricsAspect.REPOSITORY_CALLS)
+                                                                   .tag("method", "count")
+                                                                   .tag("outcome", "error")
+                                                                   .timer().count(), is(1L));
+    }
+}
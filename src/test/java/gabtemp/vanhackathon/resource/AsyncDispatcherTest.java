@@ -0,0 +1,108 @@
+package gabtemp.vanhackathon.resource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.datasource.ReadYourWrites;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncDispatcherTest {
+
+    @Mock
+    private AsyncResponse asyncResponse;
+
+    @Mock
+    private AsyncResponse otherAsyncResponse;
+
+    @Mock
+    private AsyncResponse rejectedAsyncResponse;
+
+    private AsyncDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testDispatch() {
+        dispatcher = new AsyncDispatcher(true, 2, 2, 1000, 100, 1000);
+        Response response = Response.ok("ok").build();
+
+        dispatcher.dispatch(asyncResponse, () -> response);
+        verify(asyncResponse, timeout(1000)).resume(response);
+        verify(asyncResponse).setTimeout(1000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testDispatchException() {
+        dispatcher = new AsyncDispatcher(true, 2, 2, 1000, 100, 1000);
+        IllegalStateException exception = new IllegalStateException("failure");
+
+        dispatcher.dispatch(asyncResponse, () -> {
+            throw exception;
+        });
+        verify(asyncResponse, timeout(1000)).resume(exception);
+    }
+
+    @Test
+    public void testDispatchDisabled() {
+        dispatcher = new AsyncDispatcher(false, 2, 2, 1000, 100, 1000);
+        Response response = Response.ok("ok").build();
+
+        dispatcher.dispatch(asyncResponse, () -> response);
+        verify(asyncResponse).resume(response);
+    }
+
+    @Test
+    public void testDispatchRejected() throws InterruptedException {
+        dispatcher = new AsyncDispatcher(true, 1, 1, 1000, 100, 1000);
+        CountDownLatch latch = new CountDownLatch(1);
+        Response response = Response.ok("ok").build();
+
+        dispatcher.dispatch(asyncResponse, () -> {
+            latch.await();
+            return response;
+        });
+        dispatcher.dispatch(otherAsyncResponse, () -> response);
+        dispatcher.dispatch(rejectedAsyncResponse, () -> response);
+
+        ArgumentCaptor<Response> rejected = ArgumentCaptor.forClass(Response.class);
+        verify(rejectedAsyncResponse).resume(rejected.capture());
+        assertThat("Dispatch rejected - response code: ", rejected.getValue().getStatus(),
+                is(SERVICE_UNAVAILABLE.getStatusCode()));
+
+        latch.countDown();
+        verify(asyncResponse, timeout(1000)).resume(response);
+        verify(otherAsyncResponse, timeout(1000)).resume(response);
+    }
+
+    @Test
+    public void testDispatchPropagatesPinning() {
+        dispatcher = new AsyncDispatcher(true, 2, 2, 1000, 100, 1000);
+        ReadYourWrites.setPinned(true);
+        try {
+            dispatcher.dispatch(asyncResponse, () -> Response.ok(ReadYourWrites.isPinned()).build());
+        } finally {
+            ReadYourWrites.setPinned(false);
+        }
+
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(asyncResponse, timeout(1000)).resume(response.capture());
+        assertThat("Dispatch pinned - pinned on the worker: ", response.getValue().getEntity(), is(true));
+    }
+}
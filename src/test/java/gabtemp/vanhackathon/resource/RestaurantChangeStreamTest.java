@@ -0,0 +1,118 @@
+package gabtemp.vanhackathon.resource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestaurantChangeStreamTest {
+
+    @Mock
+    private Sse sse;
+
+    @Mock
+    private SseEventSink sink;
+
+    private final RestaurantChangeLog changeLog = new RestaurantChangeLog(100);
+
+    private RestaurantChangeStream stream;
+
+    @After
+    public void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    public void testStream() {
+        stream(10, 60);
+        when(sink.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+        long start = changeLog.getSequence();
+        change(1L);
+
+        assertThat("Stream - subscribed: ", stream.subscribe(sse, sink, start), is(true));
+        change(2L);
+
+        ArgumentCaptor<OutboundSseEvent> events = ArgumentCaptor.forClass(OutboundSseEvent.class);
+        verify(sink, timeout(1000).times(2)).send(events.capture());
+        assertThat("Stream - ids: ", events.getAllValues().stream().map(OutboundSseEvent::getId)
+                                           .collect(Collectors.toList()),
+                is(asList(String.valueOf(start + 1), String.valueOf(start + 2))));
+        assertThat("Stream - name: ", events.getValue().getName(), is(RestaurantChangeStream.EVENT_NAME));
+    }
+
+    @Test
+    public void testOverflow() throws InterruptedException {
+        stream(2, 60);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sink.send(any())).thenAnswer(invocationOnMock -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(null);
+        });
+        stream.subscribe(sse, sink, changeLog.getSequence());
+
+        // the first change is being written, the next two fill the buffer and the last one overflows it
+        change(1L);
+        assertThat("Overflow - sending: ", sending.await(1, TimeUnit.SECONDS), is(true));
+        change(2L);
+        change(3L);
+        change(4L);
+        assertThat("Overflow - subscribers: ", stream.size(), is(0));
+        release.countDown();
+
+        verify(sink, timeout(1000)).close();
+        verify(sink, timeout(1000).times(1)).send(any());
+    }
+
+    @Test
+    public void testHeartbeat() {
+        stream(10, 1);
+        when(sink.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+        stream.subscribe(sse, sink, changeLog.getSequence());
+
+        ArgumentCaptor<OutboundSseEvent> events = ArgumentCaptor.forClass(OutboundSseEvent.class);
+        verify(sink, timeout(3000)).send(events.capture());
+        assertThat("Heartbeat - comment: ", events.getValue().getComment(),
+                is(RestaurantChangeStream.HEARTBEAT_COMMENT));
+        assertThat("Heartbeat - no data: ", events.getValue().getData() == null, is(true));
+    }
+
+    private void stream(int bufferSize, long heartbeatSeconds) {
+        stream = new RestaurantChangeStream(bufferSize, 1, heartbeatSeconds);
+        ReflectionTestUtils.setField(stream, "changeLog", changeLog);
+        stream.start();
+        when(sse.newEventBuilder()).thenAnswer(invocationOnMock -> new OutboundEvent.Builder());
+        when(sink.isClosed()).thenReturn(false);
+    }
+
+    private void change(Long id) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        changeLog.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, restaurant));
+    }
+}
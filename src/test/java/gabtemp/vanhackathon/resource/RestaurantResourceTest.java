@@ -1,20 +1,56 @@
 package gabtemp.vanhackathon.resource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalTime;
-import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import gabtemp.vanhackathon.cache.RestaurantCache;
 import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.domain.RestaurantForm;
+import gabtemp.vanhackathon.event.RestaurantChange;
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import gabtemp.vanhackathon.event.RestaurantChangeEvent;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.geo.Geocoder;
+import gabtemp.vanhackathon.index.AvailabilityIndex;
+import gabtemp.vanhackathon.index.GeoIndex;
 import gabtemp.vanhackathon.repository.RestaurantRepository;
+import gabtemp.vanhackathon.serialization.SmileMessageBodyWriter;
+import gabtemp.vanhackathon.service.ImportJob;
+import gabtemp.vanhackathon.service.ImportJobQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import static java.time.DayOfWeek.FRIDAY;
 import static java.time.DayOfWeek.MONDAY;
 import static java.time.DayOfWeek.SUNDAY;
 import static java.util.Arrays.asList;
@@ -22,6 +58,14 @@ import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -30,33 +74,160 @@ public class RestaurantResourceTest {
     @Mock
     private RestaurantRepository repository;
 
+    @Mock
+    private RestaurantCache cache;
+
+    @Mock
+    private ImportJobQueue importJobs;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @Mock
+    private GeoIndex geoIndex;
+
+    @Mock
+    private Geocoder geocoder;
+
+    @Mock
+    private Request request;
+
+    @Spy
+    private RestaurantChangeLog changeLog = new RestaurantChangeLog(10);
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Spy
+    private SmileMessageBodyWriter smileWriter = new SmileMessageBodyWriter(Jackson2ObjectMapperBuilder.json());
+
     @InjectMocks
     private RestaurantResource resource;
 
     @Test
-    public void testFindAllEmpty() {
-        Response response = resource.findAll();
+    public void testFindAllNotModified() {
+        EntityTag tag = new EntityTag("c-" + changeLog.getSequence(), true);
+        when(request.evaluatePreconditions(any(Date.class), eq(tag))).thenReturn(Response.notModified(tag));
+
+        Response response = resource.findAll(null, null, request);
+        assertThat("GET all not modified - response code: ", response.getStatus(), is(304));
+        assertThat("GET all not modified - response entity: ", response.hasEntity(), is(false));
+        verifyZeroInteractions(repository);
+    }
+
+    @Test
+    public void testFindAllEmpty() throws IOException {
+        Response response = resource.findAll(null, null, request);
         assertThat("GET all empty - response code: ", response.getStatus(), is(200));
-        assertThat("GET all empty - response entity: ", response.getEntity(), is(Collections.emptyList()));
+        assertThat("GET all empty - response entity: ", write(response), is("[]"));
     }
 
     @Test
-    public void testFindAll() {
+    public void testFindAll() throws IOException {
         Restaurant restaurant1 = new Restaurant();
+        restaurant1.setId(1L);
         Restaurant restaurant2 = new Restaurant();
+        restaurant2.setId(2L);
 
-        when(repository.findAll()).thenReturn(asList(restaurant1, restaurant2));
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, RestaurantResource.PAGE_SIZE)))
+                .thenReturn(asList(restaurant1, restaurant2));
 
-        Response response = resource.findAll();
+        Response response = resource.findAll(null, null, request);
         assertThat("GET all - response code: ", response.getStatus(), is(200));
-        assertThat("GET all- response entity: ", response.getEntity(), is(asList(restaurant1, restaurant2)));
+        assertThat("GET all- response entity: ", write(response),
+                is(objectMapper.writeValueAsString(asList(restaurant1, restaurant2))));
+        assertThat("GET all - size metric: ",
+                meterRegistry.get(RestaurantResource.FIND_ALL_SIZE).summary().totalAmount(), is(2.0));
+    }
+
+    @Test
+    public void testFindAllPaged() throws IOException {
+        Restaurant restaurant1 = new Restaurant();
+        restaurant1.setId(11L);
+        Restaurant restaurant2 = new Restaurant();
+        restaurant2.setId(12L);
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 2)))
+                .thenReturn(asList(restaurant1, restaurant2));
+
+        Response response = resource.findAll(2, 10L, request);
+        assertThat("GET all paged - response code: ", response.getStatus(), is(200));
+        assertThat("GET all paged - response entity: ", write(response),
+                is(objectMapper.writeValueAsString(asList(restaurant1, restaurant2))));
+        verify(repository, times(1)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    public void testFindAllSmile() throws IOException {
+        Restaurant restaurant = restaurant(1L, 3L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, RestaurantResource.PAGE_SIZE)))
+                .thenReturn(asList(restaurant));
+        when(request.selectVariant(RestaurantResource.FORMATS)).thenReturn(RestaurantResource.FORMATS.get(1));
+
+        Response response = resource.findAll(null, null, request);
+        assertThat("GET all Smile - media type: ", response.getMediaType(),
+                is(SmileMessageBodyWriter.APPLICATION_SMILE_TYPE));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        assertThat("GET all Smile - response entity: ",
+                smileWriter.getObjectMapper().readTree(output.toByteArray()),
+                is(objectMapper.readTree(objectMapper.writeValueAsString(asList(restaurant)))));
+    }
+
+    @Test
+    public void testFindAllInvalidLimit() {
+        Response response = resource.findAll(0, null, request);
+        assertThat("GET all invalid limit - response code: ", response.getStatus(), is(BAD_REQUEST.getStatusCode()));
+        assertThat("GET all invalid limit - response entity: ", response.getEntity(),
+                is("Query parameter 'limit' must be a positive number"));
+    }
+
+    @Test
+    public void testFindAvailable() {
+        Restaurant restaurant1 = new Restaurant();
+        restaurant1.setId(1L);
+        Restaurant restaurant2 = new Restaurant();
+        restaurant2.setId(2L);
+
+        when(availabilityIndex.find(FRIDAY, LocalTime.of(21, 0), LocalTime.of(23, 0))).thenReturn(asList(2L, 1L));
+        when(cache.findAllById(asList(2L, 1L))).thenReturn(asList(restaurant2, restaurant1));
+
+        Response response = resource.findAvailable("friday", "21:00", "23:00", request);
+        assertThat("GET available - response code: ", response.getStatus(), is(200));
+        assertThat("GET available - response entity: ", response.getEntity(), is(asList(restaurant2, restaurant1)));
+    }
+
+    @Test
+    public void testFindAvailableInvalid() {
+        Response response;
+        response = resource.findAvailable(null, "21:00", "23:00", request);
+        assertThat("GET available day missing - response code: ", response.getStatus(), is(BAD_REQUEST.getStatusCode()));
+        assertThat("GET available day missing - response entity: ", response.getEntity(),
+                is("Query parameter 'day' is mandatory"));
+
+        response = resource.findAvailable("FRYDAY", "21:00", "23:00", request);
+        assertThat("GET available day invalid - response code: ", response.getStatus(), is(BAD_REQUEST.getStatusCode()));
+        assertThat("GET available day invalid - response entity: ", response.getEntity(),
+                is("Invalid week day (FRYDAY) for the 'day' field."));
+
+        response = resource.findAvailable("FRIDAY", "21:00", "25:00", request);
+        assertThat("GET available time invalid - response code: ", response.getStatus(), is(BAD_REQUEST.getStatusCode()));
+        assertThat("GET available time invalid - response entity: ", response.getEntity(),
+                is("Invalid time format (25:00) for the 'from' or 'to' field. The allowed format is 'hh:mm', " +
+                        "where 'hh' is the hour from 0 to 23 and 'mm' are the minutes from 0 to 59."));
     }
 
     @Test
     public void testFindByIdNotFound() {
-        when(repository.findById(14L)).thenReturn(Optional.empty());
+        when(cache.findById(14L)).thenReturn(Optional.empty());
 
-        Response response = resource.findById(14L);
+        Response response = resource.findById(14L, request);
         assertThat("GET by ID Not Found - response code: ", response.getStatus(), is(404));
         assertThat("GET by ID Not Found - response entity: ", response.getEntity(),
                 is("Registered restaurant with id 14 not found."));
@@ -66,13 +237,107 @@ public class RestaurantResourceTest {
     public void testFindById() {
         Restaurant restaurant = new Restaurant();
 
-        when(repository.findById(32L)).thenReturn(Optional.of(restaurant));
+        when(cache.findById(32L)).thenReturn(Optional.of(restaurant));
 
-        Response response = resource.findById(32L);
+        Response response = resource.findById(32L, request);
         assertThat("GET by ID - response code: ", response.getStatus(), is(200));
         assertThat("GET by ID - response entity: ", response.getEntity(), is(restaurant));
     }
 
+    @Test
+    public void testFindNearby() {
+        Restaurant restaurant = new Restaurant();
+        when(geoIndex.findNearest(new GeoPoint(49.28, -123.12), 2.5, FRIDAY, 20)).thenReturn(asList(7L));
+        when(cache.findAllById(asList(7L))).thenReturn(asList(restaurant));
+
+        Response response = resource.findNearby("49.28", "-123.12", "2.5", "friday", null);
+        assertThat("GET nearby - response code: ", response.getStatus(), is(200));
+        assertThat("GET nearby - response entity: ", response.getEntity(), is(asList(restaurant)));
+    }
+
+    @Test
+    public void testFindNearbyInvalid() {
+        Response response = resource.findNearby(null, "-123.12", null, null, null);
+        assertThat("GET nearby point missing - response code: ", response.getStatus(), is(400));
+        assertThat("GET nearby point missing - response entity: ", response.getEntity(),
+                is("Query parameters 'lat' and 'lon' are mandatory"));
+
+        response = resource.findNearby("91", "-123.12", null, null, null);
+        assertThat("GET nearby invalid latitude - response code: ", response.getStatus(), is(400));
+
+        response = resource.findNearby("NaN", "0", null, null, null);
+        assertThat("GET nearby NaN latitude - response code: ", response.getStatus(), is(400));
+
+        response = resource.findNearby("0", "NaN", null, null, null);
+        assertThat("GET nearby NaN longitude - response code: ", response.getStatus(), is(400));
+
+        response = resource.findNearby("49.28", "-123.12", "0", null, null);
+        assertThat("GET nearby invalid radius - response code: ", response.getStatus(), is(400));
+
+        response = resource.findNearby("49.28", "-123.12", null, "FRYDAY", null);
+        assertThat("GET nearby invalid day - response code: ", response.getStatus(), is(400));
+    }
+
+    @Test
+    public void testFindChanges() {
+        long since = changeLog.getSequence();
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(32L);
+        changeLog.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.CREATED, restaurant));
+        changeLog.onRestaurantChange(new RestaurantChangeEvent(RestaurantChangeEvent.Type.DELETED, restaurant));
+
+        Response response = resource.findChanges(since, 1);
+        List<RestaurantChange> changes = (List<RestaurantChange>) response.getEntity();
+        assertThat("GET changes - response code: ", response.getStatus(), is(200));
+        assertThat("GET changes - changes: ", changes.size(), is(1));
+        assertThat("GET changes - restaurant: ", changes.get(0).getRestaurant(), is(restaurant));
+        assertThat("GET changes - sequence header: ", response.getHeaderString(RestaurantResource.CHANGE_SEQUENCE),
+                is(String.valueOf(since + 1)));
+    }
+
+    @Test
+    public void testFindChangesInvalid() {
+        Response response = resource.findChanges(null, null);
+        assertThat("GET changes since missing - response code: ", response.getStatus(), is(400));
+        assertThat("GET changes since missing - response entity: ", response.getEntity(),
+                is("Query parameter 'since' is mandatory"));
+
+        response = resource.findChanges(changeLog.getSequence() - 1, null);
+        assertThat("GET changes gone - response code: ", response.getStatus(), is(410));
+        assertThat("GET changes gone - response entity: ", response.getEntity(),
+                is("Restaurant changes since " + (changeLog.getSequence() - 1) + " are no longer available."));
+    }
+
+    @Test
+    public void testFindByIdNotModified() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(32L);
+        restaurant.setVersion(3L);
+        restaurant.setLastModified(Instant.parse("2018-07-01T10:15:30.250Z"));
+        EntityTag tag = new EntityTag("32-3", true);
+
+        when(cache.findById(32L)).thenReturn(Optional.of(restaurant));
+        when(request.evaluatePreconditions(Date.from(Instant.parse("2018-07-01T10:15:30Z")), tag))
+                .thenReturn(Response.notModified(tag));
+
+        Response response = resource.findById(32L, request);
+        assertThat("GET by ID not modified - response code: ", response.getStatus(), is(304));
+        assertThat("GET by ID not modified - response entity: ", response.hasEntity(), is(false));
+    }
+
+    @Test
+    public void testFindByIdTagged() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(32L);
+        restaurant.setVersion(3L);
+
+        when(cache.findById(32L)).thenReturn(Optional.of(restaurant));
+
+        Response response = resource.findById(32L, request);
+        assertThat("GET by ID tagged - response code: ", response.getStatus(), is(200));
+        assertThat("GET by ID tagged - response tag: ", response.getEntityTag(), is(new EntityTag("32-3", true)));
+    }
+
     @Test
     public void testCreateWithoutRequiredField() {
         Response response;
@@ -112,6 +377,8 @@ public class RestaurantResourceTest {
         Response response = resource.create("name", "address", "FRIDAY,SUNDAY", "23:15");
         assertThat("POST successful - response code: ", response.getStatus(), is(201));
         assertThat("POST successful - response entity: ", response.getEntity(), is(expected));
+        verify(publisher).publishEvent(argThat((RestaurantChangeEvent event) ->
+                event.getType() == RestaurantChangeEvent.Type.CREATED && event.getRestaurant().equals(expected)));
     }
 
     @Test
@@ -133,11 +400,56 @@ public class RestaurantResourceTest {
                 is(expected.getAvailablePickUpDays()));
     }
 
+    @Test
+    public void testCreateInvalidDays() {
+        Response response = resource.create("name", "address", "FRIDAY,FUNDAY", "23:15");
+        assertThat("POST pickUpDays invalid - response code: ", response.getStatus(), is(BAD_REQUEST.getStatusCode()));
+        assertThat("POST pickUpDays invalid - response entity: ", response.getEntity(),
+                is("Invalid week days (FRIDAY,FUNDAY) for the 'pickUpDays' field. The allowed format is a comma " +
+                        "separated list of week days, e.g. 'FRIDAY,SATURDAY'."));
+    }
+
+    @Test
+    public void testCreateAll() throws IOException {
+        ImportJob job = mock(ImportJob.class);
+        when(job.getId()).thenReturn("job-1");
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(importJobs.submit(body)).thenReturn(job);
+
+        Response response = resource.createAll(body);
+        assertThat("POST bulk - response code: ", response.getStatus(), is(202));
+        assertThat("POST bulk - response entity: ", response.getEntity(), is(job));
+        assertThat("POST bulk - response location: ", response.getLocation(), is(URI.create("/restaurant/bulk/job-1")));
+    }
+
+    @Test
+    public void testCreateAllRejected() throws IOException {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(importJobs.submit(body)).thenThrow(new RejectedExecutionException());
+
+        Response response = resource.createAll(body);
+        assertThat("POST bulk rejected - response code: ", response.getStatus(), is(503));
+        assertThat("POST bulk rejected - retry after: ", response.getHeaderString(HttpHeaders.RETRY_AFTER),
+                is(String.valueOf(RestaurantResource.BULK_RETRY_AFTER_SECONDS)));
+    }
+
+    @Test
+    public void testFindImport() {
+        ImportJob job = mock(ImportJob.class);
+        when(importJobs.findById("job-1")).thenReturn(Optional.of(job));
+        when(importJobs.findById("job-2")).thenReturn(Optional.empty());
+
+        assertThat("GET bulk - response entity: ", resource.findImport("job-1").getEntity(), is(job));
+        assertThat("GET bulk unknown - response code: ", resource.findImport("job-2").getStatus(), is(404));
+    }
+
     @Test
     public void testUpdateSuccessful() {
-        when(repository.findById(35L)).thenReturn(Optional.of(new Restaurant()));
-        when(repository.save(any(Restaurant.class))).thenAnswer(
-                invocationOnMock -> invocationOnMock.<Restaurant>getArgument(0));
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+        when(repository.updateChanges(any(Restaurant.class), any(Restaurant.class))).thenAnswer(invocationOnMock -> {
+            invocationOnMock.<Restaurant>getArgument(1).setVersion(4L);
+            return true;
+        });
 
         Response response = resource.update(35L, "New Address", "New Address", "SUNDAY,MONDAY", "22:15");
         Restaurant updated = (Restaurant) response.getEntity();
@@ -147,11 +459,51 @@ public class RestaurantResourceTest {
         assertThat("PUT successful - address field: ", updated.getAddress(), is("New Address"));
         assertThat("PUT successful - pickUpDays field: ", updated.getAvailablePickUpDays(), is(new HashSet<>(asList(SUNDAY, MONDAY))));
         assertThat("PUT successful - pickUpTime field: ", updated.getPickUpTime(), is(LocalTime.of(22, 15)));
+        assertThat("PUT successful - entity tag: ", response.getEntityTag(), is(new EntityTag("35-4", true)));
+        verify(geocoder).locate(updated);
+        verify(publisher).publishEvent(argThat((RestaurantChangeEvent event) ->
+                event.getType() == RestaurantChangeEvent.Type.UPDATED && event.getRestaurant() == updated));
+    }
+
+    @Test
+    public void testUpdateConflict() {
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+        when(cache.reload(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+        when(repository.updateChanges(any(Restaurant.class), any(Restaurant.class))).thenReturn(false);
+
+        Response response = resource.update(35L, "Name", "Address", null, "22:15");
+        assertThat("PUT conflict - response code: ", response.getStatus(), is(409));
+        assertThat("PUT conflict - response entity: ", response.getEntity(),
+                is("Registered restaurant with id 35 was concurrently modified."));
+        verify(repository, times(2)).updateChanges(any(Restaurant.class), any(Restaurant.class));
+        verifyZeroInteractions(publisher);
+    }
+
+    @Test
+    public void testUpdateStaleCache() {
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+        when(cache.reload(35L)).thenReturn(Optional.of(restaurant(35L, 4L)));
+        // only the reloaded version is current in the database
+        when(repository.updateChanges(any(Restaurant.class), any(Restaurant.class))).thenAnswer(invocationOnMock -> {
+            if (invocationOnMock.<Restaurant>getArgument(0).getVersion() != 4L) {
+                return false;
+            }
+            invocationOnMock.<Restaurant>getArgument(1).setVersion(5L);
+            return true;
+        });
+
+        Response response = resource.update(35L, "New Name", "Address", null, null);
+        assertThat("PUT stale cache - response code: ", response.getStatus(), is(200));
+        assertThat("PUT stale cache - entity tag: ", response.getEntityTag().getValue(), is("35-5"));
+
+        response = resource.update(35L, new RestaurantForm("Other Name", null, null, null), 4L);
+        assertThat("PUT stale cache If-Match - response code: ", response.getStatus(), is(200));
+        verify(cache, times(2)).reload(35L);
     }
 
     @Test
     public void testUpdateNotFound() {
-        when(repository.findById(14L)).thenReturn(Optional.empty());
+        when(cache.findById(14L)).thenReturn(Optional.empty());
 
         Response response = resource.update(14L, null, null, null, null);
         assertThat("PUT Not Found - response code: ", response.getStatus(), is(404));
@@ -162,7 +514,7 @@ public class RestaurantResourceTest {
 
     @Test
     public void testUpdateInvalid() {
-        when(repository.findById(14L)).thenReturn(Optional.of(new Restaurant()));
+        when(cache.findById(14L)).thenReturn(Optional.of(new Restaurant()));
 
         Response response = resource.update(14L, null, null, null, "24:67");
         assertThat("PUT pickUpTime invalid - response code: ", response.getStatus(), is(BAD_REQUEST.getStatusCode()));
@@ -171,9 +523,90 @@ public class RestaurantResourceTest {
                         "where 'hh' is the hour from 0 to 23 and 'mm' are the minutes from 0 to 59."));
     }
 
+    @Test
+    public void testUpdateUnchanged() {
+        Restaurant restaurant = restaurant(35L, 3L);
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant));
+        when(repository.updateChanges(any(Restaurant.class), any(Restaurant.class))).thenReturn(true);
+
+        Response response = resource.update(35L, "Name", "Address", null, null);
+        assertThat("PUT unchanged - response code: ", response.getStatus(), is(200));
+        assertThat("PUT unchanged - entity tag: ", response.getEntityTag().getValue(), is("35-3"));
+        verifyZeroInteractions(geocoder, publisher);
+    }
+
+    @Test
+    public void testUpdatePreconditionFailed() {
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+
+        Response response = resource.update(35L, new RestaurantForm("New Name", null, null, null),
+                RestaurantResource.expectedVersion(35L, "\"35-2\""));
+        assertThat("PUT stale If-Match - response code: ", response.getStatus(), is(412));
+        verify(repository, never()).updateChanges(any(Restaurant.class), any(Restaurant.class));
+
+        when(repository.updateChanges(any(Restaurant.class), any(Restaurant.class))).thenReturn(false);
+        when(cache.reload(35L)).thenReturn(Optional.of(restaurant(35L, 4L)));
+        response = resource.update(35L, new RestaurantForm("New Name", null, null, null), 3L);
+        assertThat("PUT concurrent update of the matched version - response code: ", response.getStatus(), is(412));
+        verifyZeroInteractions(publisher);
+    }
+
+    @Test
+    public void testExpectedVersion() {
+        assertThat("If-Match missing: ", RestaurantResource.expectedVersion(35L, null), is((Long) null));
+        assertThat("If-Match any: ", RestaurantResource.expectedVersion(35L, "*"), is((Long) null));
+        assertThat("If-Match tag: ", RestaurantResource.expectedVersion(35L, "\"34-1\", \"35-7\""), is(7L));
+        assertThat("If-Match weak tag: ", RestaurantResource.expectedVersion(35L, "W/\"35-7\""), is(7L));
+        assertThat("If-Match other tag: ", RestaurantResource.expectedVersion(35L, "\"35-x\""), is(-1L));
+    }
+
+    @Test
+    public void testPatch() throws IOException {
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+        when(repository.updateChanges(any(Restaurant.class), any(Restaurant.class))).thenAnswer(invocationOnMock -> {
+            invocationOnMock.<Restaurant>getArgument(1).setVersion(4L);
+            return true;
+        });
+
+        Response response = resource.patch(35L, json("{\"name\": \"New Name\", \"availablePickUpDays\": " +
+                "[\"SUNDAY\", \"MONDAY\"], \"version\": 3}"), null);
+        Restaurant patched = (Restaurant) response.getEntity();
+        assertThat("PATCH - response code: ", response.getStatus(), is(200));
+        assertThat("PATCH - name field: ", patched.getName(), is("New Name"));
+        assertThat("PATCH - address kept: ", patched.getAddress(), is("Address"));
+        assertThat("PATCH - pickUpDays field: ", patched.getAvailablePickUpDays(),
+                is(new HashSet<>(asList(SUNDAY, MONDAY))));
+        assertThat("PATCH - pickUpTime kept: ", patched.getPickUpTime(), is(LocalTime.of(21, 0)));
+        verify(repository).updateChanges(argThat(restaurant -> restaurant.getName().equals("Name")),
+                argThat(restaurant -> restaurant.getName().equals("New Name")));
+        verifyZeroInteractions(geocoder);
+        verify(publisher).publishEvent(argThat((RestaurantChangeEvent event) ->
+                event.getType() == RestaurantChangeEvent.Type.UPDATED && event.getRestaurant() == patched));
+    }
+
+    @Test
+    public void testPatchInvalid() throws IOException {
+        when(cache.findById(35L)).thenReturn(Optional.of(restaurant(35L, 3L)));
+
+        assertThat("PATCH array - response code: ", resource.patch(35L, json("[]"), null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("PATCH remove field - response code: ",
+                resource.patch(35L, json("{\"name\": null}"), null).getStatus(), is(BAD_REQUEST.getStatusCode()));
+        assertThat("PATCH read-only field - response entity: ",
+                resource.patch(35L, json("{\"latitude\": 49.2}"), null).getEntity(),
+                is("Field 'latitude' can't be changed"));
+        assertThat("PATCH invalid time - response code: ",
+                resource.patch(35L, json("{\"pickUpTime\": \"24:67\"}"), null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("PATCH version mismatch - response code: ",
+                resource.patch(35L, json("{\"version\": 3}"), "\"35-2\"").getStatus(), is(412));
+        verify(repository, never()).updateChanges(any(Restaurant.class), any(Restaurant.class));
+        verifyZeroInteractions(publisher);
+    }
+
     @Test
     public void testDeleteNotFound() {
-        when(repository.findById(14L)).thenReturn(Optional.empty());
+        when(cache.findById(14L)).thenReturn(Optional.empty());
 
         Response response = resource.delete(14L);
         assertThat("DELETE Not Found - response code: ", response.getStatus(), is(404));
@@ -185,10 +618,62 @@ public class RestaurantResourceTest {
     public void testDelete() {
         Restaurant restaurant = new Restaurant();
 
-        when(repository.findById(32L)).thenReturn(Optional.of(restaurant));
+        when(cache.findById(32L)).thenReturn(Optional.of(restaurant));
 
         Response response = resource.delete(32L);
         assertThat("GET by ID - response code: ", response.getStatus(), is(200));
         assertThat("GET by ID - response entity: ", response.getEntity(), is(restaurant));
+        verify(publisher).publishEvent(argThat((RestaurantChangeEvent event) ->
+                event.getType() == RestaurantChangeEvent.Type.DELETED && event.getRestaurant() == restaurant));
+    }
+
+    @Test
+    public void testDeleteStaleCache() {
+        Restaurant stale = restaurant(32L, 1L);
+        Restaurant reloaded = restaurant(32L, 2L);
+        when(cache.findById(32L)).thenReturn(Optional.of(stale));
+        when(cache.reload(32L)).thenReturn(Optional.of(reloaded));
+        // the restaurants are equal by id, the deletes are told apart by version
+        doThrow(new ObjectOptimisticLockingFailureException(Restaurant.class, 32L)).when(repository)
+                .delete(argThat(restaurant -> restaurant.getVersion() == 1L));
+
+        Response response = resource.delete(32L);
+        assertThat("DELETE stale cache - response code: ", response.getStatus(), is(200));
+        assertThat("DELETE stale cache - response entity version: ",
+                ((Restaurant) response.getEntity()).getVersion(), is(2L));
+        verify(repository).delete(argThat(restaurant -> restaurant.getVersion() == 2L));
+    }
+
+    @Test
+    public void testDeleteConflict() {
+        when(cache.findById(32L)).thenReturn(Optional.of(restaurant(32L, 1L)));
+        when(cache.reload(32L)).thenReturn(Optional.of(restaurant(32L, 2L)));
+        doThrow(new ObjectOptimisticLockingFailureException(Restaurant.class, 32L)).when(repository)
+                                                                                   .delete(any(Restaurant.class));
+
+        Response response = resource.delete(32L);
+        assertThat("DELETE conflict - response code: ", response.getStatus(), is(409));
+        verifyZeroInteractions(publisher);
+    }
+
+    private static String write(Response response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return output.toString("UTF-8");
+    }
+
+    private static Restaurant restaurant(Long id, Long version) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName("Name");
+        restaurant.setAddress("Address");
+        restaurant.setAvailablePickUpDays(EnumSet.of(FRIDAY));
+        restaurant.setPickUpTime(LocalTime.of(21, 0));
+        restaurant.setVersion(version);
+        return restaurant;
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package gabtemp.vanhackathon.resource;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.cache.RestaurantCache;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.geo.GeoPoint;
+import gabtemp.vanhackathon.index.AvailabilityIndex;
+import gabtemp.vanhackathon.routing.Route;
+import gabtemp.vanhackathon.routing.RoutePlanner;
+import gabtemp.vanhackathon.routing.Stop;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.SATURDAY;
+import static java.time.DayOfWeek.THURSDAY;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RouteResourceTest {
+
+    @Spy
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+    @Mock
+    private RestaurantCache cache;
+
+    @Mock
+    private RoutePlanner planner;
+
+    @Mock
+    private Route route;
+
+    @InjectMocks
+    private RouteResource resource = new RouteResource(60);
+
+    @Test
+    public void testPlan() {
+        Restaurant late = restaurant(1L, LocalTime.of(23, 30), 49.28, FRIDAY);
+        Restaurant afterMidnight = restaurant(2L, LocalTime.of(0, 30), 49.29, SATURDAY);
+        Restaurant unlocated = restaurant(3L, LocalTime.of(23, 0), null, FRIDAY);
+        Restaurant closed = restaurant(4L, LocalTime.of(21, 30), 49.28, FRIDAY);
+        asList(late, afterMidnight, unlocated, closed).forEach(availabilityIndex::put);
+        when(cache.findAllById(asList(3L, 1L, 2L))).thenReturn(asList(unlocated, late, afterMidnight));
+        when(planner.plan(any(), anyInt(), any())).thenReturn(route);
+
+        Response response = resource.plan("49.27", "-123.12", "friday", "23:00", "01:00");
+        assertThat("Plan - status: ", response.getStatus(), is(200));
+        assertThat("Plan - entity: ", response.getEntity(), is(route));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Stop>> stops = ArgumentCaptor.forClass(List.class);
+        verify(planner).plan(eq(new GeoPoint(49.27, -123.12)), eq(23 * 3600), stops.capture());
+        assertThat("Plan - stops: ", stops.getValue().size(), is(2));
+        assertThat("Plan - window start: ", stops.getValue().get(0).getWindowStart(), is(23 * 3600 + 1800));
+        assertThat("Plan - window end: ", stops.getValue().get(0).getWindowEnd(), is(24 * 3600 + 1800));
+        assertThat("Plan - next day window start: ", stops.getValue().get(1).getWindowStart(),
+                is(24 * 3600 + 1800));
+    }
+
+    @Test
+    public void testPlanOpenWindows() {
+        Restaurant open = restaurant(1L, LocalTime.of(0, 10), 49.28, FRIDAY);
+        Restaurant previousDay = restaurant(2L, LocalTime.of(23, 45), 49.29, THURSDAY);
+        Restaurant closed = restaurant(3L, LocalTime.of(23, 15), 49.30, THURSDAY);
+        Restaurant later = restaurant(4L, LocalTime.of(1, 0), 49.31, FRIDAY, THURSDAY);
+        asList(open, previousDay, closed, later).forEach(availabilityIndex::put);
+        when(cache.findAllById(asList(2L, 1L, 4L))).thenReturn(asList(previousDay, open, later));
+        when(planner.plan(any(), anyInt(), any())).thenReturn(route);
+
+        assertThat("Plan open windows - status: ",
+                resource.plan("49.27", "-123.12", "FRIDAY", "00:30", "02:00").getStatus(), is(200));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Stop>> stops = ArgumentCaptor.forClass(List.class);
+        verify(planner).plan(any(), eq(1800), stops.capture());
+        assertThat("Plan open windows - stops: ", stops.getValue().size(), is(3));
+        assertThat("Plan open windows - previous day start: ", stops.getValue().get(0).getWindowStart(), is(-900));
+        assertThat("Plan open windows - previous day end: ", stops.getValue().get(0).getWindowEnd(), is(2700));
+        assertThat("Plan open windows - open start: ", stops.getValue().get(1).getWindowStart(), is(600));
+        assertThat("Plan open windows - later start: ", stops.getValue().get(2).getWindowStart(), is(3600));
+    }
+
+    @Test
+    public void testPlanInvalid() {
+        assertThat("Plan missing from: ", resource.plan("49.27", "-123.12", "FRIDAY", null, null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Plan invalid latitude: ", resource.plan("91", "-123.12", "FRIDAY", "21:00", null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Plan invalid day: ", resource.plan("49.27", "-123.12", "FRI", "21:00", null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Plan invalid time: ", resource.plan("49.27", "-123.12", "FRIDAY", "9pm", null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        verifyZeroInteractions(planner);
+    }
+
+    private static Restaurant restaurant(Long id, LocalTime pickUpTime, Double latitude, DayOfWeek... days) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setPickUpTime(pickUpTime);
+        restaurant.setAvailablePickUpDays(EnumSet.copyOf(asList(days)));
+        restaurant.setLatitude(latitude);
+        restaurant.setLongitude(latitude == null ? null : -123.12);
+        return restaurant;
+    }
+}
@@ -0,0 +1,126 @@
+package gabtemp.vanhackathon.resource;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantChangeLog;
+import gabtemp.vanhackathon.index.AvailabilityIndex;
+import gabtemp.vanhackathon.index.ScheduledPickUp;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.DayOfWeek.SATURDAY;
+import static java.time.DayOfWeek.SUNDAY;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ScheduleResourceTest {
+
+    @Spy
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+    @Spy
+    private RestaurantChangeLog changeLog = new RestaurantChangeLog(10);
+
+    @Mock
+    private Request request;
+
+    @InjectMocks
+    private ScheduleResource resource = new ScheduleResource("America/Vancouver");
+
+    @Before
+    public void setUp() {
+        availabilityIndex.put(restaurant(1L, LocalTime.of(22, 0), FRIDAY, SATURDAY));
+        availabilityIndex.put(restaurant(2L, LocalTime.of(21, 30), FRIDAY, SUNDAY));
+        availabilityIndex.put(restaurant(3L, LocalTime.of(8, 0), SATURDAY, MONDAY));
+    }
+
+    @Test
+    public void testFind() {
+        // 2018-07-06 is a friday
+        Response response = resource.find("2018-07-06T21:45", "2018-07-08T21:30", request);
+        assertThat("Find - status: ", response.getStatus(), is(200));
+        assertThat("Find - entity: ", pickUps(response),
+                is(asList("2018-07-06 22:00 1", "2018-07-07 08:00 3", "2018-07-07 22:00 1", "2018-07-08 21:30 2")));
+        assertThat("Find - entity tag: ", response.getEntityTag(),
+                is(new EntityTag("c-" + changeLog.getSequence(), true)));
+    }
+
+    @Test
+    public void testFindDefaultRange() {
+        Response response = resource.find(null, null, request);
+        assertThat("Find default range - status: ", response.getStatus(), is(200));
+        assertThat("Find default range - size: ", ((List<?>) response.getEntity()).size(), is(6));
+        assertThat("Find default range - entity tag: ", response.getEntityTag(), is(nullValue()));
+        verifyZeroInteractions(request);
+    }
+
+    @Test
+    public void testFindWholeWeek() {
+        Response response = resource.find("2018-07-06T22:00", "2018-07-13T22:00", request);
+        assertThat("Find whole week - status: ", response.getStatus(), is(200));
+        List<String> pickUps = pickUps(response);
+        assertThat("Find whole week - size: ", pickUps.size(), is(6));
+        assertThat("Find whole week - first: ", pickUps.get(0), is("2018-07-06 22:00 1"));
+        assertThat("Find whole week - last: ", pickUps.get(5), is("2018-07-13 21:30 2"));
+    }
+
+    @Test
+    public void testFindNotModified() {
+        EntityTag tag = new EntityTag("c-" + changeLog.getSequence(), true);
+        when(request.evaluatePreconditions(any(Date.class), eq(tag))).thenReturn(Response.notModified(tag));
+
+        Response response = resource.find("2018-07-06T00:00", null, request);
+        assertThat("Find not modified - status: ", response.getStatus(), is(304));
+        assertThat("Find not modified - entity: ", response.hasEntity(), is(false));
+    }
+
+    @Test
+    public void testFindInvalid() {
+        assertThat("Find invalid from: ", resource.find("2018-07-06", null, request).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Find to before from: ", resource.find("2018-07-06T10:00", "2018-07-06T09:00", request).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Find too long: ", resource.find("2018-07-06T10:00", "2018-07-13T10:01", request).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+    }
+
+    private static List<String> pickUps(Response response) {
+        @SuppressWarnings("unchecked")
+        List<ScheduledPickUp> schedule = (List<ScheduledPickUp>) response.getEntity();
+        return schedule.stream()
+                       .map(pickUp -> pickUp.getDate() + " " + pickUp.getPickUpTime() + " " + pickUp.getRestaurantId())
+                       .collect(Collectors.toList());
+    }
+
+    private static Restaurant restaurant(Long id, LocalTime pickUpTime, DayOfWeek... days) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setPickUpTime(pickUpTime);
+        restaurant.setAvailablePickUpDays(EnumSet.copyOf(asList(days)));
+        return restaurant;
+    }
+}
@@ -0,0 +1,124 @@
+package gabtemp.vanhackathon.resource;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import javax.ws.rs.core.Response;
+
+import gabtemp.vanhackathon.domain.Shelter;
+import gabtemp.vanhackathon.event.ShelterChangeEvent;
+import gabtemp.vanhackathon.geo.Geocoder;
+import gabtemp.vanhackathon.matching.MatchingEngine;
+import gabtemp.vanhackathon.repository.ShelterRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.SATURDAY;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ShelterResourceTest {
+
+    @Mock
+    private ShelterRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @Mock
+    private Geocoder geocoder;
+
+    @Mock
+    private MatchingEngine matchingEngine;
+
+    @InjectMocks
+    private ShelterResource resource;
+
+    @Test
+    public void testCreate() {
+        when(repository.save(any(Shelter.class))).then(invocation -> {
+            Shelter shelter = invocation.getArgument(0);
+            shelter.setId(1L);
+            return shelter;
+        });
+
+        Response response = resource.create("Shelter", "300 Water St, Vancouver", "20", "FRIDAY,SATURDAY", "21:00",
+                "02:00");
+        assertThat("Create - status: ", response.getStatus(), is(201));
+        Shelter created = (Shelter) response.getEntity();
+        assertThat("Create - capacity: ", created.getCapacity(), is(20));
+        assertThat("Create - receiving days: ", created.getReceivingDays(), is(EnumSet.of(FRIDAY, SATURDAY)));
+        assertThat("Create - close time: ", created.getCloseTime(), is(LocalTime.of(2, 0)));
+        verify(geocoder).locate(created);
+        verify(publisher).publishEvent(argThat((ShelterChangeEvent event) ->
+                event.getType() == ShelterChangeEvent.Type.CREATED && event.getShelter() == created));
+    }
+
+    @Test
+    public void testCreateInvalid() {
+        assertThat("Create missing capacity: ",
+                resource.create("Shelter", "Address", null, null, "21:00", "23:00").getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Create negative capacity: ",
+                resource.create("Shelter", "Address", "-1", null, "21:00", "23:00").getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Create invalid days: ",
+                resource.create("Shelter", "Address", "10", "FRI", "21:00", "23:00").getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Create invalid time: ",
+                resource.create("Shelter", "Address", "10", null, "9pm", "23:00").getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        verifyZeroInteractions(repository, publisher);
+    }
+
+    @Test
+    public void testUpdate() {
+        Shelter shelter = new Shelter();
+        shelter.setId(1L);
+        shelter.setName("Shelter");
+        shelter.setCapacity(10);
+        shelter.setReceivingDays(EnumSet.allOf(DayOfWeek.class));
+        when(repository.findById(1L)).thenReturn(Optional.of(shelter));
+        when(repository.save(any(Shelter.class))).then(invocation -> invocation.getArgument(0));
+
+        Response response = resource.update(1L, null, null, "15", null, null, null);
+        assertThat("Update - status: ", response.getStatus(), is(200));
+        assertThat("Update - capacity: ", ((Shelter) response.getEntity()).getCapacity(), is(15));
+        assertThat("Update - name kept: ", ((Shelter) response.getEntity()).getName(), is("Shelter"));
+        assertThat("Update - original unchanged: ", shelter.getCapacity(), is(10));
+        verifyZeroInteractions(geocoder);
+        verify(publisher).publishEvent(argThat((ShelterChangeEvent event) ->
+                event.getType() == ShelterChangeEvent.Type.UPDATED));
+    }
+
+    @Test
+    public void testFindDeliveries() {
+        when(matchingEngine.findDeliveries(1L, FRIDAY)).thenReturn(Optional.empty());
+
+        assertThat("Find deliveries - not found: ", resource.findDeliveries(1L, "friday").getStatus(), is(404));
+        assertThat("Find deliveries - missing day: ", resource.findDeliveries(1L, null).getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+        assertThat("Find deliveries - invalid day: ", resource.findDeliveries(1L, "FRI").getStatus(),
+                is(BAD_REQUEST.getStatusCode()));
+    }
+
+    @Test
+    public void testDeleteNotFound() {
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+        assertThat("Delete - not found: ", resource.delete(1L).getStatus(), is(404));
+        verifyZeroInteractions(publisher);
+    }
+}
@@ -0,0 +1,118 @@
+package gabtemp.vanhackathon.routing;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import gabtemp.vanhackathon.geo.GeoPoint;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class RoutePlannerTest {
+
+    private static final int NINE_PM = 21 * 3600;
+
+    private static final GeoPoint START = new GeoPoint(49.28, -123.12);
+
+    private final RoutePlanner planner = new RoutePlanner(25, 5, 100, 2, 50);
+
+    @After
+    public void tearDown() {
+        planner.shutdown();
+    }
+
+    @Test
+    public void testPlanEmpty() {
+        Route route = planner.plan(START, NINE_PM, Collections.emptyList());
+        assertThat("Plan empty - stops: ", route.getStops().isEmpty(), is(true));
+        assertThat("Plan empty - distance: ", route.getDistanceKm(), is(0.0));
+    }
+
+    @Test
+    public void testPlanShortestPath() {
+        List<Stop> stops = asList(
+                stop(3, 49.30, NINE_PM, NINE_PM + 7200),
+                stop(1, 49.29, NINE_PM, NINE_PM + 7200),
+                stop(5, 49.32, NINE_PM, NINE_PM + 7200),
+                stop(2, 49.295, NINE_PM, NINE_PM + 7200),
+                stop(4, 49.31, NINE_PM, NINE_PM + 7200));
+
+        Route route = planner.plan(START, NINE_PM, stops);
+        assertThat("Plan shortest path - order: ", ids(route), is(asList(1L, 2L, 3L, 4L, 5L)));
+        assertThat("Plan shortest path - distance: ", Math.round(route.getDistanceKm() * 10) / 10.0, is(4.4));
+        assertThat("Plan shortest path - late stops: ", route.getLateStops(), is(0));
+        assertThat("Plan shortest path - first pick-up: ", route.getStops().get(0).getPickUp(),
+                is(LocalTime.of(21, 2, 40)));
+    }
+
+    @Test
+    public void testPlanTimeWindows() {
+        // the nearest stop opens late, the farthest one must be picked up first to be on time
+        List<Stop> stops = asList(
+                stop(1, 49.29, NINE_PM + 4200, NINE_PM + 4800),
+                stop(2, 49.35, NINE_PM, NINE_PM + 1800),
+                stop(3, 49.30, NINE_PM + 3600, NINE_PM + 4200));
+
+        Route route = planner.plan(START, NINE_PM, stops);
+        assertThat("Plan time windows - order: ", ids(route), is(asList(2L, 3L, 1L)));
+        assertThat("Plan time windows - late stops: ", route.getLateStops(), is(0));
+        assertThat("Plan time windows - wait: ", route.getStops().get(1).getPickUp(), is(LocalTime.of(22, 0)));
+    }
+
+    @Test
+    public void testPlanWithinTimeBudget() {
+        Random random = new Random(42);
+        List<Stop> stops = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            int windowStart = NINE_PM + random.nextInt(4 * 3600);
+            stops.add(new Stop(id, new GeoPoint(49.1 + random.nextDouble() * 0.3, -123.3 + random.nextDouble() * 0.5),
+                    windowStart, windowStart + 3600));
+        }
+
+        long start = System.nanoTime();
+        Route route = planner.plan(START, NINE_PM, stops);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Set<Long> visited = new HashSet<>(ids(route));
+        assertThat("Plan within budget - stops: ", route.getStops().size(), is(300));
+        assertThat("Plan within budget - all visited once: ", visited.size(), is(300));
+        assertThat("Plan within budget - elapsed: " + elapsedMillis + " ms", elapsedMillis < 1000, is(true));
+    }
+
+    @Test
+    public void testPlanStopsWhenStalled() {
+        RoutePlanner stalling = new RoutePlanner(25, 5, 10000, 2, 5);
+        try {
+            List<Stop> stops = new ArrayList<>();
+            for (long id = 1; id <= 30; id++) {
+                stops.add(stop(id, 49.29 + id * 0.001, NINE_PM, NINE_PM + 7200));
+            }
+
+            long start = System.nanoTime();
+            Route route = stalling.plan(START, NINE_PM, stops);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat("Plan stalled - stops: ", route.getStops().size(), is(30));
+            assertThat("Plan stalled - elapsed: " + elapsedMillis + " ms", elapsedMillis < 5000, is(true));
+        } finally {
+            stalling.shutdown();
+        }
+    }
+
+    private static Stop stop(long id, double latitude, int windowStart, int windowEnd) {
+        return new Stop(id, new GeoPoint(latitude, START.getLongitude()), windowStart, windowEnd);
+    }
+
+    private static List<Long> ids(Route route) {
+        return route.getStops().stream().map(RouteStop::getId).collect(Collectors.toList());
+    }
+}
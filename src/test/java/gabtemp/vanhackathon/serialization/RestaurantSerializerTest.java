@@ -0,0 +1,89 @@
+package gabtemp.vanhackathon.serialization;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.EnumSet;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import gabtemp.vanhackathon.domain.Restaurant;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_ENUMS_USING_INDEX;
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.MONDAY;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class RestaurantSerializerTest {
+
+    @Test
+    public void testSameAsReflection() throws IOException {
+        assertSameAsReflection("Same as reflection", application());
+    }
+
+    @Test
+    public void testSameAsReflectionWithTimestamps() throws IOException {
+        assertSameAsReflection("Same as reflection with timestamps", Jackson2ObjectMapperBuilder.json());
+    }
+
+    @Test
+    public void testSameAsReflectionWithoutNulls() throws IOException {
+        assertSameAsReflection("Same as reflection without nulls", application()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToEnable(WRITE_ENUMS_USING_INDEX));
+    }
+
+    @Test
+    public void testSmile() throws IOException {
+        Jackson2ObjectMapperBuilder builder = application().serializerByType(Restaurant.class,
+                new RestaurantSerializer());
+        ObjectMapper smile = new SmileMessageBodyWriter(builder).getObjectMapper();
+        ObjectMapper json = builder.build();
+        assertThat("Smile - builder left as JSON: ", json.getFactory() instanceof SmileFactory, is(false));
+
+        Restaurant restaurant = restaurant(LocalTime.of(22, 11));
+        byte[] encoded = smile.writeValueAsBytes(restaurant);
+        assertThat("Smile - same document: ", smile.readTree(encoded),
+                is(json.readTree(json.writeValueAsString(restaurant))));
+        assertThat("Smile - smaller: ", encoded.length < json.writeValueAsBytes(restaurant).length, is(true));
+    }
+
+    /**
+     * @return a builder of object mappers configured as the one of the application
+     */
+    private static Jackson2ObjectMapperBuilder application() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static void assertSameAsReflection(String message, Jackson2ObjectMapperBuilder builder) throws IOException {
+        ObjectMapper reflection = builder.build();
+        ObjectMapper serializer = builder.serializerByType(Restaurant.class, new RestaurantSerializer()).build();
+
+        Restaurant[] restaurants = {restaurant(LocalTime.of(22, 11)), restaurant(LocalTime.of(9, 5, 30, 120_000_000)),
+                new Restaurant()};
+        for (Restaurant restaurant : restaurants) {
+            assertThat(message + ": ", serializer.writeValueAsString(restaurant),
+                    is(reflection.writeValueAsString(restaurant)));
+        }
+    }
+
+    private static Restaurant restaurant(LocalTime pickUpTime) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(7L);
+        restaurant.setName("Restaurant \"7\"");
+        restaurant.setAddress("300 Water St, Vancouver");
+        restaurant.setAvailablePickUpDays(EnumSet.of(MONDAY, FRIDAY, DayOfWeek.SUNDAY));
+        restaurant.setPickUpTime(pickUpTime);
+        restaurant.setLatitude(49.2844);
+        restaurant.setLongitude(-123.1089);
+        restaurant.setVersion(3L);
+        restaurant.setLastModified(Instant.parse("2018-07-01T10:15:30.250Z"));
+        return restaurant;
+    }
+}
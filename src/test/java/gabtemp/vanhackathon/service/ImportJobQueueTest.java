@@ -0,0 +1,120 @@
+package gabtemp.vanhackathon.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImportJobQueueTest {
+
+    @Mock
+    private RestaurantImporter importer;
+
+    private ImportJobQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new ImportJobQueue(1, 60);
+        ReflectionTestUtils.setField(queue, "importer", importer);
+    }
+
+    @After
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        ImportReport report = new ImportReport();
+        report.addImported(2);
+        when(importer.importRestaurants(any())).thenAnswer(invocationOnMock -> {
+            String content = new String(ByteStreams.toByteArray(invocationOnMock.<InputStream>getArgument(0)),
+                    StandardCharsets.UTF_8);
+            assertThat("Submit - spooled content: ", content, is("[{}, {}]"));
+            return report;
+        });
+
+        ImportJob job = queue.submit(input("[{}, {}]"));
+        assertThat("Submit - found: ", queue.findById(job.getId()).get(), is(job));
+        awaitEnd(job);
+
+        assertThat("Submit - status: ", job.getStatus(), is(ImportJob.Status.FINISHED));
+        assertThat("Submit - report: ", job.getReport(), is(report));
+        assertThat("Submit - unknown: ", queue.findById("unknown").isPresent(), is(false));
+    }
+
+    @Test
+    public void testSubmitFailed() throws Exception {
+        when(importer.importRestaurants(any())).thenThrow(new IOException("Broken"));
+
+        ImportJob job = queue.submit(input("[]"));
+        awaitEnd(job);
+
+        assertThat("Submit failed - status: ", job.getStatus(), is(ImportJob.Status.FAILED));
+        assertThat("Submit failed - error: ", job.getError(), is("Broken"));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testSubmitRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(importer.importRestaurants(any())).thenAnswer(invocationOnMock -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ImportReport();
+        });
+
+        ImportJob running = queue.submit(input("[]"));
+        ImportJob waiting = queue.submit(input("[]"));
+        try {
+            // one running and one waiting, the queue capacity
+            queue.submit(input("[]"));
+        } finally {
+            release.countDown();
+            awaitEnd(running);
+            awaitEnd(waiting);
+            assertThat("Submit rejected - running: ", running.getStatus(), is(ImportJob.Status.FINISHED));
+            assertThat("Submit rejected - waiting: ", waiting.getStatus(), is(ImportJob.Status.FINISHED));
+        }
+    }
+
+    @Test
+    public void testSubmitFinishedBeforeReturn() throws Exception {
+        when(importer.importRestaurants(any())).thenReturn(new ImportReport());
+
+        for (int i = 0; i < 20; i++) {
+            ImportJob job = queue.submit(input("[]"));
+            assertThat("Submit finished before return - found: ", queue.findById(job.getId()).get(), is(job));
+            awaitEnd(job);
+            assertThat("Submit finished before return - status: ", job.getStatus(), is(ImportJob.Status.FINISHED));
+        }
+    }
+
+    private static void awaitEnd(ImportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((job.getStatus() == ImportJob.Status.QUEUED || job.getStatus() == ImportJob.Status.RUNNING) &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
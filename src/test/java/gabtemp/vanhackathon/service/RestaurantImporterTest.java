@@ -0,0 +1,190 @@
+package gabtemp.vanhackathon.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gabtemp.vanhackathon.domain.Restaurant;
+import gabtemp.vanhackathon.event.RestaurantsCreatedEvent;
+import gabtemp.vanhackathon.geo.Geocoder;
+import gabtemp.vanhackathon.repository.RestaurantRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.SUNDAY;
+import static java.util.Collections.singleton;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestaurantImporterTest {
+
+    @Mock
+    private RestaurantRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @Mock
+    private Geocoder geocoder;
+
+    private RestaurantImporter importer;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Before
+    public void setUp() {
+        importer = new RestaurantImporter(2);
+        ReflectionTestUtils.setField(importer, "repository", repository);
+        ReflectionTestUtils.setField(importer, "publisher", publisher);
+        // as the one of the application, which ignores unknown properties
+        ReflectionTestUtils.setField(importer, "objectMapper",
+                new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+        ReflectionTestUtils.setField(importer, "geocoder", geocoder);
+    }
+
+    @Test
+    public void testImportArray() throws IOException {
+        mockSave();
+
+        ImportReport report = importer.importRestaurants(input("[" +
+                "{\"name\": \"A\", \"address\": \"A St.\", \"pickUpDays\": \"FRIDAY\", \"pickUpTime\": \"22:00\"}," +
+                "{\"name\": \"B\", \"address\": \"B St.\", \"pickUpTime\": \"23:00\"}," +
+                "{\"name\": \"C\", \"address\": \"C St.\", \"pickUpDays\": \"SUNDAY\", \"pickUpTime\": \"21:30\"}" +
+                "]"));
+
+        assertThat("Import array - imported: ", report.getImported(), is(3));
+        assertThat("Import array - failed: ", report.getFailed(), is(0));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Restaurant>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).saveAll(chunks.capture());
+        assertThat("Import array - first chunk size: ", chunks.getAllValues().get(0).size(), is(2));
+        assertThat("Import array - second chunk: ", chunks.getAllValues().get(1).get(0).getPickUpTime(),
+                is(LocalTime.of(21, 30)));
+        assertThat("Import array - second chunk days: ", chunks.getAllValues().get(1).get(0).getAvailablePickUpDays(),
+                is(singleton(SUNDAY)));
+        ArgumentCaptor<RestaurantsCreatedEvent> events = ArgumentCaptor.forClass(RestaurantsCreatedEvent.class);
+        verify(publisher, times(2)).publishEvent(events.capture());
+        assertThat("Import array - first event size: ", events.getAllValues().get(0).getRestaurants().size(), is(2));
+        assertThat("Import array - second event id: ", events.getAllValues().get(1).getRestaurants().get(0).getId(),
+                is(3L));
+    }
+
+    @Test
+    public void testImportNdjsonWithErrors() throws IOException {
+        mockSave();
+
+        ImportReport report = importer.importRestaurants(input(
+                "{\"name\": \"A\", \"address\": \"A St.\", \"pickUpDays\": \"FRIDAY\", \"pickUpTime\": \"22:00\"}\n" +
+                "{\"address\": \"B St.\", \"pickUpTime\": \"23:00\"}\n" +
+                "{\"name\": \"C\", \"address\": \"C St.\", \"pickUpTime\": \"29:63\"}\n" +
+                "{\"name\": \"D\", \"address\": \"D St.\", \"pickUpDays\": \"FRIDAY\", \"pickUpTime\": \"20:00\"}\n"));
+
+        assertThat("Import NDJSON - imported: ", report.getImported(), is(2));
+        assertThat("Import NDJSON - failed: ", report.getFailed(), is(2));
+        assertThat("Import NDJSON - first error row: ", report.getErrors().get(0).getRow(), is(2));
+        assertThat("Import NDJSON - first error message: ", report.getErrors().get(0).getMessage(),
+                is("Form parameter 'name' is mandatory"));
+        assertThat("Import NDJSON - second error row: ", report.getErrors().get(1).getRow(), is(3));
+        assertThat("Import NDJSON - second error message: ", report.getErrors().get(1).getMessage(),
+                startsWith("Invalid time format (29:63)"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Restaurant>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).saveAll(chunks.capture());
+        assertThat("Import NDJSON - chunk days: ", chunks.getValue().get(1).getAvailablePickUpDays(),
+                is(singleton(FRIDAY)));
+    }
+
+    @Test
+    public void testImportBindErrors() throws IOException {
+        mockSave();
+
+        ImportReport report = importer.importRestaurants(input("[" +
+                "{\"name\": \"A\", \"address\": \"A St.\", \"availablePickUpDays\": [\"MONDAY\"], " +
+                "\"pickUpTime\": \"22:00\"}," +
+                "{\"name\": [\"B\"], \"address\": \"B St.\", \"pickUpTime\": \"23:00\"}," +
+                "42," +
+                "{\"name\": \"D\", \"address\": \"D St.\", \"pickUpTime\": \"20:00\"}" +
+                "]"));
+
+        assertThat("Import bind errors - imported: ", report.getImported(), is(1));
+        assertThat("Import bind errors - failed: ", report.getFailed(), is(3));
+        assertThat("Import bind errors - unknown field: ", report.getErrors().get(0).getMessage(),
+                is("Unknown form parameter 'availablePickUpDays'"));
+        assertThat("Import bind errors - wrong type row: ", report.getErrors().get(1).getRow(), is(2));
+        assertThat("Import bind errors - wrong type: ", report.getErrors().get(1).getMessage(),
+                startsWith("Invalid form parameter 'name'"));
+        assertThat("Import bind errors - not an object row: ", report.getErrors().get(2).getRow(), is(3));
+    }
+
+    @Test
+    public void testImportPersistErrors() throws IOException {
+        when(repository.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("Constraint"));
+        when(repository.save(any())).thenAnswer(invocationOnMock -> {
+            Restaurant restaurant = invocationOnMock.getArgument(0);
+            if (restaurant.getName().equals("B")) {
+                throw new DataIntegrityViolationException("Failed", new IllegalStateException("Too long"));
+            }
+            restaurant.setId(sequence.incrementAndGet());
+            return restaurant;
+        });
+
+        ImportReport report = importer.importRestaurants(input(
+                "{\"name\": \"A\", \"address\": \"A St.\", \"pickUpTime\": \"22:00\"}\n" +
+                "{\"name\": \"B\", \"address\": \"B St.\", \"pickUpTime\": \"23:00\"}\n"));
+
+        assertThat("Import persist errors - imported: ", report.getImported(), is(1));
+        assertThat("Import persist errors - failed: ", report.getFailed(), is(1));
+        assertThat("Import persist errors - row: ", report.getErrors().get(0).getRow(), is(2));
+        assertThat("Import persist errors - message: ", report.getErrors().get(0).getMessage(),
+                is("Failed to persist: Too long"));
+        ArgumentCaptor<RestaurantsCreatedEvent> event = ArgumentCaptor.forClass(RestaurantsCreatedEvent.class);
+        verify(publisher).publishEvent(event.capture());
+        assertThat("Import persist errors - published: ", event.getValue().getRestaurants().get(0).getName(),
+                is("A"));
+    }
+
+    @Test
+    public void testImportMalformed() throws IOException {
+        ImportReport report = importer.importRestaurants(input("[{\"name\": \"A\", \"address\": "));
+
+        assertThat("Import malformed - imported: ", report.getImported(), is(0));
+        assertThat("Import malformed - failed: ", report.getFailed(), is(1));
+        assertThat("Import malformed - error: ", report.getErrors().get(0).getMessage(), startsWith("Malformed content"));
+        verify(repository, never()).saveAll(anyIterable());
+    }
+
+    private void mockSave() {
+        when(repository.saveAll(anyIterable())).thenAnswer(invocationOnMock -> {
+            Iterable<Restaurant> restaurants = invocationOnMock.getArgument(0);
+            restaurants.forEach(restaurant -> restaurant.setId(sequence.incrementAndGet()));
+            return restaurants;
+        });
+    }
+
+    private static ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}